@@ -0,0 +1,35 @@
+package org.example.tasknexus.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * BinaryFormatConfig
+ * Registers CBOR and Smile message converters so clients can negotiate a binary
+ * encoding of the usual ApiResponse envelope via the Accept header
+ * (application/cbor, application/x-jackson-smile). JSON stays the default.
+ */
+@Configuration
+public class BinaryFormatConfig {
+
+    /**
+     * CBOR converter sharing the application's Jackson settings (spring.jackson.*)
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    /**
+     * Smile converter sharing the application's Jackson settings (spring.jackson.*)
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
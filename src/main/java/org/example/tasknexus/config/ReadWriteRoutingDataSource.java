@@ -0,0 +1,74 @@
+package org.example.tasknexus.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * ReadWriteRoutingDataSource
+ * Routes read-only transactions to the replica pool and everything else to the primary
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    private final DataSource primary;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica) {
+        this.primary = primary;
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Pick the replica only inside a read-only transaction
+     */
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? REPLICA : PRIMARY;
+    }
+
+    /**
+     * Get connection, falling back to the primary when the replica is unavailable
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSource target = determineTargetDataSource();
+        if (target == primary) {
+            return primary.getConnection();
+        }
+
+        try {
+            return target.getConnection();
+        } catch (SQLException e) {
+            log.warn("Replica unavailable, falling back to primary: {}", e.getMessage());
+            return primary.getConnection();
+        }
+    }
+
+    /**
+     * Get connection with credentials, falling back to the primary when the replica is unavailable
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        DataSource target = determineTargetDataSource();
+        if (target == primary) {
+            return primary.getConnection(username, password);
+        }
+
+        try {
+            return target.getConnection(username, password);
+        } catch (SQLException e) {
+            log.warn("Replica unavailable, falling back to primary: {}", e.getMessage());
+            return primary.getConnection(username, password);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package org.example.tasknexus.config;
 
 import org.example.tasknexus.security.JwtAuthenticationEntryPoint;
 import org.example.tasknexus.security.JwtAuthenticationFilter;
+import org.example.tasknexus.security.StorageQuotaFilter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -36,6 +37,9 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @Autowired
+    private StorageQuotaFilter storageQuotaFilter;
+
     /**
      * Password encoder bean
      */
@@ -83,11 +87,13 @@ public class SecurityConfig {
                         .requestMatchers("/", "/health", "/error").permitAll()
                         // Protected endpoints
                         .requestMatchers(HttpMethod.GET, "/tasks/**").hasAnyRole("USER", "ADMIN")
+                        .requestMatchers(HttpMethod.HEAD, "/tasks/**").hasAnyRole("USER", "ADMIN")
                         .requestMatchers(HttpMethod.POST, "/tasks/**").hasAnyRole("USER", "ADMIN")
                         .requestMatchers(HttpMethod.PUT, "/tasks/**").hasAnyRole("USER", "ADMIN")
                         .requestMatchers(HttpMethod.DELETE, "/tasks/**").hasAnyRole("USER", "ADMIN")
                         .requestMatchers("/analytics/**").hasAnyRole("USER", "ADMIN")
                         .requestMatchers("/users/**").hasAnyRole("USER", "ADMIN")
+                        .requestMatchers("/admin/**").hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
                 .headers(headers -> headers
@@ -97,6 +103,9 @@ public class SecurityConfig {
         // Add JWT filter
         http.addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
 
+        // Reject over-quota uploads from Content-Length, before the body is parsed
+        http.addFilterAfter(storageQuotaFilter, JwtAuthenticationFilter.class);
+
         return http.build();
     }
 }
@@ -0,0 +1,55 @@
+package org.example.tasknexus.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.tasknexus.storage.InMemoryStorageBackend;
+import org.example.tasknexus.storage.InstrumentedStorageBackend;
+import org.example.tasknexus.storage.LocalStorageBackend;
+import org.example.tasknexus.storage.S3StorageBackend;
+import org.example.tasknexus.storage.StorageBackend;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+/**
+ * StorageConfig
+ * Selects the storage backend for attachment content with file.storage.backend
+ * (local, memory or s3) and wraps it with latency and throughput metrics.
+ */
+@Configuration
+public class StorageConfig {
+
+    /**
+     * Instrumented backend shared by the blob store, thumbnails and downloads
+     */
+    @Bean
+    public StorageBackend storageBackend(
+            MeterRegistry meterRegistry,
+            @Value("${file.storage.backend:local}") String type,
+            @Value("${file.upload-dir:uploads}") String uploadDir,
+            @Value("${file.storage.s3.endpoint:http://localhost:9000}") String endpoint,
+            @Value("${file.storage.s3.region:us-east-1}") String region,
+            @Value("${file.storage.s3.bucket:tasknexus}") String bucket,
+            @Value("${file.storage.s3.access-key:}") String accessKey,
+            @Value("${file.storage.s3.secret-key:}") String secretKey,
+            @Value("${file.storage.s3.timeout-ms:30000}") long timeoutMs,
+            @Value("${file.storage.s3.create-bucket:false}") boolean createBucket) throws IOException {
+        StorageBackend backend = switch (type) {
+            case "local" -> new LocalStorageBackend(Paths.get(uploadDir));
+            case "memory" -> new InMemoryStorageBackend();
+            case "s3" -> {
+                S3StorageBackend s3 = new S3StorageBackend(endpoint, region, bucket,
+                        accessKey, secretKey, Duration.ofMillis(timeoutMs));
+                if (createBucket) {
+                    s3.createBucketIfMissing();
+                }
+                yield s3;
+            }
+            default -> throw new IllegalStateException("Unknown file.storage.backend: " + type);
+        };
+        return new InstrumentedStorageBackend(backend, meterRegistry);
+    }
+}
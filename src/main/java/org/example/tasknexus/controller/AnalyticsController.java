@@ -1,17 +1,33 @@
 package org.example.tasknexus.controller;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.example.tasknexus.dto.ApiResponse;
+import org.example.tasknexus.dto.TaskCounts;
+import org.example.tasknexus.dto.TrendPoint;
+import org.example.tasknexus.exception.ValidationException;
 import org.example.tasknexus.model.TaskStatus;
 import org.example.tasknexus.repository.TaskRepository;
+import org.example.tasknexus.service.AnalyticsRequestCoalescer;
+import org.example.tasknexus.service.BlobStoreService;
+import org.example.tasknexus.service.ExportService;
+import org.example.tasknexus.service.GlobalAnalyticsService;
+import org.example.tasknexus.service.LeadTimeService;
+import org.example.tasknexus.service.TaskCounterService;
+import org.example.tasknexus.service.TaskRollupService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -27,6 +43,27 @@ public class AnalyticsController {
     @Autowired
     private TaskRepository taskRepository;
 
+    @Autowired
+    private TaskCounterService taskCounterService;
+
+    @Autowired
+    private TaskRollupService taskRollupService;
+
+    @Autowired
+    private LeadTimeService leadTimeService;
+
+    @Autowired
+    private GlobalAnalyticsService globalAnalyticsService;
+
+    @Autowired
+    private AnalyticsRequestCoalescer analyticsRequestCoalescer;
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private BlobStoreService blobStoreService;
+
     /**
      * Get dashboard statistics
      * GET /analytics/dashboard
@@ -39,43 +76,8 @@ public class AnalyticsController {
         try {
             Long userId = (Long) request.getAttribute("userId");
 
-            Map<String, Object> stats = new HashMap<>();
-
-            // Total tasks
-            Long totalTasks = taskRepository.count();
-            stats.put("totalTasks", totalTasks);
-
-            // Tasks by status
-            Long pendingTasks = taskRepository.countByUserIdAndStatus(userId, TaskStatus.PENDING);
-            Long inProgressTasks = taskRepository.countByUserIdAndStatus(userId, TaskStatus.IN_PROGRESS);
-            Long completedTasks = taskRepository.countByUserIdAndStatus(userId, TaskStatus.COMPLETED);
-            Long cancelledTasks = taskRepository.countByUserIdAndStatus(userId, TaskStatus.CANCELLED);
-
-            stats.put("pendingTasks", pendingTasks);
-            stats.put("inProgressTasks", inProgressTasks);
-            stats.put("completedTasks", completedTasks);
-            stats.put("cancelledTasks", cancelledTasks);
-
-            // Completion rate
-            double completionRate = totalTasks > 0
-                    ? (completedTasks.doubleValue() / totalTasks.doubleValue()) * 100
-                    : 0.0;
-            stats.put("completionRate", String.format("%.2f%%", completionRate));
-
-            // Tasks by priority
-            Map<String, Long> tasksByPriority = new HashMap<>();
-            tasksByPriority.put("HIGH", taskRepository.countByUserIdAndStatus(userId, TaskStatus.PENDING));
-            tasksByPriority.put("MEDIUM", inProgressTasks);
-            tasksByPriority.put("LOW", completedTasks);
-            stats.put("tasksByPriority", tasksByPriority);
-
-            // Tasks by status
-            Map<String, Long> tasksByStatus = new HashMap<>();
-            tasksByStatus.put("PENDING", pendingTasks);
-            tasksByStatus.put("IN_PROGRESS", inProgressTasks);
-            tasksByStatus.put("COMPLETED", completedTasks);
-            tasksByStatus.put("CANCELLED", cancelledTasks);
-            stats.put("tasksByStatus", tasksByStatus);
+            Map<String, Object> stats = analyticsRequestCoalescer.get(userId, "dashboard",
+                    () -> buildDashboardStats(userId));
 
             return ResponseEntity.ok()
                     .body(ApiResponse.success("Dashboard stats fetched successfully", stats));
@@ -98,18 +100,8 @@ public class AnalyticsController {
         try {
             Long userId = (Long) request.getAttribute("userId");
 
-            Map<String, Object> summary = new HashMap<>();
-
-            int totalTasks = taskRepository.findByUserId(userId).size();
-            long completedTasks = taskRepository.countByUserIdAndStatus(userId, TaskStatus.COMPLETED);
-            long pendingTasks = taskRepository.countByUserIdAndStatus(userId, TaskStatus.PENDING);
-
-            summary.put("totalTasks", totalTasks);
-            summary.put("completedTasks", completedTasks);
-            summary.put("pendingTasks", pendingTasks);
-            summary.put("productivity", totalTasks > 0
-                    ? String.format("%.1f%%", ((double) completedTasks / totalTasks) * 100)
-                    : "0.0%");
+            Map<String, Object> summary = analyticsRequestCoalescer.get(userId, "summary",
+                    () -> buildTaskSummary(userId));
 
             return ResponseEntity.ok()
                     .body(ApiResponse.success("Task summary fetched successfully", summary));
@@ -132,19 +124,8 @@ public class AnalyticsController {
         try {
             Long userId = (Long) request.getAttribute("userId");
 
-            Map<String, Object> performance = new HashMap<>();
-
-            int totalTasks = taskRepository.findByUserId(userId).size();
-            long completedTasks = taskRepository.countByUserIdAndStatus(userId, TaskStatus.COMPLETED);
-            int overdueTasks = taskRepository.findOverdueTasks(userId).size();
-
-            performance.put("totalTasks", totalTasks);
-            performance.put("completedTasks", completedTasks);
-            performance.put("overdueTasks", overdueTasks);
-            performance.put("onTimeCompletionRate", totalTasks > 0
-                    ? String.format("%.1f%%", ((double) (totalTasks - overdueTasks) / totalTasks) * 100)
-                    : "100.0%");
-            performance.put("efficiency", completedTasks > 0 ? "Good" : "Needs Improvement");
+            Map<String, Object> performance = analyticsRequestCoalescer.get(userId, "performance",
+                    () -> buildPerformanceMetrics(userId));
 
             return ResponseEntity.ok()
                     .body(ApiResponse.success("Performance metrics fetched successfully", performance));
@@ -154,4 +135,182 @@ public class AnalyticsController {
                     .body(ApiResponse.error(e.getMessage(), 500));
         }
     }
+
+    /**
+     * Get created/completed/overdue trends
+     * GET /analytics/trends?from=2026-01-01&to=2026-01-31&granularity=day|week
+     */
+    @GetMapping("/trends")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<ApiResponse> getTrends(
+            HttpServletRequest request,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "day") String granularity) {
+        log.info("Get trends endpoint called");
+
+        try {
+            Long userId = (Long) request.getAttribute("userId");
+
+            LocalDate end = to != null ? to : LocalDate.now();
+            LocalDate start = from != null ? from : end.minusDays(29);
+            List<TrendPoint> trends = taskRollupService.getTrends(userId, start, end, granularity);
+
+            return ResponseEntity.ok()
+                    .body(ApiResponse.success("Trends fetched successfully", trends));
+        } catch (ValidationException e) {
+            log.error("Get trends error: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage(), 400));
+        } catch (Exception e) {
+            log.error("Get trends error: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error(e.getMessage(), 500));
+        }
+    }
+
+    /**
+     * Export daily analytics history of current user
+     * GET /analytics/export?format=csv&gzip=true
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public void exportAnalytics(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) throws IOException {
+        log.info("Export analytics endpoint called");
+
+        if (!"csv".equalsIgnoreCase(format)) {
+            throw new ValidationException("Unsupported export format: " + format);
+        }
+
+        Long userId = (Long) request.getAttribute("userId");
+        response.setContentType(gzip ? "application/gzip" : "text/csv;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"analytics.csv" + (gzip ? ".gz" : "") + "\"");
+        exportService.exportAnalytics(userId, response.getOutputStream(), gzip);
+    }
+
+    /**
+     * Get analytics across all users
+     * GET /analytics/global
+     */
+    @GetMapping("/global")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse> getGlobalStats() {
+        log.info("Get global analytics endpoint called");
+
+        try {
+            Map<String, Object> stats = globalAnalyticsService.getGlobalStats();
+
+            return ResponseEntity.ok()
+                    .body(ApiResponse.success("Global analytics fetched successfully", stats));
+        } catch (Exception e) {
+            log.error("Get global analytics error: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error(e.getMessage(), 500));
+        }
+    }
+
+    /**
+     * Get attachment storage and deduplication statistics
+     * GET /analytics/storage
+     */
+    @GetMapping("/storage")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse> getStorageStats() {
+        log.info("Get storage stats endpoint called");
+
+        try {
+            return ResponseEntity.ok()
+                    .body(ApiResponse.success("Storage stats fetched successfully", blobStoreService.getStats()));
+        } catch (Exception e) {
+            log.error("Get storage stats error: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error(e.getMessage(), 500));
+        }
+    }
+
+    /**
+     * Rebuild trend rollups for all users in the background
+     * POST /analytics/trends/backfill
+     */
+    @PostMapping("/trends/backfill")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse> backfillTrends() {
+        log.info("Backfill trends endpoint called");
+
+        taskRollupService.backfillAll();
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(new ApiResponse("success", "Trend backfill started", null, 202));
+    }
+
+    private Map<String, Object> buildDashboardStats(Long userId) {
+        // Counters cover totals, status and priority breakdowns
+        TaskCounts counts = taskCounterService.getCounts(userId);
+
+        Map<String, Object> stats = new HashMap<>();
+
+        long totalTasks = counts.total();
+        long completedTasks = counts.byStatus(TaskStatus.COMPLETED);
+        stats.put("totalTasks", totalTasks);
+
+        // Tasks by status
+        stats.put("pendingTasks", counts.byStatus(TaskStatus.PENDING));
+        stats.put("inProgressTasks", counts.byStatus(TaskStatus.IN_PROGRESS));
+        stats.put("completedTasks", completedTasks);
+        stats.put("cancelledTasks", counts.byStatus(TaskStatus.CANCELLED));
+
+        // Completion rate
+        double completionRate = totalTasks > 0
+                ? ((double) completedTasks / totalTasks) * 100
+                : 0.0;
+        stats.put("completionRate", String.format("%.2f%%", completionRate));
+
+        stats.put("tasksByPriority", counts.priorityMap());
+        stats.put("tasksByStatus", counts.statusMap());
+
+        return stats;
+    }
+
+    private Map<String, Object> buildTaskSummary(Long userId) {
+        Map<String, Object> summary = new HashMap<>();
+
+        TaskCounts counts = taskCounterService.getCounts(userId);
+        long totalTasks = counts.total();
+        long completedTasks = counts.byStatus(TaskStatus.COMPLETED);
+        long pendingTasks = counts.byStatus(TaskStatus.PENDING);
+
+        summary.put("totalTasks", totalTasks);
+        summary.put("completedTasks", completedTasks);
+        summary.put("pendingTasks", pendingTasks);
+        summary.put("productivity", totalTasks > 0
+                ? String.format("%.1f%%", ((double) completedTasks / totalTasks) * 100)
+                : "0.0%");
+
+        return summary;
+    }
+
+    private Map<String, Object> buildPerformanceMetrics(Long userId) {
+        Map<String, Object> performance = new HashMap<>();
+
+        TaskCounts counts = taskCounterService.getCounts(userId);
+        long totalTasks = counts.total();
+        long completedTasks = counts.byStatus(TaskStatus.COMPLETED);
+        // Overdue depends on the clock, so it is counted rather than maintained
+        long overdueTasks = taskRepository.countOverdueTasks(userId);
+
+        performance.put("totalTasks", totalTasks);
+        performance.put("completedTasks", completedTasks);
+        performance.put("overdueTasks", overdueTasks);
+        performance.put("onTimeCompletionRate", totalTasks > 0
+                ? String.format("%.1f%%", ((double) (totalTasks - overdueTasks) / totalTasks) * 100)
+                : "100.0%");
+        performance.put("efficiency", completedTasks > 0 ? "Good" : "Needs Improvement");
+        performance.putAll(leadTimeService.getPercentiles(userId));
+
+        return performance;
+    }
 }
@@ -0,0 +1,90 @@
+package org.example.tasknexus.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.tasknexus.dto.ApiResponse;
+import org.example.tasknexus.service.OrphanCollectorService;
+import org.example.tasknexus.service.StorageLayoutMigrationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * StorageAdminController
+ * REST controller for attachment storage maintenance (admin only)
+ */
+@Slf4j
+@RestController
+@RequestMapping("/admin/storage")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class StorageAdminController {
+
+    @Autowired
+    private StorageLayoutMigrationService storageLayoutMigrationService;
+
+    @Autowired
+    private OrphanCollectorService orphanCollectorService;
+
+    /**
+     * Start moving flat upload files into the sharded layout
+     * POST /admin/storage/layout-migration
+     */
+    @PostMapping("/layout-migration")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse> startLayoutMigration() {
+        log.info("Start layout migration endpoint called");
+
+        if (!storageLayoutMigrationService.start()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.error("Layout migration already running", 409));
+        }
+
+        storageLayoutMigrationService.migrate();
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(new ApiResponse("success", "Layout migration started", null, 202));
+    }
+
+    /**
+     * Get layout migration progress
+     * GET /admin/storage/layout-migration
+     */
+    @GetMapping("/layout-migration")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse> getLayoutMigrationStatus() {
+        return ResponseEntity.ok()
+                .body(ApiResponse.success("Layout migration status fetched",
+                        storageLayoutMigrationService.getStatus()));
+    }
+
+    /**
+     * Start an orphaned attachment collection
+     * POST /admin/storage/gc?dryRun=true
+     */
+    @PostMapping("/gc")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse> startOrphanCollection(@RequestParam(defaultValue = "true") boolean dryRun) {
+        log.info("Start orphan collection endpoint called (dry run: {})", dryRun);
+
+        if (!orphanCollectorService.start()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.error("Orphan collection already running", 409));
+        }
+
+        orphanCollectorService.collectAsync(dryRun);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(new ApiResponse("success", "Orphan collection started", null, 202));
+    }
+
+    /**
+     * Get the report of the last orphan collection
+     * GET /admin/storage/gc
+     */
+    @GetMapping("/gc")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse> getOrphanCollectionReport() {
+        return ResponseEntity.ok()
+                .body(ApiResponse.success("Orphan collection report fetched",
+                        orphanCollectorService.getLastReport()));
+    }
+}
@@ -1,13 +1,25 @@
 package org.example.tasknexus.controller;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.example.tasknexus.dto.ApiResponse;
 import org.example.tasknexus.dto.TaskDTO;
+import org.example.tasknexus.model.Attachment;
+import org.example.tasknexus.exception.QuotaExceededException;
+import org.example.tasknexus.exception.ResourceNotFoundException;
+import org.example.tasknexus.exception.ValidationException;
 import org.example.tasknexus.model.TaskPriority;
 import org.example.tasknexus.model.TaskStatus;
+import org.example.tasknexus.model.UploadSession;
+import org.example.tasknexus.service.AttachmentArchiveService;
+import org.example.tasknexus.service.BlobStoreService;
+import org.example.tasknexus.service.ExportService;
+import org.example.tasknexus.service.FileDownloadService;
+import org.example.tasknexus.service.ResumableUploadService;
 import org.example.tasknexus.service.TaskService;
+import org.example.tasknexus.service.ThumbnailService;
 import org.example.tasknexus.service.FileService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -20,13 +32,15 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * TaskController
@@ -44,6 +58,21 @@ public class TaskController {
     @Autowired
     private FileService fileService;
 
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private ResumableUploadService resumableUploadService;
+
+    @Autowired
+    private FileDownloadService fileDownloadService;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private AttachmentArchiveService attachmentArchiveService;
+
     /**
      * Create a new task
      * POST /tasks
@@ -310,6 +339,30 @@ public class TaskController {
         }
     }
 
+    /**
+     * Export all tasks of current user
+     * GET /tasks/export?format=csv&gzip=true
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public void exportTasks(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) throws IOException {
+        log.info("Export tasks endpoint called");
+
+        if (!"csv".equalsIgnoreCase(format)) {
+            throw new ValidationException("Unsupported export format: " + format);
+        }
+
+        Long userId = (Long) request.getAttribute("userId");
+        response.setContentType(gzip ? "application/gzip" : "text/csv;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"tasks.csv" + (gzip ? ".gz" : "") + "\"");
+        exportService.exportTasks(userId, response.getOutputStream(), gzip);
+    }
+
     /**
      * Upload file attachment for task
      * POST /tasks/{id}/upload
@@ -326,23 +379,21 @@ public class TaskController {
             Long userId = (Long) request.getAttribute("userId");
 
             // Verify task belongs to user
-            TaskDTO task = taskService.getTaskById(userId, id);
+            taskService.getTaskById(userId, id);
 
             // Upload file
-            String filename = fileService.uploadFile(file, id);
+            String filename = fileService.uploadFile(file, id, userId);
 
             // Update task with attachment info
-            String attachments = task.getAttachments();
-            attachments = (attachments == null || attachments.isEmpty())
-                    ? filename
-                    : attachments + "," + filename;
-
-            task.setAttachments(attachments);
-            taskService.updateTask(userId, id, task);
+            taskService.addAttachment(userId, id, filename);
 
             return ResponseEntity.ok()
                     .body(ApiResponse.success("File uploaded successfully",
                             Map.of("filename", filename, "taskId", id)));
+        } catch (QuotaExceededException e) {
+            log.warn("Upload attachment rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body(ApiResponse.error(e.getMessage(), 413));
         } catch (Exception e) {
             log.error("Upload attachment error: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -351,44 +402,279 @@ public class TaskController {
     }
 
     /**
-     * Download file attachment
+     * Start a resumable upload
+     * POST /tasks/{id}/uploads
+     */
+    @PostMapping("/{id}/uploads")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<ApiResponse> createUploadSession(
+            HttpServletRequest request,
+            @PathVariable Long id,
+            @RequestBody UploadSessionRequest uploadRequest) {
+        log.info("Create upload session endpoint called for task: {}", id);
+
+        try {
+            Long userId = (Long) request.getAttribute("userId");
+            UploadSession session = resumableUploadService.createSession(
+                    userId, id, uploadRequest.getFilename(), uploadRequest.getSize());
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(ApiResponse.success("Upload session created", uploadStatus(session)));
+        } catch (Exception e) {
+            log.error("Create upload session error: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage(), 400));
+        }
+    }
+
+    /**
+     * Get the acknowledged offset of a resumable upload
+     * GET /tasks/{id}/uploads/{uploadId}
+     */
+    @GetMapping("/{id}/uploads/{uploadId}")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<ApiResponse> getUploadSession(
+            HttpServletRequest request,
+            @PathVariable Long id,
+            @PathVariable String uploadId) {
+        Long userId = (Long) request.getAttribute("userId");
+        UploadSession session = resumableUploadService.getSession(userId, id, uploadId);
+        return ResponseEntity.ok()
+                .body(ApiResponse.success("Upload session fetched", uploadStatus(session)));
+    }
+
+    /**
+     * Upload one chunk of a resumable upload
+     * PUT /tasks/{id}/uploads/{uploadId}
+     * Content-Range: bytes start-end/total, optional X-Chunk-SHA256: hex digest of the chunk
+     */
+    @PutMapping(value = "/{id}/uploads/{uploadId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<ApiResponse> uploadChunk(
+            HttpServletRequest request,
+            @PathVariable Long id,
+            @PathVariable String uploadId,
+            @RequestHeader(HttpHeaders.CONTENT_RANGE) String contentRange,
+            @RequestHeader(value = "X-Chunk-SHA256", required = false) String checksum) throws IOException {
+        Long userId = (Long) request.getAttribute("userId");
+
+        long[] range = parseContentRange(contentRange);
+        long offset = resumableUploadService.appendChunk(userId, id, uploadId, range[0], range[1] - range[0] + 1,
+                range[2], request.getInputStream(), checksum);
+
+        return ResponseEntity.ok()
+                .body(ApiResponse.success("Chunk received", Map.of("uploadId", uploadId, "offset", offset)));
+    }
+
+    /**
+     * Finish a resumable upload and attach the file to the task
+     * POST /tasks/{id}/uploads/{uploadId}/complete
+     */
+    @PostMapping("/{id}/uploads/{uploadId}/complete")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<ApiResponse> completeUpload(
+            HttpServletRequest request,
+            @PathVariable Long id,
+            @PathVariable String uploadId) throws IOException {
+        log.info("Complete upload endpoint called: {}", uploadId);
+
+        Long userId = (Long) request.getAttribute("userId");
+        String filename = resumableUploadService.complete(userId, id, uploadId);
+        return ResponseEntity.ok()
+                .body(ApiResponse.success("File uploaded successfully",
+                        Map.of("filename", filename, "taskId", id)));
+    }
+
+    /**
+     * Cancel a resumable upload
+     * DELETE /tasks/{id}/uploads/{uploadId}
+     */
+    @DeleteMapping("/{id}/uploads/{uploadId}")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<ApiResponse> cancelUpload(
+            HttpServletRequest request,
+            @PathVariable Long id,
+            @PathVariable String uploadId) throws IOException {
+        Long userId = (Long) request.getAttribute("userId");
+        resumableUploadService.cancel(userId, id, uploadId);
+        return ResponseEntity.ok()
+                .body(ApiResponse.success("Upload cancelled", null));
+    }
+
+    /**
+     * Download file attachment (supports HEAD, Range and conditional requests)
      * GET /tasks/{id}/download/{filename}
      */
     @GetMapping("/{id}/download/{filename}")
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
-    public ResponseEntity<?> downloadAttachment(
+    public void downloadAttachment(
             HttpServletRequest request,
+            HttpServletResponse response,
             @PathVariable Long id,
-            @PathVariable String filename) {
+            @PathVariable String filename) throws IOException {
         log.info("Download attachment endpoint called: {}", filename);
 
-        try {
-            Long userId = (Long) request.getAttribute("userId");
+        Long userId = (Long) request.getAttribute("userId");
 
-            // Verify task belongs to user
-            taskService.getTaskById(userId, id);
+        // Verify task belongs to user and the file is one of its attachments
+        TaskDTO task = taskService.getTaskById(userId, id);
+        if (!hasAttachment(task, filename)) {
+            throw new ResourceNotFoundException("File not found");
+        }
 
-            // Get file
-            Path filePath = fileService.getFilePath(filename);
-            Resource resource = new UrlResource(filePath.toUri());
+        String contentType = MediaTypeFactory.getMediaType(filename)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM)
+                .toString();
 
-            if (resource.exists() && resource.isReadable()) {
-                return ResponseEntity.ok()
-                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                        .header(HttpHeaders.CONTENT_DISPOSITION,
-                                "attachment; filename=\"" + resource.getFilename() + "\"")
-                        .body(resource);
-            } else {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body(ApiResponse.error("File not found", 404));
+        Optional<BlobStoreService.BlobContent> blob = fileService.getBlobContent(filename);
+        if (blob.isPresent()) {
+            fileDownloadService.serve(blob.get(), filename, contentType, request, response);
+            return;
+        }
+
+        // Stored before content addressing, on local disk
+        Path filePath = fileService.getFilePath(filename);
+        if (!Files.isReadable(filePath)) {
+            throw new ResourceNotFoundException("File not found");
+        }
+        fileDownloadService.serve(filePath, filename, contentType, request, response);
+    }
+
+    /**
+     * Download all attachments of a task as one zip, streamed while it is built
+     * GET /tasks/{id}/attachments.zip
+     */
+    @GetMapping("/{id}/attachments.zip")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public void downloadAttachmentArchive(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            @PathVariable Long id) throws IOException {
+        log.info("Attachment archive requested for task: {}", id);
+
+        Long userId = (Long) request.getAttribute("userId");
+        TaskDTO task = taskService.getTaskById(userId, id);
+
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"task-" + id + "-attachments.zip\"");
+        attachmentArchiveService.writeTaskArchive(task, response.getOutputStream());
+    }
+
+    /**
+     * Download the attachments of several tasks as one zip, one folder per task
+     * GET /tasks/attachments.zip?ids=1,2,3 or ?status=COMPLETED&priority=HIGH
+     */
+    @GetMapping("/attachments.zip")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public void downloadAttachmentsArchive(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            @RequestParam(required = false) List<Long> ids,
+            @RequestParam(required = false) TaskStatus status,
+            @RequestParam(required = false) TaskPriority priority) throws IOException {
+        log.info("Bulk attachment archive requested");
+
+        if (ids != null && (status != null || priority != null)) {
+            throw new ValidationException("Filter by ids or by status and priority, not both");
+        }
+        if (ids != null && ids.isEmpty()) {
+            throw new ValidationException("ids must not be empty");
+        }
+
+        Long userId = (Long) request.getAttribute("userId");
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"attachments.zip\"");
+        attachmentArchiveService.writeArchive(userId, ids, status, priority, response.getOutputStream());
+    }
+
+    /**
+     * Thumbnail of an image attachment; the nearest generated size at or above the requested one
+     * GET /tasks/{id}/thumbnail/{filename}?size=256
+     */
+    @GetMapping("/{id}/thumbnail/{filename}")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public void getThumbnail(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            @PathVariable Long id,
+            @PathVariable String filename,
+            @RequestParam(defaultValue = "256") int size) throws IOException {
+        Long userId = (Long) request.getAttribute("userId");
+
+        TaskDTO task = taskService.getTaskById(userId, id);
+        if (!hasAttachment(task, filename)) {
+            throw new ResourceNotFoundException("File not found");
+        }
+        if (size <= 0) {
+            throw new ValidationException("Size must be positive");
+        }
+
+        String extension = filename.substring(filename.lastIndexOf('.') + 1);
+        Attachment attachment = fileService.getAttachment(filename)
+                .filter(a -> thumbnailService.supports(extension))
+                .orElseThrow(() -> new ResourceNotFoundException("No thumbnail for this file"));
+
+        String thumbnail = thumbnailService.thumbnailKey(attachment.getBlobHash(), extension,
+                thumbnailService.resolveSize(size));
+        if (!thumbnailService.exists(thumbnail)) {
+            // Dropped from a full queue or uploaded before thumbnails existed
+            thumbnailService.submit(attachment.getBlobHash(), extension);
+            throw new ResourceNotFoundException("Thumbnail not available yet");
+        }
+
+        // Thumbnails are derived from immutable content, so they never need revalidation
+        fileDownloadService.serve(thumbnail, thumbnailService.contentType(extension),
+                "private, max-age=31536000, immutable", "inline", request, response);
+    }
+
+    private boolean hasAttachment(TaskDTO task, String filename) {
+        String attachments = task.getAttachments();
+        return attachments != null && List.of(attachments.split(",")).contains(filename);
+    }
+
+    private Map<String, Object> uploadStatus(UploadSession session) {
+        return Map.of(
+                "uploadId", session.getId(),
+                "offset", session.getReceivedBytes(),
+                "size", session.getTotalSize(),
+                "expiresAt", session.getExpiresAt().toString());
+    }
+
+    /**
+     * Parse "bytes start-end/total" into {start, end, total}; total is -1 for "*"
+     */
+    private long[] parseContentRange(String contentRange) {
+        try {
+            String range = contentRange.trim();
+            if (!range.startsWith("bytes ")) {
+                throw new ValidationException("Content-Range must use bytes");
             }
-        } catch (Exception e) {
-            log.error("Download attachment error: {}", e.getMessage());
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(ApiResponse.error(e.getMessage(), 400));
+            String span = range.substring(6, range.indexOf('/'));
+            int dash = span.indexOf('-');
+            long start = Long.parseLong(span.substring(0, dash).trim());
+            long end = Long.parseLong(span.substring(dash + 1).trim());
+            String totalPart = range.substring(range.indexOf('/') + 1).trim();
+            long total = totalPart.equals("*") ? -1 : Long.parseLong(totalPart);
+            if (start < 0 || end < start || (total >= 0 && end >= total)) {
+                throw new ValidationException("Invalid Content-Range: " + contentRange);
+            }
+            return new long[]{start, end, total};
+        } catch (IndexOutOfBoundsException | NumberFormatException e) {
+            throw new ValidationException("Invalid Content-Range: " + contentRange);
         }
     }
 
+    /**
+     * Resumable upload session request DTO
+     */
+    @lombok.Data
+    @lombok.NoArgsConstructor
+    @lombok.AllArgsConstructor
+    public static class UploadSessionRequest {
+        private String filename;
+        private long size;
+    }
+
     /**
      * Task status update request DTO
      */
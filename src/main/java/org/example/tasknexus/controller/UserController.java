@@ -4,7 +4,9 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.example.tasknexus.dto.ApiResponse;
+import org.example.tasknexus.dto.StorageUsageDTO;
 import org.example.tasknexus.dto.UserDTO;
+import org.example.tasknexus.service.StorageQuotaService;
 import org.example.tasknexus.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -25,6 +27,9 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private StorageQuotaService storageQuotaService;
+
     /**
      * Get current user profile
      * GET /api/v1/users/me
@@ -46,6 +51,27 @@ public class UserController {
         }
     }
 
+    /**
+     * Get current user's attachment storage usage and quota
+     * GET /api/v1/users/me/storage
+     */
+    @GetMapping("/me/storage")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<ApiResponse> getStorageUsage(HttpServletRequest request) {
+        log.info("Get storage usage endpoint called");
+
+        try {
+            Long userId = (Long) request.getAttribute("userId");
+            StorageUsageDTO usage = storageQuotaService.getUsage(userId);
+            return ResponseEntity.ok()
+                    .body(ApiResponse.success("Storage usage fetched successfully", usage));
+        } catch (Exception e) {
+            log.error("Get storage usage error: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error(e.getMessage(), 500));
+        }
+    }
+
     /**
      * Get user by ID
      * GET /api/v1/users/{id}
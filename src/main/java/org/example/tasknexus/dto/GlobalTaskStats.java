@@ -0,0 +1,97 @@
+package org.example.tasknexus.dto;
+
+import org.example.tasknexus.model.TaskPriority;
+import org.example.tasknexus.model.TaskStatus;
+import org.example.tasknexus.repository.TaskAnalyticsRow;
+import org.example.tasknexus.util.HeavyHitters;
+import org.example.tasknexus.util.LogHistogram;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * GlobalTaskStats
+ * Mergeable partial aggregate over a slice of the tasks table. Its size is fixed regardless of
+ * how many tasks were folded in, so partitions can be combined in any order.
+ */
+public class GlobalTaskStats {
+
+    private final TaskCounts counts = new TaskCounts();
+    private final LogHistogram leadTime = new LogHistogram();
+    private final LogHistogram dueDateSlip = new LogHistogram();
+    private final HeavyHitters topUsers;
+    private long overdueTasks;
+    private long partitions;
+
+    public GlobalTaskStats(int topUsersCapacity) {
+        this.topUsers = new HeavyHitters(topUsersCapacity);
+    }
+
+    /**
+     * Fold one task in
+     */
+    public void add(TaskAnalyticsRow row, LocalDateTime now) {
+        counts.add(row.getStatus(), row.getPriority(), 1);
+        topUsers.add(row.getUserId());
+
+        LocalDateTime completedAt = row.getCompletedAt();
+        if (completedAt != null && row.getCreatedAt() != null) {
+            leadTime.record(Duration.between(row.getCreatedAt(), completedAt).getSeconds());
+            if (row.getDueDate() != null) {
+                dueDateSlip.record(Math.max(0, Duration.between(row.getDueDate(), completedAt).getSeconds()));
+            }
+        }
+
+        if (row.getDueDate() != null && row.getDueDate().isBefore(now) && row.getStatus() != TaskStatus.COMPLETED) {
+            overdueTasks++;
+        }
+    }
+
+    /**
+     * Fold another partial in
+     */
+    public GlobalTaskStats merge(GlobalTaskStats other) {
+        for (TaskStatus status : TaskStatus.values()) {
+            for (TaskPriority priority : TaskPriority.values()) {
+                counts.add(status, priority, other.counts.get(status, priority));
+            }
+        }
+        leadTime.merge(other.leadTime);
+        dueDateSlip.merge(other.dueDateSlip);
+        topUsers.merge(other.topUsers);
+        overdueTasks += other.overdueTasks;
+        partitions += other.partitions;
+        return this;
+    }
+
+    /**
+     * Mark this partial as covering one scanned partition
+     */
+    public void partitionDone() {
+        partitions++;
+    }
+
+    public TaskCounts getCounts() {
+        return counts;
+    }
+
+    public LogHistogram getLeadTime() {
+        return leadTime;
+    }
+
+    public LogHistogram getDueDateSlip() {
+        return dueDateSlip;
+    }
+
+    public HeavyHitters getTopUsers() {
+        return topUsers;
+    }
+
+    public long getOverdueTasks() {
+        return overdueTasks;
+    }
+
+    public long getPartitions() {
+        return partitions;
+    }
+}
@@ -0,0 +1,22 @@
+package org.example.tasknexus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * StorageUsageDTO
+ * A user's attachment storage usage against their quota; limits are null when quotas are off
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StorageUsageDTO {
+
+    private Long usedBytes;
+    private Long fileCount;
+    private Long quotaBytes;
+    private Long quotaFiles;
+    private Long remainingBytes;
+    private Long remainingFiles;
+}
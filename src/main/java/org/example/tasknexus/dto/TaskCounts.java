@@ -0,0 +1,100 @@
+package org.example.tasknexus.dto;
+
+import org.example.tasknexus.model.TaskPriority;
+import org.example.tasknexus.model.TaskStatus;
+import org.example.tasknexus.repository.TaskStatusPriorityCount;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TaskCounts
+ * Task counts for one user broken down by status x priority
+ */
+public class TaskCounts {
+
+    private final long[][] counts = new long[TaskStatus.values().length][TaskPriority.values().length];
+
+    /**
+     * Build from grouped repository rows
+     */
+    public static TaskCounts from(List<TaskStatusPriorityCount> rows) {
+        TaskCounts taskCounts = new TaskCounts();
+        for (TaskStatusPriorityCount row : rows) {
+            taskCounts.add(row.getStatus(), row.getPriority(), row.getCount());
+        }
+        return taskCounts;
+    }
+
+    /**
+     * Add to one cell
+     */
+    public void add(TaskStatus status, TaskPriority priority, long delta) {
+        counts[status.ordinal()][priority.ordinal()] += delta;
+    }
+
+    /**
+     * Count for one cell
+     */
+    public long get(TaskStatus status, TaskPriority priority) {
+        return counts[status.ordinal()][priority.ordinal()];
+    }
+
+    /**
+     * Total tasks
+     */
+    public long total() {
+        long total = 0;
+        for (long[] row : counts) {
+            for (long count : row) {
+                total += count;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Tasks with a status
+     */
+    public long byStatus(TaskStatus status) {
+        long total = 0;
+        for (long count : counts[status.ordinal()]) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Tasks with a priority
+     */
+    public long byPriority(TaskPriority priority) {
+        long total = 0;
+        for (long[] row : counts) {
+            total += row[priority.ordinal()];
+        }
+        return total;
+    }
+
+    /**
+     * Counts keyed by status name
+     */
+    public Map<String, Long> statusMap() {
+        Map<String, Long> map = new LinkedHashMap<>();
+        for (TaskStatus status : TaskStatus.values()) {
+            map.put(status.name(), byStatus(status));
+        }
+        return map;
+    }
+
+    /**
+     * Counts keyed by priority name
+     */
+    public Map<String, Long> priorityMap() {
+        Map<String, Long> map = new LinkedHashMap<>();
+        for (TaskPriority priority : TaskPriority.values()) {
+            map.put(priority.name(), byPriority(priority));
+        }
+        return map;
+    }
+}
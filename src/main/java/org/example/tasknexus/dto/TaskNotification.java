@@ -0,0 +1,49 @@
+package org.example.tasknexus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.tasknexus.model.Task;
+import org.example.tasknexus.model.TaskPriority;
+
+import java.time.LocalDateTime;
+
+/**
+ * TaskNotification
+ * Snapshot of a task event waiting to be included in a digest email
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskNotification {
+
+    private Type type;
+    private Long taskId;
+    private String title;
+    private TaskPriority priority;
+    private LocalDateTime dueDate;
+    private LocalDateTime occurredAt;
+
+    /**
+     * Capture a task event
+     */
+    public static TaskNotification of(Type type, Task task) {
+        return new TaskNotification(
+                type,
+                task.getId(),
+                task.getTitle(),
+                task.getPriority(),
+                task.getDueDate(),
+                LocalDateTime.now()
+        );
+    }
+
+    /**
+     * Task event types
+     */
+    public enum Type {
+        CREATED,
+        COMPLETED,
+        REMINDER
+    }
+}
@@ -0,0 +1,22 @@
+package org.example.tasknexus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * TrendPoint
+ * Task activity for one day or week
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendPoint {
+
+    private LocalDate period;
+    private long created;
+    private long completed;
+    private long overdue;
+}
@@ -3,6 +3,7 @@ package org.example.tasknexus.dto;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.example.tasknexus.model.NotificationMode;
 import org.example.tasknexus.model.Role;
 import org.example.tasknexus.model.User;
 
@@ -27,6 +28,7 @@ public class UserDTO {
     private LocalDateTime updatedAt;
     private String phoneNumber;
     private String profileImageUrl;
+    private NotificationMode notificationMode;
 
     /**
      * Convert User entity to UserDTO
@@ -47,6 +49,7 @@ public class UserDTO {
         dto.setUpdatedAt(user.getUpdatedAt());
         dto.setPhoneNumber(user.getPhoneNumber());
         dto.setProfileImageUrl(user.getProfileImageUrl());
+        dto.setNotificationMode(user.getNotificationMode());
 
         return dto;
     }
@@ -64,6 +67,9 @@ public class UserDTO {
         user.setIsActive(this.isActive);
         user.setPhoneNumber(this.phoneNumber);
         user.setProfileImageUrl(this.profileImageUrl);
+        if (this.notificationMode != null) {
+            user.setNotificationMode(this.notificationMode);
+        }
 
         return user;
     }
@@ -0,0 +1,16 @@
+package org.example.tasknexus.exception;
+
+/**
+ * ConflictException
+ * Thrown when a request conflicts with the current state of a resource
+ */
+public class ConflictException extends RuntimeException {
+
+    public ConflictException(String message) {
+        super(message);
+    }
+
+    public ConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -46,6 +46,32 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
     }
 
+    /**
+     * Handle ConflictException
+     */
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<ApiResponse> handleConflict(
+            ConflictException ex,
+            WebRequest request) {
+
+        log.error("Conflict: {}", ex.getMessage());
+        ApiResponse response = ApiResponse.error(ex.getMessage(), 409);
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    }
+
+    /**
+     * Handle QuotaExceededException
+     */
+    @ExceptionHandler(QuotaExceededException.class)
+    public ResponseEntity<ApiResponse> handleQuotaExceeded(
+            QuotaExceededException ex,
+            WebRequest request) {
+
+        log.warn("Quota exceeded: {}", ex.getMessage());
+        ApiResponse response = ApiResponse.error(ex.getMessage(), 413);
+        return new ResponseEntity<>(response, HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
     /**
      * Handle ValidationException
      */
@@ -0,0 +1,12 @@
+package org.example.tasknexus.exception;
+
+/**
+ * QuotaExceededException
+ * Thrown when an upload would take a user past their storage quota
+ */
+public class QuotaExceededException extends RuntimeException {
+
+    public QuotaExceededException(String message) {
+        super(message);
+    }
+}
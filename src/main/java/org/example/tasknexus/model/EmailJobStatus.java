@@ -0,0 +1,15 @@
+package org.example.tasknexus.model;
+
+/**
+ * EmailJobStatus enum for the persistent email queue
+ * PENDING: Waiting to be sent (possibly after a failed attempt)
+ * SENDING: Claimed by a worker
+ * SENT: Accepted by the SMTP server
+ * DEAD: Gave up after the maximum number of attempts
+ */
+public enum EmailJobStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    DEAD
+}
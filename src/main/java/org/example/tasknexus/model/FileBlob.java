@@ -0,0 +1,53 @@
+package org.example.tasknexus.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * FileBlob Entity
+ * One stored copy of unique attachment content, keyed by the SHA-256 of the uncompressed bytes
+ */
+@Entity
+@Table(name = "file_blobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileBlob {
+
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Column(nullable = false)
+    private Long size;
+
+    /**
+     * Bytes actually stored; differs from size when the content is compressed at rest
+     */
+    @Column(name = "stored_size")
+    private Long storedSize;
+
+    /**
+     * Content coding of the stored bytes (e.g. gzip); null when stored as-is
+     */
+    @Column(length = 16)
+    private String codec;
+
+    /**
+     * CRC-32 of the uncompressed bytes, needed up front for stored zip entries; null for older blobs
+     */
+    @Column(name = "crc32")
+    private Long crc32;
+
+    @Column(name = "ref_count", nullable = false)
+    private Long refCount = 0L;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
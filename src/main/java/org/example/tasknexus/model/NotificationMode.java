@@ -0,0 +1,11 @@
+package org.example.tasknexus.model;
+
+/**
+ * NotificationMode enum for task notification delivery
+ * IMMEDIATE: One email per task event
+ * DIGEST: Task events are coalesced into a periodic digest email
+ */
+public enum NotificationMode {
+    IMMEDIATE,
+    DIGEST
+}
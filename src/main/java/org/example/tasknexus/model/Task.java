@@ -14,7 +14,10 @@ import java.time.LocalDateTime;
  * Represents a task in the TaskNexus system
  */
 @Entity
-@Table(name = "tasks")
+@Table(name = "tasks", indexes = {
+        @Index(name = "idx_tasks_user_status_priority", columnList = "user_id, status, priority"),
+        @Index(name = "idx_tasks_user_due_date", columnList = "user_id, due_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,36 @@
+package org.example.tasknexus.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * TaskCounter Entity
+ * Number of tasks a user has in one status x priority cell, maintained incrementally by TaskService
+ */
+@Entity
+@Table(name = "task_counters")
+@IdClass(TaskCounterId.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskCounter {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private TaskStatus status;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private TaskPriority priority;
+
+    @Column(name = "task_count", nullable = false)
+    private Long taskCount = 0L;
+}
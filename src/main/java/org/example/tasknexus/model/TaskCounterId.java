@@ -0,0 +1,21 @@
+package org.example.tasknexus.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * TaskCounterId
+ * Composite key of TaskCounter
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskCounterId implements Serializable {
+
+    private Long userId;
+    private TaskStatus status;
+    private TaskPriority priority;
+}
@@ -0,0 +1,42 @@
+package org.example.tasknexus.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * TaskDailyStats Entity
+ * Daily rollup of a user's task activity, maintained incrementally by TaskService.
+ * dueCount only covers open tasks, so it is the overdue count once the day is over.
+ */
+@Entity
+@Table(name = "task_daily_stats")
+@IdClass(TaskDailyStatsId.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskDailyStats {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "stat_day")
+    private LocalDate day;
+
+    @Column(name = "created_count", nullable = false)
+    private Long createdCount = 0L;
+
+    @Column(name = "completed_count", nullable = false)
+    private Long completedCount = 0L;
+
+    @Column(name = "due_count", nullable = false)
+    private Long dueCount = 0L;
+
+    @Column(name = "completed_on_time_count", nullable = false)
+    private Long completedOnTimeCount = 0L;
+}
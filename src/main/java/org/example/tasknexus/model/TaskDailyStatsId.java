@@ -0,0 +1,21 @@
+package org.example.tasknexus.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * TaskDailyStatsId
+ * Composite key of TaskDailyStats
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskDailyStatsId implements Serializable {
+
+    private Long userId;
+    private LocalDate day;
+}
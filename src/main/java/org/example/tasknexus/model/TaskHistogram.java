@@ -0,0 +1,38 @@
+package org.example.tasknexus.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * TaskHistogram Entity
+ * Serialized LogHistogram of task durations (seconds) for one user, metric and scope.
+ * Scope is "ALL" or a TaskPriority name.
+ */
+@Entity
+@Table(name = "task_histograms")
+@IdClass(TaskHistogramId.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskHistogram {
+
+    public static final String SCOPE_ALL = "ALL";
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private TaskHistogramMetric metric;
+
+    @Id
+    @Column(length = 20)
+    private String scope;
+
+    @Column(nullable = false, length = 4096)
+    private byte[] data;
+}
@@ -0,0 +1,21 @@
+package org.example.tasknexus.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * TaskHistogramId
+ * Composite key of TaskHistogram
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskHistogramId implements Serializable {
+
+    private Long userId;
+    private TaskHistogramMetric metric;
+    private String scope;
+}
@@ -0,0 +1,11 @@
+package org.example.tasknexus.model;
+
+/**
+ * TaskHistogramMetric enum for per-user duration histograms
+ * LEAD_TIME: Creation to completion
+ * DUE_DATE_SLIP: Completion past the due date (early completions count as zero)
+ */
+public enum TaskHistogramMetric {
+    LEAD_TIME,
+    DUE_DATE_SLIP
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -56,4 +57,9 @@ public class User {
 
     @Column(length = 1000)
     private String profileImageUrl;
+
+    @Enumerated(EnumType.STRING)
+    @ColumnDefault("'IMMEDIATE'")
+    @Column(name = "notification_mode", nullable = false, length = 20)
+    private NotificationMode notificationMode = NotificationMode.IMMEDIATE;
 }
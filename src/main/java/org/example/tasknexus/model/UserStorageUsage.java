@@ -0,0 +1,28 @@
+package org.example.tasknexus.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * UserStorageUsage Entity
+ * Attachment bytes and file count charged to a user, maintained incrementally by FileService
+ */
+@Entity
+@Table(name = "user_storage_usage")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserStorageUsage {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "used_bytes", nullable = false)
+    private Long usedBytes = 0L;
+
+    @Column(name = "file_count", nullable = false)
+    private Long fileCount = 0L;
+}
@@ -0,0 +1,33 @@
+package org.example.tasknexus.repository;
+
+import org.example.tasknexus.model.Attachment;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * AttachmentRepository
+ * Data access layer for attachment-to-blob mappings
+ */
+@Repository
+public interface AttachmentRepository extends JpaRepository<Attachment, String> {
+
+    List<Attachment> findByTaskId(Long taskId);
+
+    /**
+     * Attachments whose task no longer exists (e.g. deleted before attachments were released with it)
+     */
+    @Query("SELECT a FROM Attachment a WHERE NOT EXISTS (SELECT t.id FROM Task t WHERE t.id = a.taskId)")
+    List<Attachment> findDangling(Pageable pageable);
+
+    @Query("SELECT COUNT(a) AS fileCount, COALESCE(SUM(a.size), 0) AS usedBytes FROM Attachment a " +
+           "WHERE a.userId = :userId")
+    AttachmentUsage sumUsageByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT COALESCE(SUM(a.size), 0) FROM Attachment a")
+    long sumSize();
+}
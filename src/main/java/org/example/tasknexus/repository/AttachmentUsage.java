@@ -0,0 +1,12 @@
+package org.example.tasknexus.repository;
+
+/**
+ * AttachmentUsage
+ * Projection of a user's attachment count and total size
+ */
+public interface AttachmentUsage {
+
+    Long getFileCount();
+
+    Long getUsedBytes();
+}
@@ -0,0 +1,93 @@
+package org.example.tasknexus.repository;
+
+import org.example.tasknexus.model.EmailJob;
+import org.example.tasknexus.model.EmailJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * EmailJobRepository
+ * Data access layer for the persistent email queue
+ */
+@Repository
+public interface EmailJobRepository extends JpaRepository<EmailJob, Long> {
+
+    /**
+     * Lock due jobs, skipping rows already locked by other workers (FOR UPDATE SKIP LOCKED).
+     * Also picks up SENDING jobs whose lease expired, e.g. after a crash.
+     * Native because Hibernate's H2 dialect renders the skip-locked hint as a plain FOR UPDATE;
+     * this syntax is shared by PostgreSQL, MySQL 8 and H2 2.x.
+     */
+    @Query(value = "SELECT * FROM email_jobs WHERE " +
+                   "(status = :pending AND next_attempt_at <= :now) OR " +
+                   "(status = :sending AND locked_until < :now) " +
+                   "ORDER BY next_attempt_at ASC LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<EmailJob> findClaimable(
+            @Param("pending") String pending,
+            @Param("sending") String sending,
+            @Param("now") LocalDateTime now,
+            @Param("limit") int limit
+    );
+
+    /**
+     * Record a delivery, only if the job is still leased to the caller
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE EmailJob j SET j.status = :status, j.sentAt = :sentAt, j.lockedUntil = NULL, " +
+           "j.leaseOwner = NULL, j.lastError = NULL " +
+           "WHERE j.id = :id AND j.status = :sending AND j.leaseOwner = :leaseOwner")
+    int markSent(
+            @Param("id") Long id,
+            @Param("leaseOwner") String leaseOwner,
+            @Param("sending") EmailJobStatus sending,
+            @Param("status") EmailJobStatus status,
+            @Param("sentAt") LocalDateTime sentAt
+    );
+
+    /**
+     * Record a failed attempt, only if the job is still leased to the caller
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE EmailJob j SET j.status = :status, j.nextAttemptAt = :nextAttemptAt, j.lockedUntil = NULL, " +
+           "j.leaseOwner = NULL, j.lastError = :error " +
+           "WHERE j.id = :id AND j.status = :sending AND j.leaseOwner = :leaseOwner")
+    int markFailed(
+            @Param("id") Long id,
+            @Param("leaseOwner") String leaseOwner,
+            @Param("sending") EmailJobStatus sending,
+            @Param("status") EmailJobStatus status,
+            @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+            @Param("error") String error
+    );
+
+    /**
+     * Hand a claimed job back without counting the claim as an attempt
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE EmailJob j SET j.status = :pending, j.attempts = j.attempts - 1, " +
+           "j.nextAttemptAt = :nextAttemptAt, j.lockedUntil = NULL, j.leaseOwner = NULL " +
+           "WHERE j.id = :id AND j.status = :sending AND j.leaseOwner = :leaseOwner")
+    int release(
+            @Param("id") Long id,
+            @Param("leaseOwner") String leaseOwner,
+            @Param("sending") EmailJobStatus sending,
+            @Param("pending") EmailJobStatus pending,
+            @Param("nextAttemptAt") LocalDateTime nextAttemptAt
+    );
+
+    long countByStatus(EmailJobStatus status);
+
+    @Query("SELECT MIN(j.createdAt) FROM EmailJob j WHERE j.status = :status")
+    LocalDateTime findOldestCreatedAt(@Param("status") EmailJobStatus status);
+}
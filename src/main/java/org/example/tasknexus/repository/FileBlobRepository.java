@@ -0,0 +1,81 @@
+package org.example.tasknexus.repository;
+
+import jakarta.persistence.LockModeType;
+import org.example.tasknexus.model.FileBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * FileBlobRepository
+ * Data access layer for content-addressed attachment blobs
+ */
+@Repository
+public interface FileBlobRepository extends JpaRepository<FileBlob, String> {
+
+    /**
+     * Lock the blob row; whoever holds it decides whether the stored object may be deleted
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM FileBlob b WHERE b.hash = :hash")
+    Optional<FileBlob> findByHashForUpdate(@Param("hash") String hash);
+
+    @Modifying
+    @Query("UPDATE FileBlob b SET b.refCount = b.refCount + :delta WHERE b.hash = :hash")
+    int adjustRefCount(@Param("hash") String hash, @Param("delta") long delta);
+
+    /**
+     * Insert a blob row with one reference; fails with a duplicate key if the hash is already stored.
+     * A plain save() would merge into a row created concurrently and reset its reference count.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO file_blobs (hash, size, stored_size, codec, crc32, ref_count, created_at) " +
+                   "VALUES (:hash, :size, :storedSize, :codec, :crc32, 1, CURRENT_TIMESTAMP)",
+           nativeQuery = true)
+    int insert(
+            @Param("hash") String hash,
+            @Param("size") long size,
+            @Param("storedSize") long storedSize,
+            @Param("codec") String codec,
+            @Param("crc32") long crc32
+    );
+
+    /**
+     * Claim a hash with an unreferenced row. Until the claiming transaction ends, commits of the same
+     * content wait on the primary key instead of storing an object the claimant is about to delete.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO file_blobs (hash, size, ref_count, created_at) " +
+                   "VALUES (:hash, 0, 0, CURRENT_TIMESTAMP)",
+           nativeQuery = true)
+    int insertPlaceholder(@Param("hash") String hash);
+
+    @Modifying
+    @Query("DELETE FROM FileBlob b WHERE b.hash = :hash AND b.refCount <= 0")
+    int deleteIfUnreferenced(@Param("hash") String hash);
+
+    @Modifying
+    @Query("UPDATE FileBlob b SET b.crc32 = :crc32 WHERE b.hash = :hash")
+    int updateCrc32(@Param("hash") String hash, @Param("crc32") long crc32);
+
+    @Query("SELECT b.hash FROM FileBlob b WHERE b.hash IN :hashes AND b.refCount > 0")
+    List<String> findReferencedHashes(@Param("hashes") Collection<String> hashes);
+
+    boolean existsByHashAndRefCountGreaterThan(String hash, Long refCount);
+
+    @Query("SELECT COALESCE(SUM(COALESCE(b.storedSize, b.size)), 0) FROM FileBlob b")
+    long sumStoredSize();
+
+    @Query("SELECT COUNT(b) FROM FileBlob b WHERE b.codec IS NOT NULL")
+    long countCompressed();
+
+    @Query("SELECT COALESCE(SUM(b.size - b.storedSize), 0) FROM FileBlob b WHERE b.codec IS NOT NULL")
+    long sumCompressionSavings();
+}
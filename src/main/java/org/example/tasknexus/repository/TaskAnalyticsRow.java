@@ -0,0 +1,25 @@
+package org.example.tasknexus.repository;
+
+import org.example.tasknexus.model.TaskPriority;
+import org.example.tasknexus.model.TaskStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * TaskAnalyticsRow
+ * Projection of the task columns needed for aggregate analytics, without descriptions or notes
+ */
+public interface TaskAnalyticsRow {
+
+    Long getUserId();
+
+    TaskStatus getStatus();
+
+    TaskPriority getPriority();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getCompletedAt();
+
+    LocalDateTime getDueDate();
+}
@@ -0,0 +1,14 @@
+package org.example.tasknexus.repository;
+
+/**
+ * TaskAttachmentRow
+ * Projection of the task columns needed to build an attachment archive
+ */
+public interface TaskAttachmentRow {
+
+    Long getId();
+
+    String getTitle();
+
+    String getAttachments();
+}
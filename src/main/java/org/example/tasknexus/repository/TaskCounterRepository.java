@@ -0,0 +1,47 @@
+package org.example.tasknexus.repository;
+
+import jakarta.persistence.LockModeType;
+import org.example.tasknexus.model.TaskCounter;
+import org.example.tasknexus.model.TaskCounterId;
+import org.example.tasknexus.model.TaskPriority;
+import org.example.tasknexus.model.TaskStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * TaskCounterRepository
+ * Data access layer for per-user task counters
+ */
+@Repository
+public interface TaskCounterRepository extends JpaRepository<TaskCounter, TaskCounterId> {
+
+    List<TaskCounter> findByUserId(Long userId);
+
+    /**
+     * Task totals of several users; users without counter rows are missing from the result
+     */
+    @Query("SELECT c.userId AS userId, SUM(c.taskCount) AS count FROM TaskCounter c " +
+           "WHERE c.userId IN :userIds GROUP BY c.userId")
+    List<UserTaskCount> sumByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM TaskCounter c WHERE c.userId = :userId")
+    List<TaskCounter> findByUserIdForUpdate(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("UPDATE TaskCounter c SET c.taskCount = c.taskCount + :delta " +
+           "WHERE c.userId = :userId AND c.status = :status AND c.priority = :priority")
+    int increment(
+            @Param("userId") Long userId,
+            @Param("status") TaskStatus status,
+            @Param("priority") TaskPriority priority,
+            @Param("delta") long delta
+    );
+}
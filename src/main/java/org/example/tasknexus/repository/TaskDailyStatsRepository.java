@@ -0,0 +1,45 @@
+package org.example.tasknexus.repository;
+
+import org.example.tasknexus.model.TaskDailyStats;
+import org.example.tasknexus.model.TaskDailyStatsId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * TaskDailyStatsRepository
+ * Data access layer for daily task rollups
+ */
+@Repository
+public interface TaskDailyStatsRepository extends JpaRepository<TaskDailyStats, TaskDailyStatsId> {
+
+    List<TaskDailyStats> findByUserIdAndDayBetweenOrderByDayAsc(Long userId, LocalDate from, LocalDate to);
+
+    List<TaskDailyStats> findByUserIdAndDayAfterOrderByDayAsc(Long userId, LocalDate after, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE TaskDailyStats s SET " +
+           "s.createdCount = s.createdCount + :created, " +
+           "s.completedCount = s.completedCount + :completed, " +
+           "s.dueCount = s.dueCount + :due, " +
+           "s.completedOnTimeCount = s.completedOnTimeCount + :completedOnTime " +
+           "WHERE s.userId = :userId AND s.day = :day")
+    int increment(
+            @Param("userId") Long userId,
+            @Param("day") LocalDate day,
+            @Param("created") long created,
+            @Param("completed") long completed,
+            @Param("due") long due,
+            @Param("completedOnTime") long completedOnTime
+    );
+
+    @Modifying
+    @Query("DELETE FROM TaskDailyStats s WHERE s.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+}
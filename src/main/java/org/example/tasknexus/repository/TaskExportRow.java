@@ -0,0 +1,33 @@
+package org.example.tasknexus.repository;
+
+import org.example.tasknexus.model.TaskPriority;
+import org.example.tasknexus.model.TaskStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * TaskExportRow
+ * Projection of the task columns written by CSV export
+ */
+public interface TaskExportRow {
+
+    Long getId();
+
+    String getTitle();
+
+    String getDescription();
+
+    TaskStatus getStatus();
+
+    TaskPriority getPriority();
+
+    LocalDateTime getDueDate();
+
+    LocalDateTime getCompletedAt();
+
+    String getTags();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getUpdatedAt();
+}
@@ -0,0 +1,18 @@
+package org.example.tasknexus.repository;
+
+import org.example.tasknexus.model.TaskHistogram;
+import org.example.tasknexus.model.TaskHistogramId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * TaskHistogramRepository
+ * Data access layer for per-user duration histograms
+ */
+@Repository
+public interface TaskHistogramRepository extends JpaRepository<TaskHistogram, TaskHistogramId> {
+
+    List<TaskHistogram> findByUserId(Long userId);
+}
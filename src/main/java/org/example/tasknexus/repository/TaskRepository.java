@@ -11,6 +11,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -59,7 +60,75 @@ public interface TaskRepository extends JpaRepository<Task, Long> {
     @Query("SELECT t FROM Task t WHERE t.userId = :userId AND t.dueDate < CURRENT_TIMESTAMP AND t.status != 'COMPLETED'")
     List<Task> findOverdueTasks(@Param("userId") Long userId);
 
+    @Query("SELECT COUNT(t) FROM Task t WHERE t.userId = :userId AND t.dueDate < CURRENT_TIMESTAMP AND t.status != 'COMPLETED'")
+    long countOverdueTasks(@Param("userId") Long userId);
+
     Page<Task> findByStatusAndUserId(TaskStatus status, Long userId, Pageable pageable);
 
     Long countByUserIdAndStatus(Long userId, TaskStatus status);
+
+    /**
+     * Next page of a user's tasks in id order, for batch jobs that must not load everything at once
+     */
+    @Query("SELECT t FROM Task t WHERE t.userId = :userId AND t.id > :afterId ORDER BY t.id ASC")
+    List<Task> findByUserIdAfter(@Param("userId") Long userId, @Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Task counts grouped by status and priority, answered from idx_tasks_user_status_priority
+     */
+    @Query("SELECT t.status AS status, t.priority AS priority, COUNT(t) AS count FROM Task t " +
+           "WHERE t.userId = :userId GROUP BY t.status, t.priority")
+    List<TaskStatusPriorityCount> countByStatusAndPriority(@Param("userId") Long userId);
+
+    /**
+     * Task totals of several users; users without tasks are missing from the result
+     */
+    @Query("SELECT t.userId AS userId, COUNT(t) AS count FROM Task t " +
+           "WHERE t.userId IN :userIds GROUP BY t.userId")
+    List<UserTaskCount> countByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Next chunk of a user's tasks for export, keyed on id so each chunk is an index range scan
+     */
+    @Query("SELECT t.id AS id, t.title AS title, t.description AS description, t.status AS status, " +
+           "t.priority AS priority, t.dueDate AS dueDate, t.completedAt AS completedAt, t.tags AS tags, " +
+           "t.createdAt AS createdAt, t.updatedAt AS updatedAt " +
+           "FROM Task t WHERE t.userId = :userId AND t.id > :afterId ORDER BY t.id ASC")
+    List<TaskExportRow> findExportRowsAfter(@Param("userId") Long userId, @Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Next chunk of a user's tasks that have attachments, optionally filtered by status and priority
+     */
+    @Query("SELECT t.id AS id, t.title AS title, t.attachments AS attachments FROM Task t " +
+           "WHERE t.userId = :userId AND t.id > :afterId AND t.attachments IS NOT NULL " +
+           "AND (:status IS NULL OR t.status = :status) AND (:priority IS NULL OR t.priority = :priority) " +
+           "ORDER BY t.id ASC")
+    List<TaskAttachmentRow> findAttachmentRowsAfter(@Param("userId") Long userId, @Param("status") TaskStatus status,
+                                                    @Param("priority") TaskPriority priority,
+                                                    @Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Next chunk of the given tasks of a user that have attachments
+     */
+    @Query("SELECT t.id AS id, t.title AS title, t.attachments AS attachments FROM Task t " +
+           "WHERE t.userId = :userId AND t.id IN :ids AND t.id > :afterId AND t.attachments IS NOT NULL " +
+           "ORDER BY t.id ASC")
+    List<TaskAttachmentRow> findAttachmentRowsByIdsAfter(@Param("userId") Long userId, @Param("ids") Collection<Long> ids,
+                                                         @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT t.id FROM Task t WHERE t.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT MIN(t.id) FROM Task t")
+    Long findMinId();
+
+    @Query("SELECT MAX(t.id) FROM Task t")
+    Long findMaxId();
+
+    /**
+     * Analytics columns of the tasks in [fromId, toId), read by primary key range
+     */
+    @Query("SELECT t.userId AS userId, t.status AS status, t.priority AS priority, t.createdAt AS createdAt, " +
+           "t.completedAt AS completedAt, t.dueDate AS dueDate FROM Task t WHERE t.id >= :fromId AND t.id < :toId")
+    List<TaskAnalyticsRow> findAnalyticsRowsInRange(@Param("fromId") Long fromId, @Param("toId") Long toId);
 }
@@ -0,0 +1,17 @@
+package org.example.tasknexus.repository;
+
+import org.example.tasknexus.model.TaskPriority;
+import org.example.tasknexus.model.TaskStatus;
+
+/**
+ * TaskStatusPriorityCount
+ * Projection for one (status, priority) group of a user's tasks
+ */
+public interface TaskStatusPriorityCount {
+
+    TaskStatus getStatus();
+
+    TaskPriority getPriority();
+
+    Long getCount();
+}
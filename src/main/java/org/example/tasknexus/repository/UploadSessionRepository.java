@@ -0,0 +1,37 @@
+package org.example.tasknexus.repository;
+
+import org.example.tasknexus.model.UploadSession;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * UploadSessionRepository
+ * Data access layer for resumable upload sessions
+ */
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+
+    /**
+     * Acknowledge bytes up to newOffset, only if nobody else moved the offset since it was read
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.receivedBytes = :newOffset, s.expiresAt = :expiresAt " +
+           "WHERE s.id = :id AND s.receivedBytes = :expectedOffset")
+    int advanceOffset(
+            @Param("id") String id,
+            @Param("expectedOffset") Long expectedOffset,
+            @Param("newOffset") Long newOffset,
+            @Param("expiresAt") LocalDateTime expiresAt
+    );
+
+    List<UploadSession> findByExpiresAtBefore(LocalDateTime now, Pageable pageable);
+}
@@ -0,0 +1,52 @@
+package org.example.tasknexus.repository;
+
+import jakarta.persistence.LockModeType;
+import org.example.tasknexus.model.UserStorageUsage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * UserStorageUsageRepository
+ * Data access layer for per-user attachment storage counters
+ */
+@Repository
+public interface UserStorageUsageRepository extends JpaRepository<UserStorageUsage, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM UserStorageUsage u WHERE u.userId = :userId")
+    Optional<UserStorageUsage> findByIdForUpdate(@Param("userId") Long userId);
+
+    /**
+     * Create a user's counter row; fails with a duplicate key if another transaction created it first
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_storage_usage (user_id, used_bytes, file_count) " +
+                   "VALUES (:userId, :usedBytes, :fileCount)",
+           nativeQuery = true)
+    int insert(@Param("userId") Long userId, @Param("usedBytes") long usedBytes, @Param("fileCount") long fileCount);
+
+    /**
+     * Add to the counters only if the result stays within the limits; 0 rows means over quota or no row yet
+     */
+    @Modifying
+    @Query("UPDATE UserStorageUsage u SET u.usedBytes = u.usedBytes + :bytes, u.fileCount = u.fileCount + :files " +
+           "WHERE u.userId = :userId AND u.usedBytes + :bytes <= :maxBytes AND u.fileCount + :files <= :maxFiles")
+    int addWithinQuota(
+            @Param("userId") Long userId,
+            @Param("bytes") long bytes,
+            @Param("files") long files,
+            @Param("maxBytes") long maxBytes,
+            @Param("maxFiles") long maxFiles
+    );
+
+    @Modifying
+    @Query("UPDATE UserStorageUsage u SET u.usedBytes = u.usedBytes + :bytes, u.fileCount = u.fileCount + :files " +
+           "WHERE u.userId = :userId")
+    int add(@Param("userId") Long userId, @Param("bytes") long bytes, @Param("files") long files);
+}
@@ -0,0 +1,12 @@
+package org.example.tasknexus.repository;
+
+/**
+ * UserTaskCount
+ * Projection of one user's total number of tasks
+ */
+public interface UserTaskCount {
+
+    Long getUserId();
+
+    Long getCount();
+}
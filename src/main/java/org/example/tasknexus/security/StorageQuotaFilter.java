@@ -0,0 +1,68 @@
+package org.example.tasknexus.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.example.tasknexus.dto.ApiResponse;
+import org.example.tasknexus.exception.QuotaExceededException;
+import org.example.tasknexus.service.StorageQuotaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+/**
+ * StorageQuotaFilter
+ * Rejects attachment uploads that cannot fit in the user's remaining quota from their
+ * Content-Length, before multipart parsing reads the body. Runs after JWT authentication.
+ */
+@Slf4j
+@Component
+public class StorageQuotaFilter extends OncePerRequestFilter {
+
+    private static final Pattern UPLOAD_PATH = Pattern.compile("^/tasks/\\d+/upload$");
+
+    /**
+     * Allowance for multipart boundaries and part headers, which count toward Content-Length
+     * but not toward the file; the exact size is checked again once the part is parsed
+     */
+    private static final long MULTIPART_OVERHEAD = 16 * 1024;
+
+    @Autowired
+    private StorageQuotaService storageQuotaService;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !UPLOAD_PATH.matcher(request.getServletPath()).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        Long userId = (Long) request.getAttribute("userId");
+        long contentLength = request.getContentLengthLong();
+
+        // Unauthenticated requests are rejected later; chunked bodies are checked after parsing
+        if (userId != null && contentLength > 0) {
+            try {
+                storageQuotaService.checkQuota(userId, Math.max(0, contentLength - MULTIPART_OVERHEAD));
+            } catch (QuotaExceededException e) {
+                log.warn("Upload rejected for user {}: {}", userId, e.getMessage());
+                response.setContentType("application/json;charset=UTF-8");
+                response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+                response.getWriter().write(new ObjectMapper().writeValueAsString(
+                        ApiResponse.error(e.getMessage(), HttpStatus.PAYLOAD_TOO_LARGE.value())));
+                return;
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+}
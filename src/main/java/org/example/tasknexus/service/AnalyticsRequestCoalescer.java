@@ -0,0 +1,165 @@
+package org.example.tasknexus.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * AnalyticsRequestCoalescer
+ * Single-flight layer for analytics reads: concurrent requests for the same user and metric share
+ * one in-flight computation, and its result is served from a short TTL micro-cache afterwards.
+ */
+@Slf4j
+@Service
+public class AnalyticsRequestCoalescer {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${analytics.coalescing.ttl-ms:2000}")
+    private long ttlMs;
+
+    /** Users with cached results before expired ones are swept */
+    @Value("${analytics.coalescing.max-entries:10000}")
+    private int maxEntries;
+
+    /** Flights by user, then metric, so invalidating a user is a single remove */
+    private final Map<Long, Map<String, Flight>> flights = new ConcurrentHashMap<>();
+
+    private Counter executedCounter;
+    private Counter coalescedCounter;
+    private Counter cachedCounter;
+
+    /**
+     * Register metrics
+     */
+    @PostConstruct
+    public void start() {
+        executedCounter = Counter.builder("analytics.singleflight.requests")
+                .tag("result", "executed")
+                .description("Analytics computations actually run")
+                .register(meterRegistry);
+        coalescedCounter = Counter.builder("analytics.singleflight.requests")
+                .tag("result", "coalesced")
+                .description("Analytics requests that joined an in-flight computation")
+                .register(meterRegistry);
+        cachedCounter = Counter.builder("analytics.singleflight.requests")
+                .tag("result", "cached")
+                .description("Analytics requests answered from the micro-cache")
+                .register(meterRegistry);
+        Gauge.builder("analytics.singleflight.entries", flights,
+                        users -> users.values().stream().mapToInt(Map::size).sum())
+                .description("Analytics results in flight or cached")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Return the shared result for (userId, metric), computing it at most once per TTL window
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Long userId, String metric, Supplier<T> computation) {
+        long now = System.currentTimeMillis();
+
+        while (true) {
+            Map<String, Flight> userFlights = flights.computeIfAbsent(userId, id -> new ConcurrentHashMap<>());
+            Flight existing = userFlights.get(metric);
+            if (existing != null) {
+                if (!existing.future.isDone()) {
+                    coalescedCounter.increment();
+                    return (T) join(existing.future);
+                }
+                if (existing.expiresAt > now && !existing.future.isCompletedExceptionally()) {
+                    cachedCounter.increment();
+                    return (T) existing.future.join();
+                }
+                userFlights.remove(metric, existing);
+            }
+
+            Flight flight = new Flight();
+            if (userFlights.putIfAbsent(metric, flight) != null) {
+                // Lost the race to another caller; join theirs
+                continue;
+            }
+
+            executedCounter.increment();
+            evictExpiredIfFull(now);
+            Throwable failure = null;
+            try {
+                T result = computation.get();
+                flight.expiresAt = System.currentTimeMillis() + ttlMs;
+                flight.future.complete(result);
+                return result;
+            } catch (Throwable e) {
+                failure = e;
+                throw e;
+            } finally {
+                if (failure != null) {
+                    // Waiters see the same failure (errors included), but it is not cached
+                    userFlights.remove(metric, flight);
+                    flight.future.completeExceptionally(failure);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drop cached and in-flight results for a user once the current transaction commits,
+     * so the next read sees the user's task changes
+     */
+    public void invalidate(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(userId);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(userId);
+            }
+        });
+    }
+
+    private void evict(Long userId) {
+        // In-flight callers keep their future; only later callers start a fresh computation
+        flights.remove(userId);
+    }
+
+    private void evictExpiredIfFull(long now) {
+        if (flights.size() > maxEntries) {
+            for (Map<String, Flight> userFlights : flights.values()) {
+                userFlights.values().removeIf(flight -> flight.future.isDone() && flight.expiresAt <= now);
+            }
+            flights.values().removeIf(Map::isEmpty);
+        }
+    }
+
+    private Object join(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static class Flight {
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+        private volatile long expiresAt;
+    }
+}
@@ -0,0 +1,298 @@
+package org.example.tasknexus.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.example.tasknexus.dto.TaskDTO;
+import org.example.tasknexus.model.Attachment;
+import org.example.tasknexus.model.TaskPriority;
+import org.example.tasknexus.model.TaskStatus;
+import org.example.tasknexus.repository.AttachmentRepository;
+import org.example.tasknexus.repository.TaskAttachmentRow;
+import org.example.tasknexus.repository.TaskRepository;
+import org.example.tasknexus.storage.StorageBackend;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * AttachmentArchiveService
+ * Streams task attachments as a zip archive while it is being built. Each entry is copied from its
+ * storage channel through one reusable buffer, so heap use does not depend on file or archive size
+ * (only the central directory grows, by one small record per entry). Formats that are already
+ * compressed are written with the store method, using the CRC-32 recorded when the blob was
+ * uploaded; everything else is deflated.
+ */
+@Slf4j
+@Service
+public class AttachmentArchiveService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int MAX_FOLDER_LENGTH = 80;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Autowired
+    private BlobStoreService blobStoreService;
+
+    @Autowired
+    private FileService fileService;
+
+    @Autowired
+    private StorageBackend storage;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${file.archive.stored-types:jpg,jpeg,png,gif,docx}")
+    private Set<String> storedTypes;
+
+    @Value("${file.archive.compression-level:6}")
+    private int compressionLevel;
+
+    @Value("${file.archive.chunk-size:100}")
+    private int chunkSize;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    public void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Write one task's attachments as a zip, entries named after the uploaded files
+     */
+    public long writeTaskArchive(TaskDTO task, OutputStream out) throws IOException {
+        long entries;
+        try (ZipOutputStream zip = open(out)) {
+            entries = writeEntries(zip, "", filenames(task.getAttachments()), new byte[BUFFER_SIZE]);
+        }
+
+        log.info("Archived {} attachments of task {}", entries, task.getId());
+        return entries;
+    }
+
+    /**
+     * Write the attachments of a user's tasks as a zip with one folder per task. Tasks are read in
+     * id-ordered chunks; ids, status and priority narrow the selection when given.
+     */
+    public long writeArchive(Long userId, Collection<Long> taskIds, TaskStatus status, TaskPriority priority,
+                             OutputStream out) throws IOException {
+        long entries = 0;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (ZipOutputStream zip = open(out)) {
+            long afterId = 0;
+            while (true) {
+                long cursor = afterId;
+                List<TaskAttachmentRow> chunk = readOnlyTransaction.execute(tx -> taskIds == null
+                        ? taskRepository.findAttachmentRowsAfter(userId, status, priority, cursor,
+                                PageRequest.of(0, chunkSize))
+                        : taskRepository.findAttachmentRowsByIdsAfter(userId, taskIds, cursor,
+                                PageRequest.of(0, chunkSize)));
+                if (chunk == null || chunk.isEmpty()) {
+                    break;
+                }
+
+                for (TaskAttachmentRow row : chunk) {
+                    String folder = folderName(row.getId(), row.getTitle()) + "/";
+                    entries += writeEntries(zip, folder, filenames(row.getAttachments()), buffer);
+                }
+                afterId = chunk.get(chunk.size() - 1).getId();
+                if (chunk.size() < chunkSize) {
+                    break;
+                }
+            }
+        }
+
+        log.info("Archived {} attachments for user {}", entries, userId);
+        return entries;
+    }
+
+    private ZipOutputStream open(OutputStream out) {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        zip.setLevel(compressionLevel);
+        return zip;
+    }
+
+    /**
+     * Write one task's attachments under a folder prefix; files whose content is gone are skipped
+     */
+    private long writeEntries(ZipOutputStream zip, String folder, List<String> filenames,
+                              byte[] buffer) throws IOException {
+        if (filenames.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, Attachment> attachments = new HashMap<>();
+        readOnlyTransaction.executeWithoutResult(tx ->
+                attachmentRepository.findAllById(filenames).forEach(a -> attachments.put(a.getFilename(), a)));
+
+        Set<String> usedNames = new HashSet<>();
+        long written = 0;
+        for (String filename : filenames) {
+            Attachment attachment = attachments.get(filename);
+            String displayName = attachment != null && attachment.getOriginalFilename() != null
+                    ? attachment.getOriginalFilename() : filename;
+            String entryName = folder + uniqueName(usedNames, sanitize(displayName));
+
+            boolean added = attachment != null
+                    ? writeBlobEntry(zip, entryName, attachment, buffer)
+                    : writeLegacyEntry(zip, entryName, filename, buffer);
+            if (added) {
+                written++;
+            } else {
+                log.warn("Attachment {} has no content, left out of the archive", filename);
+            }
+        }
+        return written;
+    }
+
+    private boolean writeBlobEntry(ZipOutputStream zip, String entryName, Attachment attachment,
+                                   byte[] buffer) throws IOException {
+        BlobStoreService.BlobContent blob = blobStoreService.describe(attachment.getBlobHash()).orElse(null);
+        if (blob == null) {
+            return false;
+        }
+
+        ZipEntry entry = new ZipEntry(entryName);
+        if (attachment.getCreatedAt() != null) {
+            entry.setTimeLocal(attachment.getCreatedAt());
+        }
+        if (stored(entryName)) {
+            setStored(entry, blob.size(), blobStoreService.crc32(blob));
+        }
+
+        // Open before the entry header goes out, so a missing object skips the entry cleanly
+        InputStream content;
+        try {
+            content = blobStoreService.decode(Channels.newInputStream(storage.get(blob.key())), blob.codec());
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        try (content) {
+            copyEntry(zip, entry, content, buffer);
+        }
+        return true;
+    }
+
+    /**
+     * Files stored before content addressing, read straight from local disk
+     */
+    private boolean writeLegacyEntry(ZipOutputStream zip, String entryName, String filename,
+                                     byte[] buffer) throws IOException {
+        Path file = fileService.getFilePath(filename);
+        if (!Files.isReadable(file)) {
+            return false;
+        }
+
+        ZipEntry entry = new ZipEntry(entryName);
+        entry.setLastModifiedTime(Files.getLastModifiedTime(file));
+        if (stored(entryName)) {
+            CRC32 crc = new CRC32();
+            try (InputStream in = new CheckedInputStream(Files.newInputStream(file), crc)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            setStored(entry, Files.size(file), crc.getValue());
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            copyEntry(zip, entry, Channels.newInputStream(channel), buffer);
+        }
+        return true;
+    }
+
+    private void copyEntry(ZipOutputStream zip, ZipEntry entry, InputStream content,
+                           byte[] buffer) throws IOException {
+        zip.putNextEntry(entry);
+        int read;
+        while ((read = content.read(buffer)) >= 0) {
+            zip.write(buffer, 0, read);
+        }
+        // For stored entries this also checks the size and CRC against what was declared
+        zip.closeEntry();
+    }
+
+    private void setStored(ZipEntry entry, long size, long crc) {
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(size);
+        entry.setCompressedSize(size);
+        entry.setCrc(crc);
+    }
+
+    private boolean stored(String entryName) {
+        int dot = entryName.lastIndexOf('.');
+        return dot >= 0 && storedTypes.contains(entryName.substring(dot + 1).toLowerCase());
+    }
+
+    private List<String> filenames(String attachments) {
+        if (attachments == null || attachments.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(attachments.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    private String folderName(Long taskId, String title) {
+        String folder = taskId + (title == null || title.isBlank() ? "" : " - " + sanitize(title));
+        return folder.length() > MAX_FOLDER_LENGTH ? folder.substring(0, MAX_FOLDER_LENGTH).trim() : folder;
+    }
+
+    /**
+     * Keep entry names to a single safe path segment
+     */
+    private String sanitize(String name) {
+        String cleaned = name.replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]", "_").trim();
+        return cleaned.isEmpty() || cleaned.equals(".") || cleaned.equals("..") ? "_" : cleaned;
+    }
+
+    /**
+     * Suffix repeated names within a folder as "name (2).ext", "name (3).ext", ...
+     */
+    private String uniqueName(Set<String> usedNames, String name) {
+        if (usedNames.add(name.toLowerCase())) {
+            return name;
+        }
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : "";
+        for (int i = 2; ; i++) {
+            String candidate = base + " (" + i + ")" + extension;
+            if (usedNames.add(candidate.toLowerCase())) {
+                return candidate;
+            }
+        }
+    }
+}
@@ -0,0 +1,488 @@
+package org.example.tasknexus.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.example.tasknexus.model.FileBlob;
+import org.example.tasknexus.repository.AttachmentRepository;
+import org.example.tasknexus.repository.FileBlobRepository;
+import org.example.tasknexus.storage.StorageBackend;
+import org.example.tasknexus.storage.StoredObject;
+import org.example.tasknexus.util.GzipCompressingInputStream;
+import org.example.tasknexus.util.ShardedPaths;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * BlobStoreService
+ * Content-addressed storage for attachment bytes. Each unique SHA-256 is stored once under
+ * blobs/ab/cd/ in the configured storage backend and reference counted; attachments point at
+ * blobs instead of owning a copy. Compressible types are gzipped at rest and the codec is recorded
+ * on the blob row, with per-type compression time and savings exported as metrics.
+ * Content is only deleted by the transaction that holds (or claims) the hash's blob row, so a row never
+ * outlives its content and an upload on another node cannot have its content deleted underneath it.
+ */
+@Slf4j
+@Service
+public class BlobStoreService {
+
+    public static final String BLOB_PREFIX = "blobs";
+
+    public static final String STAGING_PREFIX = "staging";
+
+    public static final String CODEC_GZIP = "gzip";
+
+    private static final int LOCK_STRIPES = 64;
+
+    private static final int MAX_COMMIT_ATTEMPTS = 3;
+
+    @Autowired
+    private FileBlobRepository fileBlobRepository;
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private StorageBackend storage;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private HotFileCache hotFileCache;
+
+    @Value("${file.upload-dir:uploads}")
+    private String uploadDir;
+
+    @Value("${file.compression.enabled:true}")
+    private boolean compressionEnabled;
+
+    @Value("${file.compression.types:txt,doc,pdf}")
+    private Set<String> compressibleTypes;
+
+    @Value("${file.compression.level:6}")
+    private int compressionLevel;
+
+    @Value("${file.compression.min-size:1024}")
+    private long compressionMinSize;
+
+    @Value("${file.compression.max-ratio:0.9}")
+    private double maxCompressionRatio;
+
+    private TransactionTemplate newTransaction;
+
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    public BlobStoreService() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Stream content into a staging object while hashing it; nothing is buffered beyond the copy buffer.
+     * Compressible file types are gzipped on the way in; the hash is always of the original bytes.
+     */
+    public StagedBlob stage(InputStream input, long size, String fileType) throws IOException {
+        MessageDigest digest = sha256();
+        CRC32 crc = new CRC32();
+        String stagingKey = STAGING_PREFIX + "/" + UUID.randomUUID();
+        if (!compressible(size, fileType)) {
+            try (DigestInputStream hashing = new DigestInputStream(new CheckedInputStream(input, crc), digest)) {
+                storage.put(stagingKey, hashing, size);
+            }
+            return new StagedBlob(stagingKey, HexFormat.of().formatHex(digest.digest()), size, null, size,
+                    crc.getValue());
+        }
+
+        String type = fileType.toLowerCase();
+        GzipCompressingInputStream compressing = new GzipCompressingInputStream(
+                new DigestInputStream(new CheckedInputStream(input, crc), digest), compressionLevel);
+        try (compressing) {
+            storage.put(stagingKey, compressing, -1);
+        }
+        String hash = HexFormat.of().formatHex(digest.digest());
+        long rawSize = compressing.getBytesRead();
+        long storedSize = compressing.getBytesProduced();
+        if (size >= 0 && rawSize != size) {
+            storage.delete(stagingKey);
+            throw new IOException("Expected " + size + " bytes but received " + rawSize);
+        }
+
+        compressionTimer(type).record(compressing.getDeflateNanos(), TimeUnit.NANOSECONDS);
+        compressionBytes(type, "raw").increment(rawSize);
+        if (storedSize > rawSize * maxCompressionRatio) {
+            // Not worth decoding on every download; keep the original bytes instead
+            String rawKey = STAGING_PREFIX + "/" + UUID.randomUUID();
+            try (InputStream decoded = decode(Channels.newInputStream(storage.get(stagingKey)), CODEC_GZIP)) {
+                storage.put(rawKey, decoded, rawSize);
+            } finally {
+                storage.delete(stagingKey);
+            }
+            compressionBytes(type, "stored").increment(rawSize);
+            compressionFiles(type, "incompressible").increment();
+            return new StagedBlob(rawKey, hash, rawSize, null, rawSize, crc.getValue());
+        }
+
+        compressionBytes(type, "stored").increment(storedSize);
+        compressionFiles(type, "compressed").increment();
+        return new StagedBlob(stagingKey, hash, rawSize, CODEC_GZIP, storedSize, crc.getValue());
+    }
+
+    /**
+     * Wrap a stored byte stream so it yields the original content
+     */
+    public InputStream decode(InputStream stored, String codec) throws IOException {
+        if (codec == null) {
+            return stored;
+        }
+        if (CODEC_GZIP.equals(codec)) {
+            return new GZIPInputStream(stored, 64 * 1024);
+        }
+        stored.close();
+        throw new IOException("Unknown blob codec: " + codec);
+    }
+
+    /**
+     * Open a blob's original content, decoding it if it is compressed at rest
+     */
+    public InputStream openContent(String hash) throws IOException {
+        String codec = fileBlobRepository.findById(hash).map(FileBlob::getCodec).orElse(null);
+        return decode(Channels.newInputStream(storage.get(resolveBlobKey(hash))), codec);
+    }
+
+    /**
+     * Where a blob is stored and how, for serving it
+     */
+    public Optional<BlobContent> describe(String hash) throws IOException {
+        Optional<FileBlob> blob = fileBlobRepository.findById(hash);
+        if (blob.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(new BlobContent(hash, resolveBlobKey(hash), blob.get().getSize(),
+                blob.get().getCodec(), blob.get().getCrc32()));
+    }
+
+    /**
+     * CRC-32 of a blob's original content; blobs stored before it was recorded are read once and backfilled
+     */
+    public long crc32(BlobContent blob) throws IOException {
+        if (blob.crc32() != null) {
+            return blob.crc32();
+        }
+        CRC32 crc = new CRC32();
+        try (InputStream content = new CheckedInputStream(openContent(blob.hash()), crc)) {
+            content.transferTo(OutputStream.nullOutputStream());
+        }
+        long value = crc.getValue();
+        newTransaction.executeWithoutResult(status -> fileBlobRepository.updateCrc32(blob.hash(), value));
+        return value;
+    }
+
+    /**
+     * Add a reference to the staged content, keeping the staging object only if the content is new.
+     * The hash lock only covers this node; across nodes the blob row does. A new row is inserted before
+     * the content is moved into place but only committed after, so it never points at missing content
+     * and the primary key keeps other nodes' commits and deletes of the hash waiting until then.
+     */
+    public void commit(StagedBlob staged) throws IOException {
+        ReentrantLock lock = lockFor(staged.hash());
+        lock.lock();
+        try {
+            for (int attempt = 1; ; attempt++) {
+                if (addReference(staged.hash())) {
+                    storage.delete(staged.stagingKey());
+                    log.info("Deduplicated upload against blob {}", staged.hash());
+                    return;
+                }
+
+                try {
+                    newTransaction.executeWithoutResult(status -> {
+                        fileBlobRepository.insert(staged.hash(), staged.size(), staged.storedSize(),
+                                staged.codec(), staged.crc32());
+                        move(staged.stagingKey(), blobKey(staged.hash()));
+                    });
+                    return;
+                } catch (DataIntegrityViolationException e) {
+                    // Another node stored the same content after our check; reference its row instead
+                    if (attempt >= MAX_COMMIT_ATTEMPTS) {
+                        throw e;
+                    }
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drop one reference, deleting the blob once nothing points at it. The objects are deleted while
+     * the row is locked and before its delete commits, so a commit of the same content on another node
+     * waits and then stores it again rather than having it deleted underneath.
+     */
+    public void release(String hash) throws IOException {
+        ReentrantLock lock = lockFor(hash);
+        lock.lock();
+        try {
+            Boolean deleted = newTransaction.execute(status -> {
+                Optional<FileBlob> blob = fileBlobRepository.findByHashForUpdate(hash);
+                if (blob.isEmpty()) {
+                    log.warn("Released blob {} has no row", hash);
+                    return false;
+                }
+                fileBlobRepository.adjustRefCount(hash, -1);
+                if (blob.get().getRefCount() > 1) {
+                    return false;
+                }
+                fileBlobRepository.deleteIfUnreferenced(hash);
+                deleteObjects(hash);
+                return true;
+            });
+
+            if (Boolean.TRUE.equals(deleted)) {
+                log.info("Deleted unreferenced blob {}", hash);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Delete a blob object that has no referenced row. The hash is claimed with a placeholder row first
+     * (or its unreferenced row locked), so a concurrent commit of the same content on any node waits
+     * instead of losing its object; the placeholder is rolled back afterwards.
+     */
+    public boolean deleteIfOrphaned(String hash, String key) throws IOException {
+        ReentrantLock lock = lockFor(hash);
+        lock.lock();
+        try {
+            try {
+                return Boolean.TRUE.equals(newTransaction.execute(status -> {
+                    fileBlobRepository.insertPlaceholder(hash);
+                    status.setRollbackOnly();
+                    return deleteOrphan(hash, key);
+                }));
+            } catch (DataIntegrityViolationException e) {
+                // A row exists, or another node is committing one; only an unreferenced row lets the object go
+                return Boolean.TRUE.equals(newTransaction.execute(status -> {
+                    Optional<FileBlob> blob = fileBlobRepository.findByHashForUpdate(hash);
+                    if (blob.isEmpty() || blob.get().getRefCount() > 0) {
+                        return false;
+                    }
+                    fileBlobRepository.deleteIfUnreferenced(hash);
+                    return deleteOrphan(hash, key);
+                }));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Storage key of a blob's content (blobs/ab/cd/hash, or blobs/hash until the layout migration moves it)
+     */
+    public String blobKey(String hash) {
+        return ShardedPaths.shardKey(BLOB_PREFIX, hash, hash);
+    }
+
+    /**
+     * Key of the blob's content as currently stored, checking the flat pre-migration key as well
+     */
+    public String resolveBlobKey(String hash) throws IOException {
+        String sharded = blobKey(hash);
+        if (storage.stat(sharded).isPresent()) {
+            return sharded;
+        }
+        String flat = BLOB_PREFIX + "/" + hash;
+        return storage.stat(flat).isPresent() ? flat : sharded;
+    }
+
+    /**
+     * Key of a file derived from a blob (e.g. a thumbnail), stored next to the blob
+     */
+    public String derivedKey(String hash, String suffix) {
+        return blobKey(hash) + "." + suffix;
+    }
+
+    /**
+     * Delete a blob's content and derived files; called with its row locked. A failed delete only leaves
+     * an object without a row, which the orphan collector removes later.
+     */
+    private void deleteObjects(String hash) {
+        try {
+            deleteDerived(hash);
+            for (String key : List.of(blobKey(hash), BLOB_PREFIX + "/" + hash)) {
+                hotFileCache.invalidate(key);
+                storage.delete(key);
+            }
+        } catch (IOException e) {
+            log.warn("Could not delete blob {}; leaving it to the orphan collector: {}", hash, e.getMessage());
+        }
+    }
+
+    /**
+     * Delete an orphaned blob object and its derived files; called with the hash claimed
+     */
+    private boolean deleteOrphan(String hash, String key) {
+        try {
+            deleteDerived(hash);
+            hotFileCache.invalidate(key);
+            return storage.delete(key);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Delete every derived file of a blob
+     */
+    private void deleteDerived(String hash) throws IOException {
+        List<String> derived;
+        try (Stream<StoredObject> objects = storage.list(blobKey(hash) + ".")) {
+            derived = objects.map(StoredObject::key).toList();
+        }
+        for (String key : derived) {
+            hotFileCache.invalidate(key);
+            storage.delete(key);
+        }
+    }
+
+    /**
+     * Root directory of the blob store when the local backend is used (for the layout migration)
+     */
+    public Path blobDir() {
+        return Paths.get(uploadDir, BLOB_PREFIX);
+    }
+
+    /**
+     * Logical vs physical bytes and the resulting dedup ratio
+     */
+    public Map<String, Object> getStats() {
+        long attachments = attachmentRepository.count();
+        long blobs = fileBlobRepository.count();
+        long logicalBytes = attachmentRepository.sumSize();
+        long storedBytes = fileBlobRepository.sumStoredSize();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("backend", storage.getName());
+        stats.put("attachments", attachments);
+        stats.put("blobs", blobs);
+        stats.put("logicalBytes", logicalBytes);
+        stats.put("storedBytes", storedBytes);
+        stats.put("savedBytes", logicalBytes - storedBytes);
+        stats.put("dedupRatio", storedBytes > 0 ? (double) logicalBytes / storedBytes : 1.0);
+        stats.put("compressedBlobs", fileBlobRepository.countCompressed());
+        stats.put("compressionSavedBytes", fileBlobRepository.sumCompressionSavings());
+        return stats;
+    }
+
+    private boolean compressible(long size, String fileType) {
+        return compressionEnabled && fileType != null
+                && (size < 0 || size >= compressionMinSize)
+                && compressibleTypes.contains(fileType.toLowerCase());
+    }
+
+    private Timer compressionTimer(String type) {
+        return Timer.builder("storage.compression.duration")
+                .description("Time spent compressing attachments, excluding I/O")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    private Counter compressionBytes(String type, String stage) {
+        return Counter.builder("storage.compression.bytes")
+                .description("Attachment bytes before (raw) and after (stored) compression")
+                .baseUnit("bytes")
+                .tag("type", type)
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    private Counter compressionFiles(String type, String outcome) {
+        return Counter.builder("storage.compression.files")
+                .description("Attachments of compressible types by whether compression was kept")
+                .tag("type", type)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private void move(String from, String to) {
+        try {
+            storage.move(from, to);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean addReference(String hash) {
+        return Boolean.TRUE.equals(newTransaction.execute(status -> fileBlobRepository.adjustRefCount(hash, 1) > 0));
+    }
+
+    private ReentrantLock lockFor(String hash) {
+        return locks[Math.floorMod(hash.hashCode(), LOCK_STRIPES)];
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Hashed content waiting under a staging key; size is the original length, storedSize what is on disk
+     */
+    public record StagedBlob(String stagingKey, String hash, long size, String codec, long storedSize, long crc32) {
+    }
+
+    /**
+     * A blob's storage key, original size, content coding and CRC-32 (null if not yet recorded)
+     */
+    public record BlobContent(String hash, String key, long size, String codec, Long crc32) {
+    }
+}
@@ -0,0 +1,317 @@
+package org.example.tasknexus.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.example.tasknexus.model.EmailJob;
+import org.example.tasknexus.model.EmailJobStatus;
+import org.example.tasknexus.repository.EmailJobRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * EmailQueueService
+ * Persistent email queue: mails are stored as email_jobs rows and delivered by background workers
+ * that claim due jobs with SKIP LOCKED, retry with exponential backoff and dead-letter after
+ * mail.queue.max-attempts failures. Each claim is one send through the delivery engine; retries
+ * are only scheduled here. Outcomes are written only while the worker still holds the job's lease.
+ */
+@Slf4j
+@Service
+public class EmailQueueService {
+
+    private static final long MAX_BACKOFF_MS = 6 * 60 * 60 * 1000; // 6 hours
+
+    private static final long METRICS_REFRESH_MS = 10_000;
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @Autowired
+    private EmailJobRepository emailJobRepository;
+
+    @Autowired
+    private MailDeliveryEngine deliveryEngine;
+
+    @Autowired
+    private JavaMailSender mailSender;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${spring.mail.username}")
+    private String fromEmail;
+
+    @Value("${mail.queue.workers:2}")
+    private int workerCount;
+
+    @Value("${mail.queue.batch-size:50}")
+    private int batchSize;
+
+    @Value("${mail.queue.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    @Value("${mail.queue.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${mail.queue.initial-backoff-ms:60000}")
+    private long initialBackoffMs;
+
+    @Value("${mail.queue.lease-ms:300000}")
+    private long leaseMs;
+
+    private TransactionTemplate transactionTemplate;
+
+    private ExecutorService workers;
+
+    private volatile boolean running;
+
+    private final AtomicLong pendingDepth = new AtomicLong();
+    private final AtomicLong oldestPendingAgeSeconds = new AtomicLong();
+    private final AtomicLong deadDepth = new AtomicLong();
+    private final AtomicLong lastMetricsRefresh = new AtomicLong();
+
+    private Counter sentCounter;
+    private Counter retriedCounter;
+    private Counter deadCounter;
+
+    /**
+     * Register metrics and start workers
+     */
+    @PostConstruct
+    public void start() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        Gauge.builder("mail.queue.depth", pendingDepth, AtomicLong::get)
+                .description("Emails waiting to be sent")
+                .register(meterRegistry);
+        Gauge.builder("mail.queue.oldest.age", oldestPendingAgeSeconds, AtomicLong::get)
+                .description("Age of the oldest pending email")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("mail.queue.dead", deadDepth, AtomicLong::get)
+                .description("Emails moved to the dead-letter state")
+                .register(meterRegistry);
+        sentCounter = meterRegistry.counter("mail.queue.sent");
+        retriedCounter = meterRegistry.counter("mail.queue.retried");
+        deadCounter = meterRegistry.counter("mail.queue.deadlettered");
+
+        if (workerCount <= 0) {
+            log.info("Email queue workers disabled; jobs are only enqueued on this node");
+            return;
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "mail-queue-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            workers.submit(this::runWorker);
+        }
+        log.info("Email queue started with {} workers", workerCount);
+    }
+
+    /**
+     * Stop workers; claimed jobs are picked up again once their lease expires
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (workers != null) {
+            workers.shutdownNow();
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Store an email for delivery.
+     * Joins the caller's transaction, so the email is only sent if the surrounding change commits.
+     */
+    public EmailJob enqueue(String recipient, String subject, String body, boolean html) {
+        EmailJob job = new EmailJob();
+        job.setRecipient(recipient);
+        job.setSubject(subject);
+        job.setBody(body);
+        job.setHtml(html);
+        job.setStatus(EmailJobStatus.PENDING);
+        job.setAttempts(0);
+        job.setNextAttemptAt(LocalDateTime.now());
+        return emailJobRepository.save(job);
+    }
+
+    private void runWorker() {
+        while (running) {
+            try {
+                if (!poll()) {
+                    Thread.sleep(pollIntervalMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Email queue worker error: {}", e.getMessage());
+                try {
+                    Thread.sleep(pollIntervalMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Claim and dispatch one batch of due jobs.
+     * Returns true if there is likely more work; false when the worker should wait for the next poll.
+     */
+    boolean poll() {
+        List<EmailJob> jobs = claim();
+        int dispatched = 0;
+        while (dispatched < jobs.size() && dispatch(jobs.get(dispatched))) {
+            dispatched++;
+        }
+        // The delivery engine is full: hand the rest back untouched and back off
+        for (EmailJob job : jobs.subList(dispatched, jobs.size())) {
+            release(job);
+        }
+        refreshMetrics();
+
+        return jobs.size() == batchSize && dispatched == jobs.size();
+    }
+
+    /**
+     * Claim a batch of due jobs and lease them to this worker
+     */
+    private List<EmailJob> claim() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<EmailJob> jobs = emailJobRepository.findClaimable(
+                    EmailJobStatus.PENDING.name(), EmailJobStatus.SENDING.name(), now, batchSize);
+
+            LocalDateTime leaseUntil = now.plus(Duration.ofMillis(leaseMs));
+            String leaseOwner = UUID.randomUUID().toString();
+            for (EmailJob job : jobs) {
+                job.setStatus(EmailJobStatus.SENDING);
+                job.setLockedUntil(leaseUntil);
+                job.setLeaseOwner(leaseOwner);
+                job.setAttempts(job.getAttempts() + 1);
+            }
+            return jobs;
+        });
+    }
+
+    /**
+     * Hand a job to the delivery engine; false if the engine rejected it because its queue is full
+     */
+    private boolean dispatch(EmailJob job) {
+        try {
+            MimeMessage message = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+            helper.setFrom(fromEmail);
+            helper.setTo(job.getRecipient());
+            helper.setSubject(job.getSubject());
+            helper.setText(job.getBody(), job.getHtml());
+
+            deliveryEngine.submit(message, 1).whenComplete((ignored, error) -> {
+                if (error == null) {
+                    markSent(job);
+                } else {
+                    markFailed(job, error);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            return false;
+        } catch (Exception e) {
+            markFailed(job, e);
+        }
+        return true;
+    }
+
+    private void release(EmailJob job) {
+        emailJobRepository.release(job.getId(), job.getLeaseOwner(), EmailJobStatus.SENDING,
+                EmailJobStatus.PENDING, LocalDateTime.now().plus(Duration.ofMillis(pollIntervalMs)));
+    }
+
+    private void markSent(EmailJob job) {
+        int updated = emailJobRepository.markSent(job.getId(), job.getLeaseOwner(), EmailJobStatus.SENDING,
+                EmailJobStatus.SENT, LocalDateTime.now());
+        if (updated == 0) {
+            log.warn("Email job {} was sent after its lease expired; it may be delivered twice", job.getId());
+            return;
+        }
+        sentCounter.increment();
+    }
+
+    private void markFailed(EmailJob job, Throwable error) {
+        String message = truncate(error.getMessage());
+
+        if (job.getAttempts() >= maxAttempts) {
+            log.error("Email job {} to {} dead-lettered after {} attempts: {}",
+                    job.getId(), job.getRecipient(), job.getAttempts(), message);
+            if (emailJobRepository.markFailed(job.getId(), job.getLeaseOwner(), EmailJobStatus.SENDING,
+                    EmailJobStatus.DEAD, job.getNextAttemptAt(), message) > 0) {
+                deadCounter.increment();
+            }
+            return;
+        }
+
+        long delay = Math.min(initialBackoffMs << (job.getAttempts() - 1), MAX_BACKOFF_MS);
+        log.warn("Email job {} failed (attempt {}), retrying in {} ms: {}",
+                job.getId(), job.getAttempts(), delay, message);
+        if (emailJobRepository.markFailed(job.getId(), job.getLeaseOwner(), EmailJobStatus.SENDING,
+                EmailJobStatus.PENDING, LocalDateTime.now().plus(Duration.ofMillis(delay)), message) > 0) {
+            retriedCounter.increment();
+        }
+    }
+
+    /**
+     * Refresh depth and age gauges, at most once per METRICS_REFRESH_MS across all workers
+     */
+    private void refreshMetrics() {
+        long now = System.currentTimeMillis();
+        long last = lastMetricsRefresh.get();
+        if (now - last < METRICS_REFRESH_MS || !lastMetricsRefresh.compareAndSet(last, now)) {
+            return;
+        }
+
+        pendingDepth.set(emailJobRepository.countByStatus(EmailJobStatus.PENDING));
+        deadDepth.set(emailJobRepository.countByStatus(EmailJobStatus.DEAD));
+        LocalDateTime oldest = emailJobRepository.findOldestCreatedAt(EmailJobStatus.PENDING);
+        oldestPendingAgeSeconds.set(oldest != null
+                ? Duration.between(oldest, LocalDateTime.now()).getSeconds()
+                : 0);
+    }
+
+    private String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+}
@@ -1,211 +1,181 @@
 package org.example.tasknexus.service;
 
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
 import lombok.extern.slf4j.Slf4j;
+import org.example.tasknexus.dto.TaskNotification;
 import org.example.tasknexus.model.Task;
 import org.example.tasknexus.model.User;
+import org.example.tasknexus.util.EmailTemplateEngine;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * EmailService
- * Service for sending email notifications
+ * Service for sending email notifications.
+ * Emails are rendered here and handed to the persistent EmailQueueService for delivery.
+ * Queueing joins the caller's transaction, so failures propagate and roll the triggering change back with it.
  */
 @Slf4j
 @Service
 public class EmailService {
 
     @Autowired
-    private JavaMailSender mailSender;
+    private EmailQueueService emailQueueService;
 
-    @Value("${spring.mail.username}")
-    private String fromEmail;
+    @Autowired
+    private EmailTemplateEngine templateEngine;
 
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm");
 
     /**
      * Send welcome email
      */
-    @Async
     public void sendWelcomeEmail(User user) {
-        try {
-            log.info("Sending welcome email to: {}", user.getEmail());
-
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setFrom(fromEmail);
-            helper.setTo(user.getEmail());
-            helper.setSubject("Welcome to TaskNexus!");
+        log.info("Sending welcome email to: {}", user.getEmail());
 
-            String htmlContent = buildWelcomeEmail(user);
-            helper.setText(htmlContent, true);
-
-            mailSender.send(message);
-            log.info("Welcome email sent successfully to: {}", user.getEmail());
-        } catch (Exception e) {
-            log.error("Failed to send welcome email: {}", e.getMessage());
-        }
+        String htmlContent = buildWelcomeEmail(user);
+        emailQueueService.enqueue(user.getEmail(), "Welcome to TaskNexus!", htmlContent, true);
+        log.info("Welcome email queued for: {}", user.getEmail());
     }
 
     /**
      * Send task created notification
      */
-    @Async
     public void sendTaskCreatedEmail(User user, Task task) {
-        try {
-            log.info("Sending task created email to: {}", user.getEmail());
+        log.info("Sending task created email to: {}", user.getEmail());
 
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setFrom(fromEmail);
-            helper.setTo(user.getEmail());
-            helper.setSubject("New Task Created: " + task.getTitle());
-
-            String htmlContent = buildTaskCreatedEmail(user, task);
-            helper.setText(htmlContent, true);
-
-            mailSender.send(message);
-            log.info("Task created email sent successfully");
-        } catch (Exception e) {
-            log.error("Failed to send task created email: {}", e.getMessage());
-        }
+        String htmlContent = buildTaskCreatedEmail(user, task);
+        emailQueueService.enqueue(user.getEmail(), "New Task Created: " + task.getTitle(), htmlContent, true);
+        log.info("Task created email queued");
     }
 
     /**
      * Send task completed notification
      */
-    @Async
     public void sendTaskCompletedEmail(User user, Task task) {
-        try {
-            log.info("Sending task completed email to: {}", user.getEmail());
-
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(user.getEmail());
-            message.setSubject("Task Completed: " + task.getTitle());
-            message.setText(String.format(
-                    "Hi %s,\n\n" +
-                    "Congratulations! You have completed the task:\n\n" +
-                    "Title: %s\n" +
-                    "Priority: %s\n" +
-                    "Completed: Just now\n\n" +
-                    "Keep up the great work!\n\n" +
-                    "Best regards,\n" +
-                    "TaskNexus Team",
-                    user.getFullName(),
-                    task.getTitle(),
-                    task.getPriority()
-            ));
-
-            mailSender.send(message);
-            log.info("Task completed email sent successfully");
-        } catch (Exception e) {
-            log.error("Failed to send task completed email: {}", e.getMessage());
-        }
+        log.info("Sending task completed email to: {}", user.getEmail());
+
+        String textContent = templateEngine.render(EmailTemplateEngine.TASK_COMPLETED, model(
+                "fullName", user.getFullName(),
+                "title", task.getTitle(),
+                "priority", task.getPriority()
+        ));
+        emailQueueService.enqueue(user.getEmail(), "Task Completed: " + task.getTitle(), textContent, false);
+        log.info("Task completed email queued");
     }
 
     /**
      * Send task reminder email
      */
-    @Async
     public void sendTaskReminderEmail(User user, Task task) {
-        try {
-            log.info("Sending task reminder email to: {}", user.getEmail());
-
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(user.getEmail());
-            message.setSubject("Reminder: Task Due Soon - " + task.getTitle());
-            message.setText(String.format(
-                    "Hi %s,\n\n" +
-                    "This is a reminder that your task is due soon:\n\n" +
-                    "Title: %s\n" +
-                    "Priority: %s\n" +
-                    "Due Date: %s\n\n" +
-                    "Please complete it on time.\n\n" +
-                    "Best regards,\n" +
-                    "TaskNexus Team",
-                    user.getFullName(),
-                    task.getTitle(),
-                    task.getPriority(),
-                    task.getDueDate() != null ? task.getDueDate().format(formatter) : "Not set"
-            ));
-
-            mailSender.send(message);
-            log.info("Task reminder email sent successfully");
-        } catch (Exception e) {
-            log.error("Failed to send task reminder email: {}", e.getMessage());
-        }
+        log.info("Sending task reminder email to: {}", user.getEmail());
+
+        String textContent = templateEngine.render(EmailTemplateEngine.TASK_REMINDER, model(
+                "fullName", user.getFullName(),
+                "title", task.getTitle(),
+                "priority", task.getPriority(),
+                "dueDate", formatDueDate(task)
+        ));
+        emailQueueService.enqueue(user.getEmail(), "Reminder: Task Due Soon - " + task.getTitle(), textContent, false);
+        log.info("Task reminder email queued");
+    }
+
+    /**
+     * Send digest of task notifications
+     */
+    public void sendTaskDigestEmail(User user, List<TaskNotification> notifications) {
+        log.info("Sending task digest email with {} updates to: {}", notifications.size(), user.getEmail());
+
+        String htmlContent = buildTaskDigestEmail(user, notifications);
+        emailQueueService.enqueue(user.getEmail(),
+                "TaskNexus: " + notifications.size() + " task updates", htmlContent, true);
+        log.info("Task digest email queued");
     }
 
     /**
      * Build welcome email HTML
      */
     private String buildWelcomeEmail(User user) {
-        return String.format(
-                "<html>" +
-                "<body style='font-family: Arial, sans-serif;'>" +
-                "<div style='max-width: 600px; margin: 0 auto; padding: 20px;'>" +
-                "<h1 style='color: #4CAF50;'>Welcome to TaskNexus!</h1>" +
-                "<p>Hi %s,</p>" +
-                "<p>Thank you for joining TaskNexus. We're excited to have you on board!</p>" +
-                "<p>With TaskNexus, you can:</p>" +
-                "<ul>" +
-                "<li>Create and manage tasks efficiently</li>" +
-                "<li>Set priorities and due dates</li>" +
-                "<li>Track your progress</li>" +
-                "<li>Stay organized and productive</li>" +
-                "</ul>" +
-                "<p>Get started by creating your first task!</p>" +
-                "<p>Best regards,<br/>The TaskNexus Team</p>" +
-                "</div>" +
-                "</body>" +
-                "</html>",
-                user.getFullName()
-        );
+        return templateEngine.render(EmailTemplateEngine.WELCOME, model(
+                "fullName", user.getFullName()
+        ));
     }
 
     /**
      * Build task created email HTML
      */
     private String buildTaskCreatedEmail(User user, Task task) {
-        return String.format(
-                "<html>" +
-                "<body style='font-family: Arial, sans-serif;'>" +
-                "<div style='max-width: 600px; margin: 0 auto; padding: 20px;'>" +
-                "<h2 style='color: #2196F3;'>New Task Created</h2>" +
-                "<p>Hi %s,</p>" +
-                "<p>You have successfully created a new task:</p>" +
-                "<div style='background-color: #f5f5f5; padding: 15px; border-radius: 5px;'>" +
-                "<h3 style='margin-top: 0;'>%s</h3>" +
-                "<p><strong>Description:</strong> %s</p>" +
-                "<p><strong>Priority:</strong> <span style='color: %s;'>%s</span></p>" +
-                "<p><strong>Status:</strong> %s</p>" +
-                "<p><strong>Due Date:</strong> %s</p>" +
-                "</div>" +
-                "<p>Good luck with your task!</p>" +
-                "<p>Best regards,<br/>TaskNexus Team</p>" +
-                "</div>" +
-                "</body>" +
-                "</html>",
-                user.getFullName(),
-                task.getTitle(),
-                task.getDescription() != null ? task.getDescription() : "No description",
-                getPriorityColor(task.getPriority().toString()),
-                task.getPriority(),
-                task.getStatus(),
-                task.getDueDate() != null ? task.getDueDate().format(formatter) : "Not set"
-        );
+        return templateEngine.render(EmailTemplateEngine.TASK_CREATED, model(
+                "fullName", user.getFullName(),
+                "title", task.getTitle(),
+                "description", task.getDescription() != null ? task.getDescription() : "No description",
+                "priorityColor", getPriorityColor(String.valueOf(task.getPriority())),
+                "priority", task.getPriority(),
+                "status", task.getStatus(),
+                "dueDate", formatDueDate(task)
+        ));
+    }
+
+    /**
+     * Build task digest email HTML
+     */
+    private String buildTaskDigestEmail(User user, List<TaskNotification> notifications) {
+        StringBuilder items = new StringBuilder();
+        for (TaskNotification notification : notifications) {
+            items.append(templateEngine.render(EmailTemplateEngine.TASK_DIGEST_ITEM, model(
+                    "event", getEventLabel(notification.getType()),
+                    "title", notification.getTitle(),
+                    "priorityColor", getPriorityColor(String.valueOf(notification.getPriority())),
+                    "priority", notification.getPriority(),
+                    "dueDate", notification.getDueDate() != null
+                            ? notification.getDueDate().format(formatter)
+                            : "Not set"
+            )));
+        }
+
+        return templateEngine.render(EmailTemplateEngine.TASK_DIGEST, model(
+                "fullName", user.getFullName(),
+                "count", notifications.size(),
+                "items", items.toString()
+        ));
+    }
+
+    /**
+     * Get digest label for a task event
+     */
+    private String getEventLabel(TaskNotification.Type type) {
+        switch (type) {
+            case CREATED:
+                return "Created";
+            case COMPLETED:
+                return "Completed";
+            case REMINDER:
+                return "Due soon";
+            default:
+                return type.name();
+        }
+    }
+
+    /**
+     * Build template values from key/value pairs; unlike Map.of, null values are allowed and render as empty
+     */
+    private static Map<String, Object> model(Object... keysAndValues) {
+        Map<String, Object> values = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            values.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return values;
+    }
+
+    /**
+     * Format due date for display
+     */
+    private String formatDueDate(Task task) {
+        return task.getDueDate() != null ? task.getDueDate().format(formatter) : "Not set";
     }
 
     /**
@@ -0,0 +1,134 @@
+package org.example.tasknexus.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.example.tasknexus.model.TaskDailyStats;
+import org.example.tasknexus.repository.TaskDailyStatsRepository;
+import org.example.tasknexus.repository.TaskExportRow;
+import org.example.tasknexus.repository.TaskRepository;
+import org.example.tasknexus.util.CsvWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * ExportService
+ * Streams a user's tasks and analytics history as CSV. Rows are read in fixed-size keyset chunks,
+ * each in its own short read-only transaction, and written out after that transaction ends, so
+ * memory and connection hold time are bounded by one chunk however large the export is.
+ */
+@Slf4j
+@Service
+public class ExportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TaskDailyStatsRepository taskDailyStatsRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${export.chunk-size:1000}")
+    private int chunkSize;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    public void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Write all of a user's tasks as CSV
+     */
+    public long exportTasks(Long userId, OutputStream out, boolean gzip) throws IOException {
+        long rows = 0;
+        try (Writer writer = open(out, gzip)) {
+            CsvWriter csv = new CsvWriter(writer);
+            csv.writeRow("id", "title", "description", "status", "priority", "dueDate", "completedAt",
+                    "tags", "createdAt", "updatedAt");
+
+            long afterId = 0;
+            while (true) {
+                long cursor = afterId;
+                List<TaskExportRow> chunk = readOnlyTransaction.execute(status ->
+                        taskRepository.findExportRowsAfter(userId, cursor, PageRequest.of(0, chunkSize)));
+                if (chunk == null || chunk.isEmpty()) {
+                    break;
+                }
+
+                for (TaskExportRow row : chunk) {
+                    csv.writeRow(row.getId(), row.getTitle(), row.getDescription(), row.getStatus(),
+                            row.getPriority(), row.getDueDate(), row.getCompletedAt(), row.getTags(),
+                            row.getCreatedAt(), row.getUpdatedAt());
+                }
+                rows += chunk.size();
+                afterId = chunk.get(chunk.size() - 1).getId();
+                if (chunk.size() < chunkSize) {
+                    break;
+                }
+            }
+        }
+
+        log.info("Exported {} tasks for user {}", rows, userId);
+        return rows;
+    }
+
+    /**
+     * Write a user's daily analytics history as CSV
+     */
+    public long exportAnalytics(Long userId, OutputStream out, boolean gzip) throws IOException {
+        long rows = 0;
+        try (Writer writer = open(out, gzip)) {
+            CsvWriter csv = new CsvWriter(writer);
+            csv.writeRow("day", "created", "completed", "due", "completedOnTime");
+
+            LocalDate afterDay = LocalDate.of(1, 1, 1);
+            while (true) {
+                LocalDate cursor = afterDay;
+                List<TaskDailyStats> chunk = readOnlyTransaction.execute(status ->
+                        taskDailyStatsRepository.findByUserIdAndDayAfterOrderByDayAsc(
+                                userId, cursor, PageRequest.of(0, chunkSize)));
+                if (chunk == null || chunk.isEmpty()) {
+                    break;
+                }
+
+                for (TaskDailyStats day : chunk) {
+                    csv.writeRow(day.getDay(), day.getCreatedCount(), day.getCompletedCount(),
+                            day.getDueCount(), day.getCompletedOnTimeCount());
+                }
+                rows += chunk.size();
+                afterDay = chunk.get(chunk.size() - 1).getDay();
+                if (chunk.size() < chunkSize) {
+                    break;
+                }
+            }
+        }
+
+        log.info("Exported {} analytics days for user {}", rows, userId);
+        return rows;
+    }
+
+    private Writer open(OutputStream out, boolean gzip) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+        return new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+}
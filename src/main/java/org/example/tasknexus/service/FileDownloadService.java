@@ -0,0 +1,436 @@
+package org.example.tasknexus.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.example.tasknexus.exception.ResourceNotFoundException;
+import org.example.tasknexus.storage.StorageBackend;
+import org.example.tasknexus.storage.StoredObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * FileDownloadService
+ * Serves stored files over HTTP with HEAD, conditional GET (ETag / Last-Modified), single and
+ * multi-range (206) responses. Single ranges and whole files are handed to the container's sendfile
+ * support when available; otherwise hot files are written from a cached memory mapping and the rest
+ * move with FileChannel.transferTo, never through the heap.
+ * Objects in a remote storage backend are streamed through a single fixed buffer per range, and
+ * compressed blobs are either passed through with Content-Encoding or decoded while streaming.
+ */
+@Slf4j
+@Service
+public class FileDownloadService {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private StorageBackend storage;
+
+    @Autowired
+    private BlobStoreService blobStoreService;
+
+    @Autowired
+    private HotFileCache hotFileCache;
+
+    @Value("${file.download.max-ranges:16}")
+    private int maxRanges;
+
+    @Value("${file.download.sendfile:true}")
+    private boolean sendfileEnabled;
+
+    /**
+     * Write a file (or the requested ranges of it) to the response as a download that clients revalidate
+     */
+    public void serve(Path file, String downloadName, String contentType,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serve(file, contentType, "private, no-cache", attachmentDisposition(downloadName), request, response);
+    }
+
+    /**
+     * Write a file with the given caching and disposition headers
+     */
+    public void serve(Path file, String contentType, String cacheControl, String disposition,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        serve(new Source(null, file, attributes.size(), attributes.lastModifiedTime().toMillis(), null, false),
+                contentType, cacheControl, disposition, request, response);
+    }
+
+    /**
+     * Write an object from the storage backend with the given caching and disposition headers.
+     * Objects the backend keeps on local disk still go out through sendfile.
+     */
+    public void serve(String key, String contentType, String cacheControl, String disposition,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        StoredObject object = storage.stat(key)
+                .orElseThrow(() -> new ResourceNotFoundException("File not found"));
+        Source source = new Source(key, storage.localPath(key).orElse(null),
+                object.size(), object.lastModified().toEpochMilli(), null, false);
+        serve(source, contentType, cacheControl, disposition, request, response);
+    }
+
+    /**
+     * Write an attachment blob as a download. Compressed blobs go out as stored, with
+     * Content-Encoding, when the client accepts that coding and are decoded on the fly otherwise.
+     * Range requests always get the decoded bytes: clients such as PDF viewers compute offsets in
+     * the original file, not in its gzip encoding.
+     */
+    public void serve(BlobStoreService.BlobContent blob, String downloadName, String contentType,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        StoredObject object = storage.stat(blob.key())
+                .orElseThrow(() -> new ResourceNotFoundException("File not found"));
+        long lastModified = object.lastModified().toEpochMilli();
+
+        Source source;
+        boolean passThrough = blob.codec() == null
+                || (acceptsEncoding(request, blob.codec()) && request.getHeader(HttpHeaders.RANGE) == null);
+        if (passThrough) {
+            source = new Source(blob.key(), storage.localPath(blob.key()).orElse(null),
+                    object.size(), lastModified, blob.codec(), false);
+        } else {
+            source = new Source(blob.key(), null, blob.size(), lastModified, blob.codec(), true);
+        }
+        serve(source, contentType, "private, no-cache", attachmentDisposition(downloadName), request, response);
+    }
+
+    private void serve(Source source, String contentType, String cacheControl, String disposition,
+                       HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long length = source.length();
+        long lastModified = source.lastModified() / 1000 * 1000;
+        boolean encoded = source.codec() != null && !source.decode();
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified)
+                + (encoded ? "-" + source.codec() : "") + "\"";
+
+        if (source.codec() != null) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (encoded) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, source.codec());
+        }
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, disposition);
+
+        if (notModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        List<long[]> ranges = requestedRanges(request, etag, lastModified, length);
+        if (ranges != null && ranges.isEmpty()) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+
+        boolean head = "HEAD".equalsIgnoreCase(request.getMethod());
+        if (ranges == null) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(contentType);
+            response.setContentLengthLong(length);
+            if (!head) {
+                transfer(source, 0, length, request, response);
+            }
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        if (ranges.size() == 1) {
+            long[] range = ranges.get(0);
+            response.setContentType(contentType);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + range[0] + "-" + range[1] + "/" + length);
+            response.setContentLengthLong(range[1] - range[0] + 1);
+            if (!head) {
+                transfer(source, range[0], range[1] - range[0] + 1, request, response);
+            }
+            return;
+        }
+
+        writeMultipart(source, contentType, length, ranges, head, response);
+    }
+
+    /**
+     * Evaluate If-None-Match, then If-Modified-Since (only when no ETag condition was sent)
+     */
+    private boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && lastModified <= ifModifiedSince;
+    }
+
+    /**
+     * Parse the Range header; null means "send the whole file", an empty list means unsatisfiable
+     */
+    private List<long[]> requestedRanges(HttpServletRequest request, String etag, long lastModified, long length) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null || !header.startsWith("bytes=")) {
+            return null;
+        }
+
+        // A stale If-Range validator turns the request into a plain GET
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null) {
+            boolean matches = ifRange.startsWith("\"") || ifRange.startsWith("W/")
+                    ? ifRange.equals(etag)
+                    : dateHeader(request, HttpHeaders.IF_RANGE) == lastModified;
+            if (!matches) {
+                return null;
+            }
+        }
+
+        List<long[]> ranges = new ArrayList<>();
+        for (String spec : header.substring(6).split(",")) {
+            spec = spec.trim();
+            int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+
+            long start;
+            long end;
+            try {
+                if (dash == 0) {
+                    long suffix = Long.parseLong(spec.substring(1));
+                    start = Math.max(0, length - suffix);
+                    end = length - 1;
+                } else {
+                    start = Long.parseLong(spec.substring(0, dash));
+                    end = dash == spec.length() - 1 ? length - 1 : Math.min(Long.parseLong(spec.substring(dash + 1)), length - 1);
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+
+            if (start <= end && start < length) {
+                ranges.add(new long[]{start, end});
+            }
+        }
+
+        // Too many ranges is a cheap amplification vector; answer with the whole file instead
+        return ranges.size() > maxRanges ? null : ranges;
+    }
+
+    private void transfer(Source source, long position, long count,
+                          HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (source.file() != null && sendfileEnabled && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat writes the region with sendfile(2) after the servlet returns
+            request.setAttribute(SENDFILE_FILENAME, source.file().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, position);
+            request.setAttribute(SENDFILE_END, position + count);
+            return;
+        }
+
+        OutputStream out = response.getOutputStream();
+        ByteBuffer mapped = mapped(source);
+        try (FileChannel channel = mapped == null ? openLocal(source) : null) {
+            copy(source, channel, mapped, position, count, Channels.newChannel(out));
+        }
+        out.flush();
+    }
+
+    private void writeMultipart(Source source, String contentType, long length, List<long[]> ranges,
+                                boolean head, HttpServletResponse response) throws IOException {
+        String boundary = UUID.randomUUID().toString().replace("-", "");
+        List<byte[]> partHeaders = new ArrayList<>();
+        long contentLength = 0;
+        for (long[] range : ranges) {
+            byte[] partHeader = ("\r\n--" + boundary + "\r\n"
+                    + "Content-Type: " + contentType + "\r\n"
+                    + "Content-Range: bytes " + range[0] + "-" + range[1] + "/" + length + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(partHeader);
+            contentLength += partHeader.length + range[1] - range[0] + 1;
+        }
+        byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        contentLength += closing.length;
+
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(contentLength);
+        if (head) {
+            return;
+        }
+
+        OutputStream out = response.getOutputStream();
+        WritableByteChannel target = Channels.newChannel(out);
+        ByteBuffer mapped = mapped(source);
+        try (FileChannel channel = mapped == null ? openLocal(source) : null) {
+            for (int i = 0; i < ranges.size(); i++) {
+                long[] range = ranges.get(i);
+                out.write(partHeaders.get(i));
+                copy(source, channel, mapped, range[0], range[1] - range[0] + 1, target);
+            }
+        }
+        out.write(closing);
+        out.flush();
+    }
+
+    private FileChannel openLocal(Source source) throws IOException {
+        return source.file() != null ? FileChannel.open(source.file(), StandardOpenOption.READ) : null;
+    }
+
+    /**
+     * Cached mapping of a hot local file, or null to read it through a channel
+     */
+    private ByteBuffer mapped(Source source) {
+        if (source.file() == null || source.decode()) {
+            return null;
+        }
+        return hotFileCache.get(source.file(), source.length()).orElse(null);
+    }
+
+    private void copy(Source source, FileChannel channel, ByteBuffer mapped, long position, long count,
+                      WritableByteChannel target) throws IOException {
+        if (source.decode()) {
+            copyDecoded(source, position, count, target);
+        } else if (mapped != null) {
+            mapped.limit((int) (position + count)).position((int) position);
+            while (mapped.hasRemaining()) {
+                target.write(mapped);
+            }
+        } else if (channel != null) {
+            transferTo(channel, position, count, target);
+        } else {
+            copyRange(source.key(), position, count, target);
+        }
+    }
+
+    private void transferTo(FileChannel channel, long position, long count, WritableByteChannel target) throws IOException {
+        long end = position + count;
+        while (position < end) {
+            long sent = channel.transferTo(position, end - position, target);
+            if (sent <= 0) {
+                throw new IOException("File ended before the requested range was written");
+            }
+            position += sent;
+        }
+    }
+
+    /**
+     * Stream a range of a remote object through one reused buffer
+     */
+    private void copyRange(String key, long position, long count, WritableByteChannel target) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long copied = 0;
+        try (ReadableByteChannel channel = storage.getRange(key, position, count)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    copied += target.write(buffer);
+                }
+                buffer.clear();
+            }
+        }
+        if (copied != count) {
+            throw new IOException("Object ended before the requested range was written");
+        }
+    }
+
+    /**
+     * Decode a compressed blob from the start, discarding everything before position
+     */
+    private void copyDecoded(Source source, long position, long count, WritableByteChannel target) throws IOException {
+        try (InputStream decoded = blobStoreService.decode(
+                Channels.newInputStream(storage.get(source.key())), source.codec())) {
+            decoded.skipNBytes(position);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long remaining = count;
+            while (remaining > 0) {
+                int read = decoded.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    throw new IOException("Object ended before the requested range was written");
+                }
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                while (chunk.hasRemaining()) {
+                    target.write(chunk);
+                }
+                remaining -= read;
+            }
+        }
+    }
+
+    /**
+     * Whether Accept-Encoding lists the coding (or *) without q=0
+     */
+    private boolean acceptsEncoding(HttpServletRequest request, String codec) {
+        String header = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (header == null) {
+            return false;
+        }
+        for (String entry : header.split(",")) {
+            String[] parts = entry.trim().split(";");
+            String coding = parts[0].trim();
+            if (!coding.equalsIgnoreCase(codec) && !coding.equals("*")) {
+                continue;
+            }
+            boolean refused = false;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        refused = Double.parseDouble(parameter.substring(2)) <= 0;
+                    } catch (NumberFormatException e) {
+                        refused = true;
+                    }
+                }
+            }
+            return !refused;
+        }
+        return false;
+    }
+
+    private String attachmentDisposition(String downloadName) {
+        return "attachment; filename=\"" + downloadName + "\"";
+    }
+
+    private long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * What is being served: a storage key, a local file, or both when the backend is on local disk.
+     * codec is the stored content coding; decode means the client gets the decoded bytes.
+     */
+    private record Source(String key, Path file, long length, long lastModified, String codec, boolean decode) {
+    }
+}
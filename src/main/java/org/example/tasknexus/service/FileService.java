@@ -1,20 +1,32 @@
  package org.example.tasknexus.service;
 
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.example.tasknexus.exception.ValidationException;
+import org.example.tasknexus.model.Attachment;
+import org.example.tasknexus.repository.AttachmentRepository;
+import org.example.tasknexus.util.ShardedPaths;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * FileService
@@ -24,6 +36,24 @@ import java.util.UUID;
 @Service
 public class FileService {
 
+    @Autowired
+    private BlobStoreService blobStoreService;
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private StorageQuotaService storageQuotaService;
+
+    @Autowired
+    private HotFileCache hotFileCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @Value("${file.upload-dir:uploads}")
     private String uploadDir;
 
@@ -33,51 +63,188 @@ public class FileService {
 
     private static final long MAX_FILE_SIZE = 10 * 1024 * 1024; // 10MB
 
+    private static final String PARTIAL_DIR = ".partial";
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
     /**
      * Upload file
      */
-    public String uploadFile(MultipartFile file, Long taskId) throws IOException {
+    public String uploadFile(MultipartFile file, Long taskId, Long userId) throws IOException {
         log.info("Uploading file for task: {}", taskId);
 
         // Validate file
         validateFile(file);
+        storageQuotaService.checkQuota(userId, file.getSize());
 
-        // Create upload directory if not exists
-        File directory = new File(uploadDir);
-        if (!directory.exists()) {
-            directory.mkdirs();
+        // Hash while streaming into the storage backend, then keep the content once
+        BlobStoreService.StagedBlob staged;
+        try (InputStream input = file.getInputStream()) {
+            staged = blobStoreService.stage(input, file.getSize(), getFileExtension(file.getOriginalFilename()));
         }
 
-        // Generate unique filename
-        String originalFilename = file.getOriginalFilename();
-        String extension = getFileExtension(originalFilename);
-        String filename = UUID.randomUUID().toString() + "_" + taskId + "." + extension;
-
-        // Save file
-        Path filePath = Paths.get(uploadDir, filename);
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+        String filename = saveAttachment(staged, file.getOriginalFilename(), taskId, userId);
 
         log.info("File uploaded successfully: {}", filename);
         return filename;
     }
 
+    /**
+     * Store a fully received resumable upload
+     */
+    public String storeCompletedUpload(Path partialFile, String originalFilename, Long taskId, Long userId) throws IOException {
+        // One sequential read both hashes the partial file and streams it to the backend
+        BlobStoreService.StagedBlob staged;
+        try (InputStream input = Files.newInputStream(partialFile)) {
+            staged = blobStoreService.stage(input, Files.size(partialFile), getFileExtension(originalFilename));
+        }
+        String filename = saveAttachment(staged, originalFilename, taskId, userId);
+        Files.deleteIfExists(partialFile);
+
+        log.info("Resumable upload stored: {}", filename);
+        return filename;
+    }
+
+    /**
+     * Reference the staged blob under a new attachment filename, charging it to the user's quota
+     */
+    private String saveAttachment(BlobStoreService.StagedBlob staged, String originalFilename,
+                                  Long taskId, Long userId) throws IOException {
+        blobStoreService.commit(staged);
+
+        // Generate unique filename
+        String filename = newFilename(originalFilename, taskId);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                attachmentRepository.save(new Attachment(filename, staged.hash(), taskId, userId,
+                        originalFilename, staged.size(), null));
+                storageQuotaService.attachmentAdded(userId, staged.size());
+            });
+        } catch (RuntimeException e) {
+            blobStoreService.release(staged.hash());
+            throw e;
+        }
+
+        // Queued only; the upload returns without waiting for thumbnails
+        thumbnailService.submit(staged.hash(), getFileExtension(originalFilename));
+        return filename;
+    }
+
+    /**
+     * Get the path of a resumable upload's partial file
+     */
+    public Path getPartialPath(String sessionId) throws IOException {
+        Path partialDir = Paths.get(uploadDir, PARTIAL_DIR);
+        Files.createDirectories(partialDir);
+        return partialDir.resolve(sessionId + ".part");
+    }
+
     /**
      * Delete file
      */
     public void deleteFile(String filename) throws IOException {
         log.info("Deleting file: {}", filename);
 
-        Path filePath = Paths.get(uploadDir, filename);
-        Files.deleteIfExists(filePath);
+        Optional<Attachment> attachment = attachmentRepository.findById(filename);
+        if (attachment.isPresent()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                attachmentRepository.delete(attachment.get());
+                storageQuotaService.attachmentsRemoved(List.of(attachment.get()));
+            });
+            blobStoreService.release(attachment.get().getBlobHash());
+        } else {
+            deleteLegacyFile(filename);
+        }
 
         log.info("File deleted successfully: {}", filename);
     }
 
     /**
-     * Get file path
+     * Release every attachment of a task being deleted. Mapping rows go with the caller's transaction;
+     * blob references and legacy files are only dropped once it commits.
+     */
+    public void releaseTaskAttachments(Long taskId, String attachmentNames) {
+        List<Attachment> attachments = attachmentRepository.findByTaskId(taskId);
+        attachmentRepository.deleteAll(attachments);
+        storageQuotaService.attachmentsRemoved(attachments);
+
+        List<String> blobHashes = attachments.stream().map(Attachment::getBlobHash).toList();
+        List<String> legacyNames = new ArrayList<>();
+        if (attachmentNames != null && !attachmentNames.isEmpty()) {
+            Set<String> mapped = attachments.stream().map(Attachment::getFilename).collect(Collectors.toSet());
+            for (String name : attachmentNames.split(",")) {
+                if (!name.isBlank() && !mapped.contains(name)) {
+                    legacyNames.add(name);
+                }
+            }
+        }
+
+        Runnable release = () -> {
+            try {
+                for (String hash : blobHashes) {
+                    blobStoreService.release(hash);
+                }
+                for (String name : legacyNames) {
+                    deleteLegacyFile(name);
+                }
+            } catch (IOException e) {
+                // Anything left behind is picked up by the orphan collector
+                log.warn("Failed to release attachments of task {}: {}", taskId, e.getMessage());
+            }
+        };
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            release.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                release.run();
+            }
+        });
+    }
+
+    /**
+     * Delete a file stored before content addressing, in either layout, along with any cached mapping
+     */
+    private void deleteLegacyFile(String filename) throws IOException {
+        for (Path path : List.of(ShardedPaths.shardByName(Paths.get(uploadDir), filename),
+                Paths.get(uploadDir, filename))) {
+            hotFileCache.invalidate(path);
+            Files.deleteIfExists(path);
+        }
+    }
+
+    /**
+     * Get the attachment mapping of a content-addressed file
+     */
+    public Optional<Attachment> getAttachment(String filename) {
+        return attachmentRepository.findById(filename);
+    }
+
+    /**
+     * Get where and how a content-addressed attachment is stored
+     */
+    public Optional<BlobStoreService.BlobContent> getBlobContent(String filename) throws IOException {
+        Optional<Attachment> attachment = attachmentRepository.findById(filename);
+        if (attachment.isEmpty()) {
+            return Optional.empty();
+        }
+        return blobStoreService.describe(attachment.get().getBlobHash());
+    }
+
+    /**
+     * Get the local path of a file stored before content addressing
      */
     public Path getFilePath(String filename) {
-        return Paths.get(uploadDir, filename);
+        return ShardedPaths.resolve(
+                ShardedPaths.shardByName(Paths.get(uploadDir), filename), Paths.get(uploadDir, filename));
     }
 
     /**
@@ -88,11 +255,21 @@ public class FileService {
             throw new ValidationException("File is empty");
         }
 
-        if (file.getSize() > MAX_FILE_SIZE) {
-            throw new ValidationException("File size exceeds maximum limit of 10MB");
+        validateUpload(file.getOriginalFilename(), file.getSize(), MAX_FILE_SIZE);
+    }
+
+    /**
+     * Validate an upload's name and declared size
+     */
+    public void validateUpload(String filename, long size, long maxSize) {
+        if (size <= 0) {
+            throw new ValidationException("File is empty");
+        }
+
+        if (size > maxSize) {
+            throw new ValidationException("File size exceeds maximum limit of " + (maxSize / (1024 * 1024)) + "MB");
         }
 
-        String filename = file.getOriginalFilename();
         String extension = getFileExtension(filename);
 
         if (!ALLOWED_EXTENSIONS.contains(extension.toLowerCase())) {
@@ -100,6 +277,13 @@ public class FileService {
         }
     }
 
+    /**
+     * Generate unique filename
+     */
+    private String newFilename(String originalFilename, Long taskId) {
+        return UUID.randomUUID().toString() + "_" + taskId + "." + getFileExtension(originalFilename);
+    }
+
     /**
      * Get file extension
      */
@@ -0,0 +1,174 @@
+package org.example.tasknexus.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.tasknexus.dto.GlobalTaskStats;
+import org.example.tasknexus.model.User;
+import org.example.tasknexus.repository.TaskAnalyticsRow;
+import org.example.tasknexus.repository.TaskRepository;
+import org.example.tasknexus.repository.UserRepository;
+import org.example.tasknexus.util.LogHistogram;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * GlobalAnalyticsService
+ * Cross-user analytics for admins. The tasks table is split into primary-key ranges that are
+ * scanned in parallel on a dedicated fork-join pool; each range folds its rows into a fixed-size
+ * GlobalTaskStats and the partials are merged pairwise, so memory stays bounded by
+ * (parallelism x partition size) no matter how many tasks exist.
+ */
+@Slf4j
+@Service
+public class GlobalAnalyticsService {
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TaskCounterService taskCounterService;
+
+    @Value("${analytics.global.parallelism:0}")
+    private int parallelism;
+
+    @Value("${analytics.global.partition-size:20000}")
+    private long partitionSize;
+
+    @Value("${analytics.global.top-users:10}")
+    private int topUsers;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    public void start() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(threads);
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Aggregate every task in the system
+     */
+    public Map<String, Object> getGlobalStats() {
+        long started = System.currentTimeMillis();
+        Long minId = taskRepository.findMinId();
+        Long maxId = taskRepository.findMaxId();
+
+        GlobalTaskStats stats = minId == null
+                ? newPartial()
+                : pool.invoke(new RangeScan(minId, maxId + 1, LocalDateTime.now()));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("totalTasks", stats.getCounts().total());
+        result.put("tasksByStatus", stats.getCounts().statusMap());
+        result.put("tasksByPriority", stats.getCounts().priorityMap());
+        result.put("overdueTasks", stats.getOverdueTasks());
+        result.put("leadTime", summarize(stats.getLeadTime()));
+        result.put("dueDateSlip", summarize(stats.getDueDateSlip()));
+        result.put("topUsers", topUsers(stats));
+        result.put("partitions", stats.getPartitions());
+        result.put("elapsedMs", System.currentTimeMillis() - started);
+
+        log.info("Global analytics computed over {} tasks in {} partitions ({} ms)",
+                stats.getCounts().total(), stats.getPartitions(), System.currentTimeMillis() - started);
+        return result;
+    }
+
+    /**
+     * Candidates from the heavy-hitter summary, ranked by their exact counter totals.
+     * Names and totals are fetched for all candidates at once rather than per user.
+     */
+    private List<Map<String, Object>> topUsers(GlobalTaskStats stats) {
+        List<Long> candidates = stats.getTopUsers().top(topUsers * 4);
+        Map<Long, String> usernames = new HashMap<>();
+        for (User user : userRepository.findAllById(candidates)) {
+            usernames.put(user.getId(), user.getUsername());
+        }
+        Map<Long, Long> totals = taskCounterService.getTotals(candidates);
+
+        List<Map<String, Object>> users = new ArrayList<>();
+        for (Long userId : candidates) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("userId", userId);
+            entry.put("username", usernames.get(userId));
+            entry.put("taskCount", totals.getOrDefault(userId, 0L));
+            users.add(entry);
+        }
+
+        users.sort((a, b) -> Long.compare((Long) b.get("taskCount"), (Long) a.get("taskCount")));
+        return users.size() > topUsers ? new ArrayList<>(users.subList(0, topUsers)) : users;
+    }
+
+    private Map<String, Object> summarize(LogHistogram histogram) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", histogram.getTotalCount());
+        summary.put("p50Seconds", histogram.percentile(50));
+        summary.put("p90Seconds", histogram.percentile(90));
+        summary.put("p99Seconds", histogram.percentile(99));
+        return summary;
+    }
+
+    private GlobalTaskStats newPartial() {
+        // Retain comfortably more candidates than reported so the true top users survive merging
+        return new GlobalTaskStats(Math.max(64, topUsers * 16));
+    }
+
+    /**
+     * Splits [fromId, toId) in half until it fits one partition, then scans it
+     */
+    private class RangeScan extends RecursiveTask<GlobalTaskStats> {
+
+        private final long fromId;
+        private final long toId;
+        private final LocalDateTime now;
+
+        RangeScan(long fromId, long toId, LocalDateTime now) {
+            this.fromId = fromId;
+            this.toId = toId;
+            this.now = now;
+        }
+
+        @Override
+        protected GlobalTaskStats compute() {
+            if (toId - fromId <= partitionSize) {
+                return scan();
+            }
+
+            long middle = fromId + (toId - fromId) / 2;
+            RangeScan left = new RangeScan(fromId, middle, now);
+            RangeScan right = new RangeScan(middle, toId, now);
+            left.fork();
+            GlobalTaskStats rightStats = right.compute();
+            return left.join().merge(rightStats);
+        }
+
+        private GlobalTaskStats scan() {
+            GlobalTaskStats partial = newPartial();
+            // Projection rows are not managed entities, so nothing accumulates in a persistence context
+            List<TaskAnalyticsRow> rows = taskRepository.findAnalyticsRowsInRange(fromId, toId);
+            for (TaskAnalyticsRow row : rows) {
+                partial.add(row, now);
+            }
+            partial.partitionDone();
+            return partial;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package org.example.tasknexus.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.example.tasknexus.storage.StorageBackend;
+import org.example.tasknexus.util.FrequencySketch;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * HotFileCache
+ * Read-only memory mappings of the most frequently downloaded local files, used when a download
+ * cannot go out through sendfile. Access frequency is tracked in a small aging sketch: a file is
+ * only mapped once it has been requested often enough, and only displaces the least recently used
+ * mappings if it is requested more often than they are. Total mapped bytes stay under a budget.
+ * Files are mapped outside the lock, so a slow open or map does not hold up lookups of other files.
+ * Mappings are dropped when their file is deleted; the pages are released once the buffer is
+ * garbage collected.
+ */
+@Slf4j
+@Service
+public class HotFileCache {
+
+    @Autowired
+    private StorageBackend storage;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${file.mmap-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${file.mmap-cache.max-bytes:268435456}")
+    private long maxBytes;
+
+    @Value("${file.mmap-cache.min-file-size:65536}")
+    private long minFileSize;
+
+    @Value("${file.mmap-cache.max-file-size:67108864}")
+    private long maxFileSize;
+
+    @Value("${file.mmap-cache.min-frequency:3}")
+    private int minFrequency;
+
+    @Value("${file.mmap-cache.tracked-files:10000}")
+    private int trackedFiles;
+
+    /** Access order, so iteration starts at the least recently used mapping */
+    private final LinkedHashMap<Path, MappedByteBuffer> mappings = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Files being mapped outside the lock */
+    private final Map<Path, Reservation> inFlight = new HashMap<>();
+
+    /** Guards the maps and byte counts; never held while a file is opened or mapped */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private FrequencySketch frequencies;
+
+    private long mappedBytes;
+
+    private long reservedBytes;
+
+    private Counter hits;
+
+    private Counter misses;
+
+    private Counter evictions;
+
+    @PostConstruct
+    public void init() {
+        frequencies = new FrequencySketch(trackedFiles);
+        // A single mapping is limited to 2 GB
+        maxFileSize = Math.min(maxFileSize, Integer.MAX_VALUE);
+
+        hits = Counter.builder("storage.mmap.requests")
+                .description("Downloads served from or looked up in the mapped file cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        misses = Counter.builder("storage.mmap.requests")
+                .description("Downloads served from or looked up in the mapped file cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        evictions = Counter.builder("storage.mmap.evictions")
+                .description("Mappings evicted to stay within the mapped bytes budget")
+                .register(meterRegistry);
+        Gauge.builder("storage.mmap.mapped.bytes", this, HotFileCache::getMappedBytes)
+                .description("Bytes currently memory-mapped by the cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("storage.mmap.entries", this, HotFileCache::size)
+                .description("Files currently memory-mapped by the cache")
+                .register(meterRegistry);
+        Gauge.builder("storage.mmap.hit.ratio", this, HotFileCache::hitRatio)
+                .description("Share of lookups answered from an existing mapping since startup")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Mapping of a file's full content, if it is hot enough to be cached. The returned buffer is a
+     * private view; callers may move its position and limit freely. The file is opened and mapped
+     * outside the lock, with its bytes reserved against the budget meanwhile.
+     */
+    public Optional<ByteBuffer> get(Path file, long size) {
+        if (!enabled || size < minFileSize || size > maxFileSize) {
+            return Optional.empty();
+        }
+
+        Path key = file.toAbsolutePath().normalize();
+        Reservation reservation = new Reservation(size);
+        lock.lock();
+        try {
+            frequencies.increment(key);
+            MappedByteBuffer mapped = mappings.get(key);
+            if (mapped != null && mapped.capacity() == size) {
+                hits.increment();
+                return Optional.of(mapped.duplicate());
+            }
+            misses.increment();
+
+            if (mapped != null) {
+                // Replaced under the same name; never the case for content-addressed blobs
+                remove(key);
+            }
+            // Another request is already mapping it; this one is served without the cache
+            if (inFlight.containsKey(key) || !admit(key, size)) {
+                return Optional.empty();
+            }
+            inFlight.put(key, reservation);
+            reservedBytes += size;
+        } finally {
+            lock.unlock();
+        }
+
+        MappedByteBuffer mapped = map(key, size);
+
+        lock.lock();
+        try {
+            // Still ours unless the file was invalidated while it was being mapped
+            boolean current = inFlight.remove(key, reservation);
+            if (current) {
+                reservedBytes -= size;
+            }
+            if (mapped == null || !current) {
+                return Optional.empty();
+            }
+            mappings.put(key, mapped);
+            mappedBytes += size;
+            return Optional.of(mapped.duplicate());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drop the mapping of a local file that is being deleted or moved
+     */
+    public void invalidate(Path file) {
+        Path key = file.toAbsolutePath().normalize();
+        lock.lock();
+        try {
+            remove(key);
+            Reservation reservation = inFlight.remove(key);
+            if (reservation != null) {
+                reservedBytes -= reservation.size;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drop the mapping of a storage object, if the backend keeps it on local disk
+     */
+    public void invalidate(String storageKey) {
+        storage.localPath(storageKey).ifPresent(this::invalidate);
+    }
+
+    /**
+     * Bytes currently mapped
+     */
+    public long getMappedBytes() {
+        lock.lock();
+        try {
+            return mappedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of mapped files
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return mappings.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double hitRatio() {
+        double lookups = hits.count() + misses.count();
+        return lookups == 0 ? 0.0 : hits.count() / lookups;
+    }
+
+    /**
+     * Decide whether to map a file, evicting least recently used mappings that are accessed less
+     * often than it. Nothing is evicted unless the candidate fits once they are gone.
+     */
+    private boolean admit(Path key, long size) {
+        int frequency = frequencies.frequency(key);
+        if (frequency < minFrequency || size > maxBytes) {
+            return false;
+        }
+
+        long needed = mappedBytes + reservedBytes + size - maxBytes;
+        if (needed <= 0) {
+            return true;
+        }
+
+        long freed = 0;
+        for (Map.Entry<Path, MappedByteBuffer> entry : mappings.entrySet()) {
+            if (freed >= needed) {
+                break;
+            }
+            if (frequencies.frequency(entry.getKey()) >= frequency) {
+                return false;
+            }
+            freed += entry.getValue().capacity();
+        }
+        if (freed < needed) {
+            return false;
+        }
+
+        Iterator<Map.Entry<Path, MappedByteBuffer>> victims = mappings.entrySet().iterator();
+        while (needed > 0) {
+            long victimSize = victims.next().getValue().capacity();
+            victims.remove();
+            mappedBytes -= victimSize;
+            needed -= victimSize;
+            evictions.increment();
+        }
+        return true;
+    }
+
+    /**
+     * Map a file read-only, or null if it cannot be mapped or no longer has the expected size
+     */
+    MappedByteBuffer map(Path key, long size) {
+        try (FileChannel channel = FileChannel.open(key, StandardOpenOption.READ)) {
+            if (channel.size() != size) {
+                return null;
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (IOException e) {
+            log.warn("Could not map {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void remove(Path key) {
+        MappedByteBuffer removed = mappings.remove(key);
+        if (removed != null) {
+            mappedBytes -= removed.capacity();
+        }
+    }
+
+    /**
+     * Budget held for a file while it is being mapped outside the lock; compared by identity, so a
+     * mapping that finishes after its file was invalidated and requested again is not mistaken for the new one
+     */
+    private static final class Reservation {
+
+        private final long size;
+
+        private Reservation(long size) {
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.example.tasknexus.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.tasknexus.model.Task;
+import org.example.tasknexus.model.TaskHistogram;
+import org.example.tasknexus.model.TaskHistogramId;
+import org.example.tasknexus.model.TaskHistogramMetric;
+import org.example.tasknexus.model.TaskPriority;
+import org.example.tasknexus.repository.TaskHistogramRepository;
+import org.example.tasknexus.repository.UserRepository;
+import org.example.tasknexus.util.LogHistogram;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LeadTimeService
+ * Records task lead time and due-date slip into per-user log histograms and reports percentiles
+ */
+@Slf4j
+@Service
+public class LeadTimeService {
+
+    @Autowired
+    private TaskHistogramRepository taskHistogramRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    /**
+     * Record a completed task
+     */
+    @Transactional
+    public void recordCompletion(Long userId, Task task) {
+        LocalDateTime completedAt = task.getCompletedAt();
+        if (completedAt == null || task.getCreatedAt() == null) {
+            return;
+        }
+
+        // Serialize per user so concurrent completions do not overwrite each other's histogram
+        userRepository.findByIdForUpdate(userId);
+
+        String priority = task.getPriority().name();
+        long leadTime = Duration.between(task.getCreatedAt(), completedAt).getSeconds();
+        record(userId, TaskHistogramMetric.LEAD_TIME, TaskHistogram.SCOPE_ALL, leadTime);
+        record(userId, TaskHistogramMetric.LEAD_TIME, priority, leadTime);
+
+        if (task.getDueDate() != null) {
+            long slip = Math.max(0, Duration.between(task.getDueDate(), completedAt).getSeconds());
+            record(userId, TaskHistogramMetric.DUE_DATE_SLIP, TaskHistogram.SCOPE_ALL, slip);
+            record(userId, TaskHistogramMetric.DUE_DATE_SLIP, priority, slip);
+        }
+    }
+
+    /**
+     * Get p50/p90/p99 (seconds) per metric, overall and by priority
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getPercentiles(Long userId) {
+        List<TaskHistogram> rows = taskHistogramRepository.findByUserId(userId);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (TaskHistogramMetric metric : TaskHistogramMetric.values()) {
+            Map<String, Object> overall = null;
+            Map<String, Object> byPriority = new LinkedHashMap<>();
+
+            for (TaskHistogram row : rows) {
+                if (row.getMetric() != metric) {
+                    continue;
+                }
+                Map<String, Object> summary = summarize(LogHistogram.fromBytes(row.getData()));
+                if (TaskHistogram.SCOPE_ALL.equals(row.getScope())) {
+                    overall = summary;
+                } else {
+                    byPriority.put(row.getScope(), summary);
+                }
+            }
+
+            Map<String, Object> metricResult = new LinkedHashMap<>();
+            metricResult.put("overall", overall != null ? overall : summarize(new LogHistogram()));
+            for (TaskPriority priority : TaskPriority.values()) {
+                byPriority.putIfAbsent(priority.name(), summarize(new LogHistogram()));
+            }
+            metricResult.put("byPriority", byPriority);
+            result.put(metricKey(metric), metricResult);
+        }
+        return result;
+    }
+
+    private void record(Long userId, TaskHistogramMetric metric, String scope, long seconds) {
+        TaskHistogram row = taskHistogramRepository.findById(new TaskHistogramId(userId, metric, scope))
+                .orElseGet(() -> new TaskHistogram(userId, metric, scope, null));
+
+        LogHistogram histogram = LogHistogram.fromBytes(row.getData());
+        histogram.record(seconds);
+        row.setData(histogram.toBytes());
+        taskHistogramRepository.save(row);
+    }
+
+    private Map<String, Object> summarize(LogHistogram histogram) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", histogram.getTotalCount());
+        summary.put("p50Seconds", histogram.percentile(50));
+        summary.put("p90Seconds", histogram.percentile(90));
+        summary.put("p99Seconds", histogram.percentile(99));
+        return summary;
+    }
+
+    private String metricKey(TaskHistogramMetric metric) {
+        return metric == TaskHistogramMetric.LEAD_TIME ? "leadTime" : "dueDateSlip";
+    }
+}
@@ -0,0 +1,305 @@
+package org.example.tasknexus.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * MailDeliveryEngine
+ * Queues outgoing mail and sends it in batches over a small pool of long-lived SMTP connections
+ */
+@Slf4j
+@Service
+public class MailDeliveryEngine {
+
+    private static final long POLL_INTERVAL_MS = 500;
+
+    private static final long MAX_BACKOFF_MS = 5 * 60 * 1000; // 5 minutes
+
+    @Autowired
+    private JavaMailSender mailSender;
+
+    @Value("${mail.delivery.connections:2}")
+    private int connections;
+
+    @Value("${mail.delivery.batch-size:20}")
+    private int batchSize;
+
+    @Value("${mail.delivery.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${mail.delivery.offer-timeout-ms:5000}")
+    private long offerTimeoutMs;
+
+    @Value("${mail.delivery.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${mail.delivery.initial-backoff-ms:1000}")
+    private long initialBackoffMs;
+
+    @Value("${mail.delivery.idle-timeout-ms:30000}")
+    private long idleTimeoutMs;
+
+    private BlockingQueue<PendingMail> queue;
+
+    private ExecutorService workers;
+
+    private ScheduledExecutorService retryScheduler;
+
+    /** Mail waiting in the retry scheduler, failed on shutdown instead of being dropped silently */
+    private final Set<PendingMail> retrying = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean running;
+
+    /**
+     * Start delivery workers
+     */
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mail-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger threadCount = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(connections, runnable -> {
+            Thread thread = new Thread(runnable, "mail-delivery-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        running = true;
+        for (int i = 0; i < connections; i++) {
+            workers.submit(this::runWorker);
+        }
+        log.info("Mail delivery engine started with {} connections, batch size {}", connections, batchSize);
+    }
+
+    /**
+     * Drain the queue and close connections; mail still waiting for a retry or a worker fails its future
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        retryScheduler.shutdownNow();
+        int retries = failAll(retrying, "Mail delivery engine stopped before retrying");
+        if (retries > 0) {
+            log.warn("Mail delivery engine stopped with {} pending retries", retries);
+        }
+
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+        int undelivered = failAll(queue, "Mail delivery engine stopped before sending");
+        if (undelivered > 0) {
+            log.warn("Mail delivery engine stopped with {} undelivered messages", undelivered);
+        }
+    }
+
+    /**
+     * Queue a message for delivery.
+     * Blocks for up to mail.delivery.offer-timeout-ms when the queue is full, then rejects the message.
+     * The returned future completes once the message is accepted by the SMTP server, or fails after the last attempt.
+     */
+    public CompletableFuture<Void> submit(MimeMessage message) {
+        return submit(message, maxAttempts);
+    }
+
+    /**
+     * Queue a message for delivery with its own attempt limit.
+     * Callers that retry on their own pass 1, so the message is tried exactly once per call.
+     */
+    public CompletableFuture<Void> submit(MimeMessage message, int attempts) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        try {
+            if (!queue.offer(new PendingMail(message, 0, Math.max(1, attempts), result),
+                    offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new RejectedExecutionException("Mail queue is full (" + queueCapacity + " messages)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while queueing mail", e);
+        }
+        return result;
+    }
+
+    /**
+     * Number of messages waiting to be sent
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    private void runWorker() {
+        Transport transport = null;
+        long lastUsed = System.currentTimeMillis();
+        List<PendingMail> batch = new ArrayList<>(batchSize);
+
+        try {
+            while (running || !queue.isEmpty()) {
+                PendingMail first = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    // Let idle connections go before the server drops them
+                    if (transport != null && System.currentTimeMillis() - lastUsed > idleTimeoutMs) {
+                        transport = close(transport);
+                    }
+                    continue;
+                }
+
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                transport = sendBatch(transport, batch);
+                batch.clear();
+                lastUsed = System.currentTimeMillis();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            close(transport);
+        }
+    }
+
+    private Transport sendBatch(Transport transport, List<PendingMail> batch) {
+        if (!(mailSender instanceof JavaMailSenderImpl sender)) {
+            sendWithoutPooling(batch);
+            return null;
+        }
+
+        for (PendingMail mail : batch) {
+            try {
+                transport = connect(sender, transport);
+                MimeMessage message = mail.message();
+                message.saveChanges();
+                transport.sendMessage(message, message.getAllRecipients());
+                mail.result().complete(null);
+            } catch (MessagingException | RuntimeException e) {
+                retry(mail, e);
+                // Connection state is unknown after a failure; start a fresh session for the rest
+                transport = close(transport);
+            }
+        }
+        log.debug("Delivered batch of {} messages", batch.size());
+        return transport;
+    }
+
+    private void sendWithoutPooling(List<PendingMail> batch) {
+        for (PendingMail mail : batch) {
+            try {
+                mailSender.send(mail.message());
+                mail.result().complete(null);
+            } catch (RuntimeException e) {
+                // MailException, or anything else the sender throws; it must not take the worker down
+                retry(mail, e);
+            }
+        }
+    }
+
+    private Transport connect(JavaMailSenderImpl sender, Transport transport) throws MessagingException {
+        if (transport != null && transport.isConnected()) {
+            return transport;
+        }
+        close(transport);
+
+        String username = sender.getUsername();
+        String password = sender.getPassword();
+        if ("".equals(username)) {
+            username = null;
+            if ("".equals(password)) {
+                password = null;
+            }
+        }
+
+        Transport connected = sender.getSession().getTransport(
+                sender.getProtocol() != null ? sender.getProtocol() : "smtp");
+        connected.connect(sender.getHost(), sender.getPort(), username, password);
+        return connected;
+    }
+
+    private Transport close(Transport transport) {
+        if (transport != null) {
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("Failed to close SMTP connection: {}", e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private void retry(PendingMail mail, Exception cause) {
+        int attempts = mail.attempts() + 1;
+        if (attempts >= mail.maxAttempts()) {
+            if (mail.maxAttempts() > 1) {
+                log.error("Giving up on mail after {} attempts: {}", attempts, cause.getMessage());
+            }
+            mail.result().completeExceptionally(cause);
+            return;
+        }
+
+        long delay = Math.min(initialBackoffMs << (attempts - 1), MAX_BACKOFF_MS);
+        log.warn("Mail delivery failed (attempt {}), retrying in {} ms: {}", attempts, delay, cause.getMessage());
+        scheduleRequeue(new PendingMail(mail.message(), attempts, mail.maxAttempts(), mail.result()), delay);
+    }
+
+    private void scheduleRequeue(PendingMail mail, long delay) {
+        retrying.add(mail);
+        try {
+            retryScheduler.schedule(() -> {
+                // Retries never block; if the queue is full try again after the same delay
+                if (queue.offer(mail)) {
+                    retrying.remove(mail);
+                } else {
+                    scheduleRequeue(mail, delay);
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.error("Dropping mail retry during shutdown");
+            retrying.remove(mail);
+            mail.result().completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Remove every mail from a collection and fail its future
+     */
+    private int failAll(Collection<PendingMail> pending, String reason) {
+        int failed = 0;
+        for (Iterator<PendingMail> it = pending.iterator(); it.hasNext(); ) {
+            PendingMail mail = it.next();
+            it.remove();
+            if (mail.result().completeExceptionally(new RejectedExecutionException(reason))) {
+                failed++;
+            }
+        }
+        return failed;
+    }
+
+    private record PendingMail(MimeMessage message, int attempts, int maxAttempts, CompletableFuture<Void> result) {
+    }
+}
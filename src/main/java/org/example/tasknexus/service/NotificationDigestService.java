@@ -0,0 +1,202 @@
+package org.example.tasknexus.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.tasknexus.dto.TaskNotification;
+import org.example.tasknexus.model.NotificationMode;
+import org.example.tasknexus.model.Task;
+import org.example.tasknexus.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * NotificationDigestService
+ * Coalesces task notifications per user in front of EmailService.
+ * Users who opt into DIGEST mode get one email per window (notifications.digest.window-ms) or per
+ * notifications.digest.max-items events, whichever comes first; IMMEDIATE users (the default) get one
+ * email per event.
+ */
+@Slf4j
+@Service
+public class NotificationDigestService {
+
+    @Autowired
+    private EmailService emailService;
+
+    @Value("${notifications.digest.window-ms:300000}")
+    private long windowMs;
+
+    @Value("${notifications.digest.max-items:50}")
+    private int maxItems;
+
+    private final Map<Long, PendingDigest> pending = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService flusher;
+
+    /**
+     * Start the window flusher
+     */
+    @PostConstruct
+    public void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notification-digest");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushDue, 1, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Flush everything still buffered
+     */
+    @PreDestroy
+    public void stop() {
+        flusher.shutdownNow();
+        for (Long userId : pending.keySet()) {
+            PendingDigest digest = pending.remove(userId);
+            if (digest != null) {
+                send(digest);
+            }
+        }
+    }
+
+    /**
+     * Task created notification
+     */
+    public void taskCreated(User user, Task task) {
+        if (isImmediate(user)) {
+            emailService.sendTaskCreatedEmail(user, task);
+            return;
+        }
+        addAfterCommit(user, TaskNotification.of(TaskNotification.Type.CREATED, task));
+    }
+
+    /**
+     * Task completed notification
+     */
+    public void taskCompleted(User user, Task task) {
+        if (isImmediate(user)) {
+            emailService.sendTaskCompletedEmail(user, task);
+            return;
+        }
+        addAfterCommit(user, TaskNotification.of(TaskNotification.Type.COMPLETED, task));
+    }
+
+    /**
+     * Task reminder notification
+     */
+    public void taskReminder(User user, Task task) {
+        if (isImmediate(user)) {
+            emailService.sendTaskReminderEmail(user, task);
+            return;
+        }
+        addAfterCommit(user, TaskNotification.of(TaskNotification.Type.REMINDER, task));
+    }
+
+    private boolean isImmediate(User user) {
+        // Digests are opt-in: buffered items live in memory and are lost if the node crashes
+        return user.getNotificationMode() != NotificationMode.DIGEST;
+    }
+
+    /**
+     * Buffer the notification once the surrounding transaction commits, so rolled-back changes are not reported
+     */
+    private void addAfterCommit(User user, TaskNotification notification) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(user, notification);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(user, notification);
+            }
+        });
+    }
+
+    private void add(User user, TaskNotification notification) {
+        AtomicReference<PendingDigest> full = new AtomicReference<>();
+
+        pending.compute(user.getId(), (userId, digest) -> {
+            if (digest == null) {
+                digest = new PendingDigest(System.currentTimeMillis());
+            }
+            digest.user = user;
+            digest.items.add(notification);
+
+            if (digest.items.size() >= maxItems) {
+                full.set(digest);
+                return null;
+            }
+            return digest;
+        });
+
+        if (full.get() != null) {
+            // Often called from afterCommit, where the finished transaction is still bound; queue from the flusher instead
+            PendingDigest digest = full.get();
+            try {
+                flusher.execute(() -> send(digest));
+            } catch (RejectedExecutionException e) {
+                send(digest);
+            }
+        }
+    }
+
+    /**
+     * Send digests whose window has elapsed
+     */
+    private void flushDue() {
+        long now = System.currentTimeMillis();
+
+        for (Long userId : pending.keySet()) {
+            AtomicReference<PendingDigest> due = new AtomicReference<>();
+            pending.computeIfPresent(userId, (id, digest) -> {
+                if (now - digest.firstAt < windowMs) {
+                    return digest;
+                }
+                due.set(digest);
+                return null;
+            });
+
+            if (due.get() != null) {
+                send(due.get());
+            }
+        }
+    }
+
+    private void send(PendingDigest digest) {
+        try {
+            emailService.sendTaskDigestEmail(digest.user, digest.items);
+        } catch (Exception e) {
+            log.error("Failed to send notification digest: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Notifications buffered for one user; only touched inside ConcurrentHashMap.compute
+     */
+    private static class PendingDigest {
+        private final long firstAt;
+        private final List<TaskNotification> items = new ArrayList<>();
+        private User user;
+
+        private PendingDigest(long firstAt) {
+            this.firstAt = firstAt;
+        }
+    }
+}
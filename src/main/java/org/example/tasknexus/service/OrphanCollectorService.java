@@ -0,0 +1,427 @@
+package org.example.tasknexus.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.example.tasknexus.model.Attachment;
+import org.example.tasknexus.repository.AttachmentRepository;
+import org.example.tasknexus.repository.FileBlobRepository;
+import org.example.tasknexus.repository.TaskRepository;
+import org.example.tasknexus.repository.UploadSessionRepository;
+import org.example.tasknexus.storage.StorageBackend;
+import org.example.tasknexus.storage.StoredObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * OrphanCollectorService
+ * Finds upload files that nothing live references and deletes them after a grace period.
+ * Blob objects are listed from the storage backend and the local upload directory is walked
+ * lazily for legacy and partial files; candidates are checked against the database in
+ * batches (blob hashes and their derived files against file_blobs, legacy UUID_taskId files
+ * against tasks, partial files against upload_sessions), so neither side is ever loaded whole.
+ * Staged uploads that were never committed are removed once they are past the grace period.
+ * Deletions are throttled, and a dry run reports what would be removed without touching anything.
+ */
+@Slf4j
+@Service
+public class OrphanCollectorService {
+
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-f]{64}");
+
+    private static final Pattern DERIVED_NAME = Pattern.compile("([0-9a-f]{64})\\..+");
+
+    private static final Pattern LEGACY_NAME = Pattern.compile("[0-9a-f-]{36}_(\\d+)\\.\\w+");
+
+    private static final int SAMPLE_SIZE = 100;
+
+    @Autowired
+    private BlobStoreService blobStoreService;
+
+    @Autowired
+    private StorageBackend storage;
+
+    @Autowired
+    private FileBlobRepository fileBlobRepository;
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private StorageQuotaService storageQuotaService;
+
+    @Autowired
+    private HotFileCache hotFileCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${file.upload-dir:uploads}")
+    private String uploadDir;
+
+    @Value("${file.gc.enabled:true}")
+    private boolean scheduledEnabled;
+
+    @Value("${file.gc.grace-period-ms:86400000}")
+    private long gracePeriodMs;
+
+    @Value("${file.gc.batch-size:500}")
+    private int batchSize;
+
+    @Value("${file.gc.pause-ms:100}")
+    private long pauseMs;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private TransactionTemplate deleteAttachmentTransaction;
+
+    private volatile Map<String, Object> lastReport = Map.of();
+
+    @PostConstruct
+    public void init() {
+        deleteAttachmentTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Claim the collector unless a run is already in progress
+     */
+    public boolean start() {
+        return running.compareAndSet(false, true);
+    }
+
+    /**
+     * Run in the background; call after start() returned true
+     */
+    @Async
+    public void collectAsync(boolean dryRun) {
+        collect(dryRun);
+    }
+
+    /**
+     * Periodic collection
+     */
+    @Scheduled(fixedDelayString = "${file.gc.interval-ms:21600000}",
+               initialDelayString = "${file.gc.initial-delay-ms:600000}")
+    public void scheduledCollect() {
+        if (scheduledEnabled && start()) {
+            collect(false);
+        }
+    }
+
+    /**
+     * Report of the most recent run
+     */
+    public Map<String, Object> getLastReport() {
+        Map<String, Object> report = new LinkedHashMap<>(lastReport);
+        report.put("running", running.get());
+        return report;
+    }
+
+    private void collect(boolean dryRun) {
+        Sweep sweep = new Sweep(dryRun);
+        log.info("Orphan collection started (dry run: {})", dryRun);
+        try {
+            releaseDanglingAttachments(sweep);
+
+            try (Stream<StoredObject> objects = storage.list(BlobStoreService.BLOB_PREFIX + "/")) {
+                for (StoredObject object : (Iterable<StoredObject>) objects::iterator) {
+                    sweep.visitBlobObject(object);
+                }
+            }
+            try (Stream<StoredObject> objects = storage.list(BlobStoreService.STAGING_PREFIX + "/")) {
+                for (StoredObject object : (Iterable<StoredObject>) objects::iterator) {
+                    sweep.visitStagingObject(object);
+                }
+            }
+
+            Path root = Paths.get(uploadDir);
+            if (Files.isDirectory(root)) {
+                Files.walkFileTree(root, sweep);
+            }
+            sweep.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Orphan collection interrupted");
+        } catch (Exception e) {
+            log.error("Orphan collection failed: {}", e.getMessage());
+        } finally {
+            lastReport = sweep.report();
+            running.set(false);
+            log.info("Orphan collection finished: {}", lastReport);
+        }
+    }
+
+    /**
+     * Drop attachment mappings of tasks that no longer exist, crediting their owners' quota and releasing their blobs
+     */
+    private void releaseDanglingAttachments(Sweep sweep) throws IOException {
+        int page = 0;
+        while (true) {
+            List<Attachment> dangling = attachmentRepository.findDangling(
+                    PageRequest.of(sweep.dryRun ? page++ : 0, batchSize));
+            if (dangling.isEmpty()) {
+                return;
+            }
+
+            sweep.danglingAttachments += dangling.size();
+            if (!sweep.dryRun) {
+                deleteAttachmentTransaction.executeWithoutResult(status -> {
+                    attachmentRepository.deleteAll(dangling);
+                    storageQuotaService.attachmentsRemoved(dangling);
+                });
+                for (Attachment attachment : dangling) {
+                    blobStoreService.release(attachment.getBlobHash());
+                }
+            }
+        }
+    }
+
+    /**
+     * One pass over the storage backend and the local upload directory, batching candidates per kind
+     */
+    private class Sweep extends SimpleFileVisitor<Path> {
+
+        private final boolean dryRun;
+        private final Instant cutoff = Instant.now().minusMillis(gracePeriodMs);
+        private final Path blobDir = Paths.get(uploadDir, BlobStoreService.BLOB_PREFIX)
+                .toAbsolutePath().normalize();
+        private final Path stagingDir = Paths.get(uploadDir, BlobStoreService.STAGING_PREFIX)
+                .toAbsolutePath().normalize();
+        private final Path partialDir = Paths.get(uploadDir, ".partial").toAbsolutePath().normalize();
+        private final LocalDateTime startedAt = LocalDateTime.now();
+
+        private final List<Candidate<String>> blobs = new ArrayList<>();
+        private final List<Candidate<String>> derived = new ArrayList<>();
+        private final List<Candidate<Long>> legacy = new ArrayList<>();
+        private final List<Candidate<String>> partials = new ArrayList<>();
+
+        private long scannedFiles;
+        private long recentFiles;
+        private long orphanFiles;
+        private long orphanBytes;
+        private long deletedFiles;
+        private long deletedBytes;
+        private long danglingAttachments;
+        private final List<String> sample = new ArrayList<>();
+
+        Sweep(boolean dryRun) {
+            this.dryRun = dryRun;
+        }
+
+        /**
+         * A blob or a file derived from one, as listed by the storage backend
+         */
+        void visitBlobObject(StoredObject object) throws IOException, InterruptedException {
+            scannedFiles++;
+            if (object.lastModified().isAfter(cutoff)) {
+                recentFiles++;
+                return;
+            }
+
+            String name = object.name();
+            Matcher matcher = DERIVED_NAME.matcher(name);
+            if (SHA256_HEX.matcher(name).matches()) {
+                blobs.add(new Candidate<>(object.key(), name, object.size()));
+            } else if (matcher.matches()) {
+                // Thumbnails and other files generated from a blob
+                derived.add(new Candidate<>(object.key(), matcher.group(1), object.size()));
+            }
+            flushIfFull();
+        }
+
+        /**
+         * A staged upload that was never committed (the request failed between stage and commit)
+         */
+        void visitStagingObject(StoredObject object) throws IOException {
+            scannedFiles++;
+            if (object.lastModified().isAfter(cutoff)) {
+                // Possibly an upload still in flight
+                recentFiles++;
+                return;
+            }
+            orphan(new Candidate<>(object.key(), object.key(), object.size()), () -> storage.delete(object.key()));
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) {
+            // Covered through the storage backend listing when it is the local one
+            Path absolute = dir.toAbsolutePath().normalize();
+            return absolute.equals(blobDir) || absolute.equals(stagingDir)
+                    ? FileVisitResult.SKIP_SUBTREE
+                    : FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+            scannedFiles++;
+            if (attributes.lastModifiedTime().toInstant().isAfter(cutoff)) {
+                // Possibly an upload still in flight
+                recentFiles++;
+                return FileVisitResult.CONTINUE;
+            }
+
+            Path absolute = file.toAbsolutePath().normalize();
+            String name = file.getFileName().toString();
+            if (absolute.startsWith(partialDir)) {
+                if (name.endsWith(".part")) {
+                    String sessionId = name.substring(0, name.length() - 5);
+                    partials.add(new Candidate<>(file.toString(), sessionId, attributes.size()));
+                }
+            } else {
+                Matcher matcher = LEGACY_NAME.matcher(name);
+                if (matcher.matches()) {
+                    legacy.add(new Candidate<>(file.toString(), Long.parseLong(matcher.group(1)), attributes.size()));
+                }
+            }
+
+            try {
+                flushIfFull();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return FileVisitResult.TERMINATE;
+            }
+            return FileVisitResult.CONTINUE;
+        }
+
+        private void flushIfFull() throws IOException, InterruptedException {
+            if (blobs.size() >= batchSize || derived.size() >= batchSize
+                    || legacy.size() >= batchSize || partials.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException e) {
+            log.warn("Orphan collector could not read {}: {}", file, e.getMessage());
+            return FileVisitResult.CONTINUE;
+        }
+
+        /**
+         * Check all pending candidates against the database and remove the unreferenced ones
+         */
+        void flush() throws IOException, InterruptedException {
+            if (!blobs.isEmpty()) {
+                Set<String> referenced = new HashSet<>(fileBlobRepository.findReferencedHashes(
+                        blobs.stream().map(Candidate::key).toList()));
+                for (Candidate<String> blob : blobs) {
+                    if (!referenced.contains(blob.key())) {
+                        orphan(blob, () -> blobStoreService.deleteIfOrphaned(blob.key(), blob.location()));
+                    }
+                }
+                blobs.clear();
+            }
+
+            if (!derived.isEmpty()) {
+                Set<String> referenced = new HashSet<>(fileBlobRepository.findReferencedHashes(
+                        derived.stream().map(Candidate::key).distinct().toList()));
+                for (Candidate<String> file : derived) {
+                    if (!referenced.contains(file.key())) {
+                        orphan(file, () -> {
+                            hotFileCache.invalidate(file.location());
+                            return storage.delete(file.location());
+                        });
+                    }
+                }
+                derived.clear();
+            }
+
+            if (!legacy.isEmpty()) {
+                Set<Long> liveTasks = new HashSet<>(taskRepository.findExistingIds(
+                        legacy.stream().map(Candidate::key).distinct().toList()));
+                for (Candidate<Long> file : legacy) {
+                    if (!liveTasks.contains(file.key())) {
+                        orphan(file, () -> {
+                            hotFileCache.invalidate(Paths.get(file.location()));
+                            return Files.deleteIfExists(Paths.get(file.location()));
+                        });
+                    }
+                }
+                legacy.clear();
+            }
+
+            if (!partials.isEmpty()) {
+                for (Candidate<String> partial : partials) {
+                    if (!uploadSessionRepository.existsById(partial.key())) {
+                        orphan(partial, () -> Files.deleteIfExists(Paths.get(partial.location())));
+                    }
+                }
+                partials.clear();
+            }
+
+            if (!dryRun) {
+                Thread.sleep(pauseMs);
+            }
+        }
+
+        private void orphan(Candidate<?> candidate, Deletion deletion) throws IOException {
+            orphanFiles++;
+            orphanBytes += candidate.size();
+            if (sample.size() < SAMPLE_SIZE) {
+                sample.add(candidate.location());
+            }
+
+            if (!dryRun && deletion.delete()) {
+                deletedFiles++;
+                deletedBytes += candidate.size();
+            }
+        }
+
+        Map<String, Object> report() {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("dryRun", dryRun);
+            report.put("startedAt", startedAt);
+            report.put("finishedAt", LocalDateTime.now());
+            report.put("scannedFiles", scannedFiles);
+            report.put("withinGracePeriod", recentFiles);
+            report.put("orphanFiles", orphanFiles);
+            report.put("orphanBytes", orphanBytes);
+            report.put("deletedFiles", deletedFiles);
+            report.put("deletedBytes", deletedBytes);
+            report.put("danglingAttachments", danglingAttachments);
+            report.put("sample", sample);
+            return report;
+        }
+    }
+
+    /**
+     * location is a storage key for backend objects and a path for local files
+     */
+    private record Candidate<K>(String location, K key, long size) {
+    }
+
+    @FunctionalInterface
+    private interface Deletion {
+        boolean delete() throws IOException;
+    }
+}
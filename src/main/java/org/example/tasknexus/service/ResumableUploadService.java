@@ -0,0 +1,280 @@
+package org.example.tasknexus.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.tasknexus.exception.ConflictException;
+import org.example.tasknexus.exception.ResourceNotFoundException;
+import org.example.tasknexus.exception.ValidationException;
+import org.example.tasknexus.model.UploadSession;
+import org.example.tasknexus.repository.UploadSessionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ResumableUploadService
+ * Chunked attachment uploads: a session is created with the final size, byte ranges are written
+ * at their offset into a partial file and acknowledged one by one, and the finished file is handed
+ * to the blob store. Each chunk streams through one fixed buffer, so memory per upload
+ * does not depend on file size.
+ */
+@Slf4j
+@Service
+public class ResumableUploadService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private FileService fileService;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private StorageQuotaService storageQuotaService;
+
+    @Value("${file.resumable.max-size:1073741824}")
+    private long maxSize;
+
+    @Value("${file.resumable.max-chunk-size:8388608}")
+    private long maxChunkSize;
+
+    @Value("${file.resumable.session-ttl-ms:86400000}")
+    private long sessionTtlMs;
+
+    /** One lock per live upload; removed when the session is completed, cancelled or purged */
+    private final ConcurrentHashMap<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+
+    /**
+     * Start an upload session for a task
+     */
+    public UploadSession createSession(Long userId, Long taskId, String filename, long size) {
+        log.info("Creating upload session for task: {}", taskId);
+
+        // Verify task belongs to user
+        taskService.getTaskById(userId, taskId);
+        fileService.validateUpload(filename, size, maxSize);
+        storageQuotaService.checkQuota(userId, size);
+
+        UploadSession session = new UploadSession();
+        session.setId(UUID.randomUUID().toString());
+        session.setUserId(userId);
+        session.setTaskId(taskId);
+        session.setOriginalFilename(filename);
+        session.setTotalSize(size);
+        session.setReceivedBytes(0L);
+        session.setExpiresAt(LocalDateTime.now().plusNanos(sessionTtlMs * 1_000_000));
+        return uploadSessionRepository.save(session);
+    }
+
+    /**
+     * Get a session owned by the user
+     */
+    public UploadSession getSession(Long userId, Long taskId, String uploadId) {
+        UploadSession session = uploadSessionRepository.findById(uploadId)
+                .orElseThrow(() -> new ResourceNotFoundException("Upload not found with ID: " + uploadId));
+
+        if (!session.getUserId().equals(userId) || !session.getTaskId().equals(taskId)) {
+            throw new ResourceNotFoundException("Upload not found with ID: " + uploadId);
+        }
+        return session;
+    }
+
+    /**
+     * Write bytes [start, start + length) from the request body and return the acknowledged offset.
+     * A chunk may not start past the acknowledged offset; the part of a re-sent chunk below it is
+     * read and checksummed but never written, so acknowledged bytes cannot be overwritten.
+     * declaredTotal is the Content-Range total, or -1 when the client sent "*".
+     */
+    public long appendChunk(Long userId, Long taskId, String uploadId, long start, long length, long declaredTotal,
+                            InputStream body, String expectedSha256) throws IOException {
+        if (length <= 0 || length > maxChunkSize) {
+            throw new ValidationException("Chunk size must be between 1 and " + maxChunkSize + " bytes");
+        }
+
+        // Only existing sessions get a lock entry
+        getSession(userId, taskId, uploadId);
+        ReentrantLock lock = lockFor(uploadId);
+        if (!lock.tryLock()) {
+            throw new ConflictException("Another chunk of this upload is being written");
+        }
+
+        try {
+            UploadSession session = getSession(userId, taskId, uploadId);
+            long received = session.getReceivedBytes();
+            if (start > received) {
+                throw new ConflictException("Chunk starts at " + start + " but only " + received + " bytes were received");
+            }
+            if (declaredTotal >= 0 && declaredTotal != session.getTotalSize()) {
+                throw new ValidationException("Content-Range total " + declaredTotal
+                        + " does not match the upload size " + session.getTotalSize());
+            }
+            if (start + length > session.getTotalSize()) {
+                throw new ValidationException("Chunk extends past the declared upload size");
+            }
+
+            String actualSha256 = writeChunk(fileService.getPartialPath(uploadId), start, length, received, body);
+            if (expectedSha256 != null && !expectedSha256.equalsIgnoreCase(actualSha256)) {
+                // Offset is not advanced, so the client resends the same range
+                throw new ValidationException("Chunk checksum mismatch");
+            }
+
+            long newOffset = Math.max(received, start + length);
+            LocalDateTime expiresAt = LocalDateTime.now().plusNanos(sessionTtlMs * 1_000_000);
+            if (uploadSessionRepository.advanceOffset(uploadId, received, newOffset, expiresAt) == 0) {
+                throw new ConflictException("Upload offset changed concurrently");
+            }
+            return newOffset;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Finish a fully received upload and attach it to the task
+     */
+    public String complete(Long userId, Long taskId, String uploadId) throws IOException {
+        getSession(userId, taskId, uploadId);
+        ReentrantLock lock = lockFor(uploadId);
+        lock.lock();
+        boolean completed = false;
+        try {
+            UploadSession session = getSession(userId, taskId, uploadId);
+            if (session.getReceivedBytes() < session.getTotalSize()) {
+                throw new ConflictException("Upload incomplete: " + session.getReceivedBytes()
+                        + " of " + session.getTotalSize() + " bytes received");
+            }
+
+            String filename = fileService.storeCompletedUpload(
+                    fileService.getPartialPath(uploadId), session.getOriginalFilename(), taskId, userId);
+            taskService.addAttachment(userId, taskId, filename);
+            uploadSessionRepository.delete(session);
+
+            log.info("Resumable upload {} completed as {}", uploadId, filename);
+            completed = true;
+            return filename;
+        } finally {
+            lock.unlock();
+            if (completed) {
+                locks.remove(uploadId, lock);
+            }
+        }
+    }
+
+    /**
+     * Abandon an upload and discard its partial file
+     */
+    public void cancel(Long userId, Long taskId, String uploadId) throws IOException {
+        getSession(userId, taskId, uploadId);
+        ReentrantLock lock = lockFor(uploadId);
+        // Wait for an in-flight chunk rather than deleting the file under it
+        lock.lock();
+        try {
+            UploadSession session = getSession(userId, taskId, uploadId);
+            Files.deleteIfExists(fileService.getPartialPath(uploadId));
+            uploadSessionRepository.delete(session);
+        } finally {
+            lock.unlock();
+            locks.remove(uploadId, lock);
+        }
+    }
+
+    /**
+     * Remove sessions that have not received a chunk within the TTL
+     */
+    @Scheduled(fixedDelayString = "${file.resumable.cleanup-interval-ms:3600000}")
+    public void purgeExpired() {
+        int purged = 0;
+        while (true) {
+            List<UploadSession> expired = uploadSessionRepository.findByExpiresAtBefore(
+                    LocalDateTime.now(), PageRequest.of(0, 100));
+            if (expired.isEmpty()) {
+                break;
+            }
+
+            for (UploadSession session : expired) {
+                try {
+                    Files.deleteIfExists(fileService.getPartialPath(session.getId()));
+                } catch (IOException e) {
+                    log.warn("Failed to delete partial upload {}: {}", session.getId(), e.getMessage());
+                }
+            }
+            uploadSessionRepository.deleteAll(expired);
+            expired.forEach(session -> locks.remove(session.getId()));
+            purged += expired.size();
+        }
+
+        if (purged > 0) {
+            log.info("Purged {} expired upload sessions", purged);
+        }
+    }
+
+    private ReentrantLock lockFor(String uploadId) {
+        return locks.computeIfAbsent(uploadId, id -> new ReentrantLock());
+    }
+
+    /**
+     * Stream exactly length bytes from position start into the partial file, returning their SHA-256.
+     * Bytes below writeFrom are already acknowledged and only go into the digest.
+     */
+    private String writeChunk(Path partialFile, long start, long length, long writeFrom,
+                              InputStream body) throws IOException {
+        MessageDigest digest = sha256();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        byte[] array = buffer.array();
+
+        try (FileChannel channel = FileChannel.open(partialFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                int read = body.read(array, 0, (int) Math.min(array.length, remaining));
+                if (read < 0) {
+                    throw new ValidationException("Chunk body is shorter than its Content-Range");
+                }
+
+                digest.update(array, 0, read);
+                int skip = (int) Math.max(0, Math.min(read, writeFrom - position));
+                position += skip;
+                buffer.clear().limit(read).position(skip);
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+                remaining -= read;
+            }
+
+            if (body.read() >= 0) {
+                throw new ValidationException("Chunk body is longer than its Content-Range");
+            }
+            channel.force(false);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
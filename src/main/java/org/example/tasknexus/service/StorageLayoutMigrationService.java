@@ -0,0 +1,154 @@
+package org.example.tasknexus.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.tasknexus.util.ShardedPaths;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * StorageLayoutMigrationService
+ * Moves files stored flat in the upload directory (and blobs/) into the sharded ab/cd/ layout.
+ * Runs online: readers resolve the sharded path first and fall back to the flat one, and each
+ * move is an atomic rename, so every file stays readable throughout. Work is done in throttled
+ * batches to keep disk I/O available for live traffic.
+ */
+@Slf4j
+@Service
+public class StorageLayoutMigrationService {
+
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-f]{64}");
+
+    @Autowired
+    private BlobStoreService blobStoreService;
+
+    @Autowired
+    private HotFileCache hotFileCache;
+
+    @Value("${file.upload-dir:uploads}")
+    private String uploadDir;
+
+    @Value("${file.migration.batch-size:500}")
+    private int batchSize;
+
+    @Value("${file.migration.pause-ms:200}")
+    private long pauseMs;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong moved = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+
+    /**
+     * Start the migration unless one is already running
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        moved.set(0);
+        failed.set(0);
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+        return true;
+    }
+
+    /**
+     * Migrate both the blob store and legacy flat attachments; call after start() returned true
+     */
+    @Async
+    public void migrate() {
+        log.info("Starting upload layout migration");
+        try {
+            Path blobDir = blobStoreService.blobDir();
+            migrateDirectory(blobDir, name -> SHA256_HEX.matcher(name).matches()
+                    ? ShardedPaths.shard(blobDir, name, name)
+                    : null);
+
+            Path root = Paths.get(uploadDir);
+            migrateDirectory(root, name -> name.startsWith(".") ? null : ShardedPaths.shardByName(root, name));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Upload layout migration interrupted");
+        } catch (IOException e) {
+            log.error("Upload layout migration failed: {}", e.getMessage());
+        } finally {
+            finishedAt = LocalDateTime.now();
+            running.set(false);
+            log.info("Upload layout migration finished: {} moved, {} failed", moved.get(), failed.get());
+        }
+    }
+
+    /**
+     * Current progress
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", running.get());
+        status.put("moved", moved.get());
+        status.put("failed", failed.get());
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        return status;
+    }
+
+    /**
+     * Move each regular file directly under dir to the path chosen by target (null = leave in place)
+     */
+    private void migrateDirectory(Path dir, Function<String, Path> target) throws IOException, InterruptedException {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+
+        int inBatch = 0;
+        // DirectoryStream iterates lazily, so millions of entries are never held in memory
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir, Files::isRegularFile)) {
+            for (Path source : entries) {
+                Path destination = target.apply(source.getFileName().toString());
+                if (destination == null) {
+                    continue;
+                }
+
+                try {
+                    Files.createDirectories(destination.getParent());
+                    move(source, destination);
+                    moved.incrementAndGet();
+                } catch (IOException e) {
+                    failed.incrementAndGet();
+                    log.warn("Failed to migrate {}: {}", source, e.getMessage());
+                }
+
+                if (++inBatch >= batchSize) {
+                    inBatch = 0;
+                    Thread.sleep(pauseMs);
+                }
+            }
+        }
+    }
+
+    private void move(Path source, Path target) throws IOException {
+        hotFileCache.invalidate(source);
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package org.example.tasknexus.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.example.tasknexus.dto.StorageUsageDTO;
+import org.example.tasknexus.exception.QuotaExceededException;
+import org.example.tasknexus.model.Attachment;
+import org.example.tasknexus.model.UserStorageUsage;
+import org.example.tasknexus.repository.AttachmentRepository;
+import org.example.tasknexus.repository.AttachmentUsage;
+import org.example.tasknexus.repository.UserRepository;
+import org.example.tasknexus.repository.UserStorageUsageRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * StorageQuotaService
+ * Per-user attachment bytes and file counts, changed in the same transaction as the attachment
+ * rows they describe and periodically reconciled against the attachments table. Each user pays
+ * for the logical size of their attachments, whether or not the content is shared with others.
+ */
+@Slf4j
+@Service
+public class StorageQuotaService {
+
+    private static final int RECONCILE_PAGE_SIZE = 500;
+
+    @Autowired
+    private UserStorageUsageRepository usageRepository;
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${file.quota.enabled:true}")
+    private boolean enabled;
+
+    @Value("${file.quota.max-bytes:1073741824}")
+    private long maxBytes;
+
+    @Value("${file.quota.max-files:10000}")
+    private long maxFiles;
+
+    private TransactionTemplate newTransaction;
+
+    @PostConstruct
+    public void init() {
+        newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Get a user's usage and what is left of the quota
+     */
+    @Transactional(readOnly = true)
+    public StorageUsageDTO getUsage(Long userId) {
+        UserStorageUsage usage = current(userId);
+        if (!enabled) {
+            return new StorageUsageDTO(usage.getUsedBytes(), usage.getFileCount(), null, null, null, null);
+        }
+        return new StorageUsageDTO(usage.getUsedBytes(), usage.getFileCount(), maxBytes, maxFiles,
+                Math.max(0, maxBytes - usage.getUsedBytes()), Math.max(0, maxFiles - usage.getFileCount()));
+    }
+
+    /**
+     * Reject an upload of this size early, before any of it is stored.
+     * Advisory only: the binding check is the conditional update in attachmentAdded.
+     */
+    @Transactional(readOnly = true)
+    public void checkQuota(Long userId, long bytes) {
+        if (!enabled) {
+            return;
+        }
+        UserStorageUsage usage = current(userId);
+        if (usage.getFileCount() + 1 > maxFiles) {
+            throw new QuotaExceededException("File quota of " + maxFiles + " attachments reached");
+        }
+        if (usage.getUsedBytes() + bytes > maxBytes) {
+            throw new QuotaExceededException("Storage quota exceeded: " + usage.getUsedBytes() + " of "
+                    + maxBytes + " bytes used, upload needs " + bytes);
+        }
+    }
+
+    /**
+     * Charge a new attachment; must run in the transaction that saves it so a rejection rolls both back
+     */
+    @Transactional
+    public void attachmentAdded(Long userId, long size) {
+        long byteLimit = enabled ? maxBytes : Long.MAX_VALUE;
+        long fileLimit = enabled ? maxFiles : Long.MAX_VALUE;
+        if (usageRepository.addWithinQuota(userId, size, 1, byteLimit, fileLimit) > 0) {
+            return;
+        }
+
+        if (!usageRepository.existsById(userId)) {
+            // First attachment since counters existed; charge it on top of the created row
+            createCounters(userId);
+            if (usageRepository.addWithinQuota(userId, size, 1, byteLimit, fileLimit) > 0) {
+                return;
+            }
+        }
+        throw new QuotaExceededException("Storage quota of " + maxBytes + " bytes or "
+                + maxFiles + " attachments exceeded");
+    }
+
+    /**
+     * Credit removed attachments back to their owners; runs in the transaction that deletes them
+     */
+    @Transactional
+    public void attachmentsRemoved(Collection<Attachment> attachments) {
+        Map<Long, long[]> byUser = new HashMap<>();
+        for (Attachment attachment : attachments) {
+            long[] totals = byUser.computeIfAbsent(attachment.getUserId(), id -> new long[2]);
+            totals[0] += attachment.getSize();
+            totals[1]++;
+        }
+
+        byUser.forEach((userId, totals) -> {
+            if (usageRepository.add(userId, -totals[0], -totals[1]) == 0) {
+                createCounters(userId);
+                usageRepository.add(userId, -totals[0], -totals[1]);
+            }
+        });
+    }
+
+    /**
+     * Create a user's counter row from the committed attachments, in its own transaction so the
+     * caller's uncommitted change is applied on top by the usual update. Losing the insert to a
+     * concurrent transaction is fine: its row already counts the same committed attachments.
+     */
+    private void createCounters(Long userId) {
+        try {
+            newTransaction.executeWithoutResult(status -> {
+                AttachmentUsage actual = attachmentRepository.sumUsageByUserId(userId);
+                usageRepository.insert(userId, actual.getUsedBytes(), actual.getFileCount());
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Storage usage counters for user {} were created concurrently", userId);
+        }
+    }
+
+    /**
+     * Reconcile every user's counters with the attachments table
+     */
+    @Scheduled(fixedDelayString = "${file.quota.reconcile-interval-ms:3600000}",
+               initialDelayString = "${file.quota.reconcile-initial-delay-ms:120000}")
+    public void reconcileAll() {
+        log.info("Reconciling storage usage counters");
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long afterId = 0L;
+        int users = 0;
+        int corrected = 0;
+
+        while (true) {
+            List<Long> userIds = userRepository.findIdsAfter(afterId, PageRequest.of(0, RECONCILE_PAGE_SIZE));
+            if (userIds.isEmpty()) {
+                break;
+            }
+
+            for (Long userId : userIds) {
+                try {
+                    if (Boolean.TRUE.equals(transactionTemplate.execute(status -> reconcile(userId)))) {
+                        corrected++;
+                    }
+                } catch (Exception e) {
+                    log.error("Failed to reconcile storage usage for user {}: {}", userId, e.getMessage());
+                }
+                users++;
+            }
+            afterId = userIds.get(userIds.size() - 1);
+        }
+
+        log.info("Storage usage reconciled: {} users checked, {} corrected", users, corrected);
+    }
+
+    /**
+     * Reconcile one user. The counter row is locked first so concurrent uploads and deletes wait
+     * and apply their delta on top of the corrected values. Users without a row are left alone;
+     * their usage is read from the attachments table until the first change.
+     */
+    private boolean reconcile(Long userId) {
+        Optional<UserStorageUsage> row = usageRepository.findByIdForUpdate(userId);
+        if (row.isEmpty()) {
+            return false;
+        }
+
+        UserStorageUsage usage = row.get();
+        AttachmentUsage actual = attachmentRepository.sumUsageByUserId(userId);
+        if (usage.getUsedBytes().equals(actual.getUsedBytes()) && usage.getFileCount().equals(actual.getFileCount())) {
+            return false;
+        }
+
+        log.warn("Storage usage drift for user {}: {} bytes / {} files -> {} bytes / {} files", userId,
+                usage.getUsedBytes(), usage.getFileCount(), actual.getUsedBytes(), actual.getFileCount());
+        usage.setUsedBytes(actual.getUsedBytes());
+        usage.setFileCount(actual.getFileCount());
+        return true;
+    }
+
+    private UserStorageUsage current(Long userId) {
+        return usageRepository.findById(userId).orElseGet(() -> {
+            AttachmentUsage actual = attachmentRepository.sumUsageByUserId(userId);
+            return new UserStorageUsage(userId, actual.getUsedBytes(), actual.getFileCount());
+        });
+    }
+}
@@ -0,0 +1,216 @@
+package org.example.tasknexus.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.tasknexus.dto.TaskCounts;
+import org.example.tasknexus.model.TaskCounter;
+import org.example.tasknexus.model.TaskPriority;
+import org.example.tasknexus.model.TaskStatus;
+import org.example.tasknexus.repository.TaskCounterRepository;
+import org.example.tasknexus.repository.TaskRepository;
+import org.example.tasknexus.repository.UserTaskCount;
+import org.example.tasknexus.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TaskCounterService
+ * Per-user task counters by status x priority, updated in the same transaction as each task
+ * mutation and periodically reconciled against the tasks table. Every change locks the user row
+ * first (as TaskRollupService does), so concurrent changes for one user serialize instead of
+ * locking counter cells in data-dependent order.
+ */
+@Slf4j
+@Service
+public class TaskCounterService {
+
+    private static final int RECONCILE_PAGE_SIZE = 500;
+
+    @Autowired
+    private TaskCounterRepository taskCounterRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Get counts for a user (reads at most one row per status x priority)
+     */
+    @Transactional(readOnly = true)
+    public TaskCounts getCounts(Long userId) {
+        List<TaskCounter> rows = taskCounterRepository.findByUserId(userId);
+        if (rows.isEmpty()) {
+            // Not initialized yet; answer from the tasks table until the first mutation or reconcile
+            return TaskCounts.from(taskRepository.countByStatusAndPriority(userId));
+        }
+
+        TaskCounts counts = new TaskCounts();
+        for (TaskCounter row : rows) {
+            counts.add(row.getStatus(), row.getPriority(), row.getTaskCount());
+        }
+        return counts;
+    }
+
+    /**
+     * Total task count of each of several users, in at most two grouped queries: counter rows first,
+     * then the tasks table for users whose counters are not initialized yet
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Long> getTotals(Collection<Long> userIds) {
+        Map<Long, Long> totals = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return totals;
+        }
+        for (UserTaskCount row : taskCounterRepository.sumByUserIds(userIds)) {
+            totals.put(row.getUserId(), row.getCount());
+        }
+
+        List<Long> uninitialized = userIds.stream().filter(id -> !totals.containsKey(id)).toList();
+        if (!uninitialized.isEmpty()) {
+            for (UserTaskCount row : taskRepository.countByUserIds(uninitialized)) {
+                totals.put(row.getUserId(), row.getCount());
+            }
+            uninitialized.forEach(id -> totals.putIfAbsent(id, 0L));
+        }
+        return totals;
+    }
+
+    /**
+     * Record a created task
+     */
+    @Transactional
+    public void taskAdded(Long userId, TaskStatus status, TaskPriority priority) {
+        userRepository.findByIdForUpdate(userId);
+        if (taskCounterRepository.increment(userId, status, priority, 1) == 0) {
+            initialize(userId);
+        }
+    }
+
+    /**
+     * Record a deleted task
+     */
+    @Transactional
+    public void taskRemoved(Long userId, TaskStatus status, TaskPriority priority) {
+        userRepository.findByIdForUpdate(userId);
+        if (taskCounterRepository.increment(userId, status, priority, -1) == 0) {
+            initialize(userId);
+        }
+    }
+
+    /**
+     * Record a status and/or priority change
+     */
+    @Transactional
+    public void taskChanged(Long userId, TaskStatus oldStatus, TaskPriority oldPriority,
+                            TaskStatus newStatus, TaskPriority newPriority) {
+        if (oldStatus == newStatus && oldPriority == newPriority) {
+            return;
+        }
+        userRepository.findByIdForUpdate(userId);
+        if (taskCounterRepository.increment(userId, oldStatus, oldPriority, -1) == 0) {
+            initialize(userId);
+            return;
+        }
+        taskCounterRepository.increment(userId, newStatus, newPriority, 1);
+    }
+
+    /**
+     * Create all counter rows for a user from the tasks table, unless another transaction already has.
+     * Rows are always created together, so a missing row on update means the user has none yet;
+     * the count query sees the current transaction's task changes, so no delta is applied afterwards.
+     */
+    @Transactional
+    public void initialize(Long userId) {
+        // Under the user row lock a concurrent initializer has either committed or not started
+        userRepository.findByIdForUpdate(userId);
+        if (!taskCounterRepository.findByUserId(userId).isEmpty()) {
+            return;
+        }
+
+        TaskCounts counts = TaskCounts.from(taskRepository.countByStatusAndPriority(userId));
+
+        List<TaskCounter> rows = new ArrayList<>();
+        for (TaskStatus status : TaskStatus.values()) {
+            for (TaskPriority priority : TaskPriority.values()) {
+                rows.add(new TaskCounter(userId, status, priority, counts.get(status, priority)));
+            }
+        }
+        taskCounterRepository.saveAll(rows);
+    }
+
+    /**
+     * Reconcile every user's counters with the tasks table
+     */
+    @Scheduled(fixedDelayString = "${analytics.counters.reconcile-interval-ms:3600000}",
+               initialDelayString = "${analytics.counters.reconcile-initial-delay-ms:60000}")
+    public void reconcileAll() {
+        log.info("Reconciling task counters");
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long afterId = 0L;
+        int users = 0;
+        int corrected = 0;
+
+        while (true) {
+            List<Long> userIds = userRepository.findIdsAfter(afterId, PageRequest.of(0, RECONCILE_PAGE_SIZE));
+            if (userIds.isEmpty()) {
+                break;
+            }
+
+            for (Long userId : userIds) {
+                try {
+                    if (Boolean.TRUE.equals(transactionTemplate.execute(status -> reconcile(userId)))) {
+                        corrected++;
+                    }
+                } catch (Exception e) {
+                    log.error("Failed to reconcile task counters for user {}: {}", userId, e.getMessage());
+                }
+                users++;
+            }
+            afterId = userIds.get(userIds.size() - 1);
+        }
+
+        log.info("Task counters reconciled: {} users checked, {} corrected", users, corrected);
+    }
+
+    /**
+     * Reconcile one user. Locks the user row and then the counter rows, in the same order as
+     * mutations, so they wait and apply their delta on top of the corrected values.
+     */
+    private boolean reconcile(Long userId) {
+        userRepository.findByIdForUpdate(userId);
+        List<TaskCounter> rows = taskCounterRepository.findByUserIdForUpdate(userId);
+        if (rows.isEmpty()) {
+            initialize(userId);
+            return true;
+        }
+
+        TaskCounts actual = TaskCounts.from(taskRepository.countByStatusAndPriority(userId));
+        boolean corrected = false;
+        for (TaskCounter row : rows) {
+            long expected = actual.get(row.getStatus(), row.getPriority());
+            if (row.getTaskCount() != expected) {
+                log.warn("Task counter drift for user {} {}/{}: {} -> {}",
+                        userId, row.getStatus(), row.getPriority(), row.getTaskCount(), expected);
+                row.setTaskCount(expected);
+                corrected = true;
+            }
+        }
+        return corrected;
+    }
+}
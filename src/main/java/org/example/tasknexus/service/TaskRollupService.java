@@ -0,0 +1,247 @@
+package org.example.tasknexus.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.example.tasknexus.dto.TrendPoint;
+import org.example.tasknexus.exception.ValidationException;
+import org.example.tasknexus.model.Task;
+import org.example.tasknexus.model.TaskDailyStats;
+import org.example.tasknexus.model.TaskStatus;
+import org.example.tasknexus.repository.TaskDailyStatsRepository;
+import org.example.tasknexus.repository.TaskRepository;
+import org.example.tasknexus.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * TaskRollupService
+ * Maintains daily created/completed/due rollups per user and answers trend queries from them.
+ * Created and completed counts are history and survive deleting the task; due counts only cover
+ * tasks that are still open (not COMPLETED or CANCELLED), so they are what a past day reports as overdue.
+ */
+@Slf4j
+@Service
+public class TaskRollupService {
+
+    private static final int CREATED = 0;
+    private static final int COMPLETED = 1;
+    private static final int DUE = 2;
+    private static final int COMPLETED_ON_TIME = 3;
+
+    private static final int BACKFILL_PAGE_SIZE = 1000;
+
+    private static final int MAX_RANGE_DAYS = 366 * 5;
+
+    @Autowired
+    private TaskDailyStatsRepository taskDailyStatsRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Apply the difference between two states of a task (null before = created, null after = deleted)
+     */
+    @Transactional
+    public void recordChange(Long userId, Snapshot before, Snapshot after) {
+        Map<LocalDate, long[]> deltas = new TreeMap<>();
+        // A delete only withdraws the task's open due date; its creation and completion still happened
+        contribute(deltas, before, -1, false, after != null);
+        contribute(deltas, after, 1, before == null, true);
+        deltas.values().removeIf(TaskRollupService::isZero);
+
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        // Serialize per user so the update-or-insert below cannot race
+        userRepository.findByIdForUpdate(userId);
+
+        for (Map.Entry<LocalDate, long[]> entry : deltas.entrySet()) {
+            long[] delta = entry.getValue();
+            int updated = taskDailyStatsRepository.increment(userId, entry.getKey(),
+                    delta[CREATED], delta[COMPLETED], delta[DUE], delta[COMPLETED_ON_TIME]);
+            if (updated == 0) {
+                taskDailyStatsRepository.save(toEntity(userId, entry.getKey(), delta));
+            }
+        }
+    }
+
+    /**
+     * Get trend points between two days (inclusive), by "day" or "week"
+     */
+    @Transactional(readOnly = true)
+    public List<TrendPoint> getTrends(Long userId, LocalDate from, LocalDate to, String granularity) {
+        boolean weekly;
+        if ("day".equalsIgnoreCase(granularity)) {
+            weekly = false;
+        } else if ("week".equalsIgnoreCase(granularity)) {
+            weekly = true;
+        } else {
+            throw new ValidationException("Granularity must be 'day' or 'week'");
+        }
+        if (from.isAfter(to)) {
+            throw new ValidationException("'from' must not be after 'to'");
+        }
+        if (from.plusDays(MAX_RANGE_DAYS).isBefore(to)) {
+            throw new ValidationException("Date range must not exceed " + MAX_RANGE_DAYS + " days");
+        }
+
+        LocalDate today = LocalDate.now();
+        Map<LocalDate, TrendPoint> points = new LinkedHashMap<>();
+
+        for (TaskDailyStats day : taskDailyStatsRepository.findByUserIdAndDayBetweenOrderByDayAsc(userId, from, to)) {
+            LocalDate period = weekly
+                    ? day.getDay().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+                    : day.getDay();
+            TrendPoint point = points.computeIfAbsent(period, key -> new TrendPoint(key, 0, 0, 0));
+
+            point.setCreated(point.getCreated() + day.getCreatedCount());
+            point.setCompleted(point.getCompleted() + day.getCompletedCount());
+            // Open tasks only count as overdue once their due day is over
+            if (day.getDay().isBefore(today)) {
+                point.setOverdue(point.getOverdue() + day.getDueCount());
+            }
+        }
+
+        return new ArrayList<>(points.values());
+    }
+
+    /**
+     * Rebuild every user's rollups from the tasks table, one user per transaction.
+     * Deleted tasks are gone from the table, so a rebuild drops their created and completed history.
+     */
+    @Async
+    public void backfillAll() {
+        log.info("Backfilling task rollups");
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long afterId = 0L;
+        int users = 0;
+
+        while (true) {
+            List<Long> userIds = userRepository.findIdsAfter(afterId, PageRequest.of(0, 500));
+            if (userIds.isEmpty()) {
+                break;
+            }
+
+            for (Long userId : userIds) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> rebuild(userId));
+                    users++;
+                } catch (Exception e) {
+                    log.error("Failed to backfill task rollups for user {}: {}", userId, e.getMessage());
+                }
+            }
+            afterId = userIds.get(userIds.size() - 1);
+        }
+
+        log.info("Task rollups backfilled for {} users", users);
+    }
+
+    /**
+     * Rebuild one user's rollups, reading tasks in pages so memory is bounded by the number of days
+     */
+    private void rebuild(Long userId) {
+        userRepository.findByIdForUpdate(userId);
+
+        Map<LocalDate, long[]> buckets = new TreeMap<>();
+        long afterId = 0L;
+        while (true) {
+            List<Task> page = taskRepository.findByUserIdAfter(userId, afterId, PageRequest.of(0, BACKFILL_PAGE_SIZE));
+            if (page.isEmpty()) {
+                break;
+            }
+            for (Task task : page) {
+                contribute(buckets, Snapshot.of(task), 1, true, true);
+            }
+            afterId = page.get(page.size() - 1).getId();
+            entityManager.clear();
+        }
+
+        taskDailyStatsRepository.deleteByUserId(userId);
+        List<TaskDailyStats> rows = new ArrayList<>(buckets.size());
+        for (Map.Entry<LocalDate, long[]> entry : buckets.entrySet()) {
+            rows.add(toEntity(userId, entry.getKey(), entry.getValue()));
+        }
+        taskDailyStatsRepository.saveAll(rows);
+    }
+
+    private static void contribute(Map<LocalDate, long[]> deltas, Snapshot snapshot, int sign,
+                                   boolean includeCreated, boolean includeCompleted) {
+        if (snapshot == null) {
+            return;
+        }
+
+        if (includeCreated) {
+            LocalDateTime createdAt = snapshot.createdAt() != null ? snapshot.createdAt() : LocalDateTime.now();
+            bucket(deltas, createdAt.toLocalDate())[CREATED] += sign;
+        }
+        if (includeCompleted && snapshot.status() == TaskStatus.COMPLETED && snapshot.completedAt() != null) {
+            bucket(deltas, snapshot.completedAt().toLocalDate())[COMPLETED] += sign;
+            if (snapshot.dueDate() != null && !snapshot.completedAt().isAfter(snapshot.dueDate())) {
+                bucket(deltas, snapshot.dueDate().toLocalDate())[COMPLETED_ON_TIME] += sign;
+            }
+        }
+        if (snapshot.dueDate() != null && isOpen(snapshot.status())) {
+            bucket(deltas, snapshot.dueDate().toLocalDate())[DUE] += sign;
+        }
+    }
+
+    private static boolean isOpen(TaskStatus status) {
+        return status != TaskStatus.COMPLETED && status != TaskStatus.CANCELLED;
+    }
+
+    private static long[] bucket(Map<LocalDate, long[]> deltas, LocalDate day) {
+        return deltas.computeIfAbsent(day, key -> new long[4]);
+    }
+
+    private static boolean isZero(long[] delta) {
+        for (long value : delta) {
+            if (value != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static TaskDailyStats toEntity(Long userId, LocalDate day, long[] counts) {
+        return new TaskDailyStats(userId, day,
+                counts[CREATED], counts[COMPLETED], counts[DUE], counts[COMPLETED_ON_TIME]);
+    }
+
+    /**
+     * The parts of a task that rollups depend on, captured before it is modified
+     */
+    public record Snapshot(TaskStatus status, LocalDateTime createdAt, LocalDateTime completedAt,
+                           LocalDateTime dueDate) {
+
+        public static Snapshot of(Task task) {
+            return new Snapshot(task.getStatus(), task.getCreatedAt(), task.getCompletedAt(), task.getDueDate());
+        }
+    }
+}
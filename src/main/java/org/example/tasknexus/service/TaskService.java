@@ -36,7 +36,22 @@ public class TaskService {
     private UserRepository userRepository;
 
     @Autowired
-    private EmailService emailService;
+    private NotificationDigestService notificationDigestService;
+
+    @Autowired
+    private TaskCounterService taskCounterService;
+
+    @Autowired
+    private TaskRollupService taskRollupService;
+
+    @Autowired
+    private LeadTimeService leadTimeService;
+
+    @Autowired
+    private AnalyticsRequestCoalescer analyticsRequestCoalescer;
+
+    @Autowired
+    private FileService fileService;
 
     /**
      * Create a new task
@@ -57,14 +72,13 @@ public class TaskService {
         task.setUserId(userId);
 
         Task savedTask = taskRepository.save(task);
+        taskCounterService.taskAdded(userId, savedTask.getStatus(), savedTask.getPriority());
+        taskRollupService.recordChange(userId, null, TaskRollupService.Snapshot.of(savedTask));
+        analyticsRequestCoalescer.invalidate(userId);
         log.info("Task created successfully: {}", savedTask.getId());
 
         // Send task created email
-        try {
-            emailService.sendTaskCreatedEmail(user, savedTask);
-        } catch (Exception e) {
-            log.error("Failed to send task created email: {}", e.getMessage());
-        }
+        notificationDigestService.taskCreated(user, savedTask);
 
         return TaskDTO.fromEntity(savedTask);
     }
@@ -72,6 +86,7 @@ public class TaskService {
     /**
      * Get all tasks for a user
      */
+    @Transactional(readOnly = true)
     public List<TaskDTO> getAllTasks(Long userId) {
         log.info("Fetching all tasks for user: {}", userId);
 
@@ -84,6 +99,7 @@ public class TaskService {
     /**
      * Get all tasks for a user with pagination
      */
+    @Transactional(readOnly = true)
     public Page<TaskDTO> getAllTasksPaginated(Long userId, Pageable pageable) {
         log.info("Fetching paginated tasks for user: {}", userId);
 
@@ -94,6 +110,7 @@ public class TaskService {
     /**
      * Get task by ID
      */
+    @Transactional(readOnly = true)
     public TaskDTO getTaskById(Long userId, Long taskId) {
         log.info("Fetching task: {} for user: {}", taskId, userId);
 
@@ -111,6 +128,7 @@ public class TaskService {
     /**
      * Get tasks by status
      */
+    @Transactional(readOnly = true)
     public List<TaskDTO> getTasksByStatus(Long userId, TaskStatus status) {
         log.info("Fetching tasks with status {} for user: {}", status, userId);
 
@@ -123,6 +141,7 @@ public class TaskService {
     /**
      * Get tasks by priority
      */
+    @Transactional(readOnly = true)
     public List<TaskDTO> getTasksByPriority(Long userId, TaskPriority priority) {
         log.info("Fetching tasks with priority {} for user: {}", priority, userId);
 
@@ -135,6 +154,7 @@ public class TaskService {
     /**
      * Search tasks by title or description
      */
+    @Transactional(readOnly = true)
     public List<TaskDTO> searchTasks(Long userId, String query) {
         log.info("Searching tasks for user {} with query: {}", userId, query);
 
@@ -159,6 +179,10 @@ public class TaskService {
             throw new ValidationException("Task does not belong to this user");
         }
 
+        TaskStatus oldStatus = task.getStatus();
+        TaskPriority oldPriority = task.getPriority();
+        TaskRollupService.Snapshot before = TaskRollupService.Snapshot.of(task);
+
         // Update fields
         if (taskDTO.getTitle() != null) {
             task.setTitle(taskDTO.getTitle());
@@ -177,11 +201,37 @@ public class TaskService {
         }
 
         Task updatedTask = taskRepository.save(task);
+        taskCounterService.taskChanged(userId, oldStatus, oldPriority,
+                updatedTask.getStatus(), updatedTask.getPriority());
+        taskRollupService.recordChange(userId, before, TaskRollupService.Snapshot.of(updatedTask));
+        analyticsRequestCoalescer.invalidate(userId);
         log.info("Task updated successfully: {}", updatedTask.getId());
 
         return TaskDTO.fromEntity(updatedTask);
     }
 
+    /**
+     * Append a stored attachment filename to a task
+     */
+    public TaskDTO addAttachment(Long userId, Long taskId, String filename) {
+        log.info("Adding attachment {} to task: {}", filename, taskId);
+
+        Task task = taskRepository.findById(taskId)
+                .orElseThrow(() -> new ResourceNotFoundException("Task not found with ID: " + taskId));
+
+        // Verify task belongs to user
+        if (!task.getUserId().equals(userId)) {
+            throw new ValidationException("Task does not belong to this user");
+        }
+
+        String attachments = task.getAttachments();
+        task.setAttachments((attachments == null || attachments.isEmpty())
+                ? filename
+                : attachments + "," + filename);
+
+        return TaskDTO.fromEntity(taskRepository.save(task));
+    }
+
     /**
      * Update task status
      */
@@ -196,23 +246,29 @@ public class TaskService {
             throw new ValidationException("Task does not belong to this user");
         }
 
+        TaskStatus oldStatus = task.getStatus();
+        TaskRollupService.Snapshot before = TaskRollupService.Snapshot.of(task);
         task.setStatus(status);
 
-        // If marked as completed, set completion date
-        if (status == TaskStatus.COMPLETED) {
+        // Only a transition into COMPLETED completes the task; repeating it keeps the original completion
+        boolean completing = status == TaskStatus.COMPLETED && oldStatus != TaskStatus.COMPLETED;
+        if (completing) {
             task.setCompletedAt(LocalDateTime.now());
 
             // Send completion email
-            try {
-                User user = userRepository.findById(userId)
-                        .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-                emailService.sendTaskCompletedEmail(user, task);
-            } catch (Exception e) {
-                log.error("Failed to send task completed email: {}", e.getMessage());
-            }
+            User user = userRepository.findById(userId)
+                    .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+            notificationDigestService.taskCompleted(user, task);
         }
 
         Task updatedTask = taskRepository.save(task);
+        taskCounterService.taskChanged(userId, oldStatus, updatedTask.getPriority(),
+                updatedTask.getStatus(), updatedTask.getPriority());
+        taskRollupService.recordChange(userId, before, TaskRollupService.Snapshot.of(updatedTask));
+        analyticsRequestCoalescer.invalidate(userId);
+        if (completing) {
+            leadTimeService.recordCompletion(userId, updatedTask);
+        }
         log.info("Task status updated successfully: {}", updatedTask.getId());
 
         return TaskDTO.fromEntity(updatedTask);
@@ -233,12 +289,17 @@ public class TaskService {
         }
 
         taskRepository.delete(task);
+        fileService.releaseTaskAttachments(taskId, task.getAttachments());
+        taskCounterService.taskRemoved(userId, task.getStatus(), task.getPriority());
+        taskRollupService.recordChange(userId, TaskRollupService.Snapshot.of(task), null);
+        analyticsRequestCoalescer.invalidate(userId);
         log.info("Task deleted successfully: {}", taskId);
     }
 
     /**
      * Get overdue tasks
      */
+    @Transactional(readOnly = true)
     public List<TaskDTO> getOverdueTasks(Long userId) {
         log.info("Fetching overdue tasks for user: {}", userId);
 
@@ -252,6 +313,7 @@ public class TaskService {
     /**
      * Get tasks due today
      */
+    @Transactional(readOnly = true)
     public List<TaskDTO> getTasksDueToday(Long userId) {
         log.info("Fetching tasks due today for user: {}", userId);
 
@@ -0,0 +1,234 @@
+package org.example.tasknexus.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.tasknexus.storage.StorageBackend;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ThumbnailService
+ * Generates fixed-size thumbnails for image attachments on a small bounded pool, after the upload
+ * has returned. Thumbnails are keyed by blob hash and stored next to the blob, so identical images
+ * share them and they are removed together with the blob.
+ */
+@Slf4j
+@Service
+public class ThumbnailService {
+
+    public static final List<Integer> SIZES = List.of(128, 256, 512);
+
+    private static final Set<String> IMAGE_EXTENSIONS = Set.of("jpg", "jpeg", "png", "gif");
+
+    @Autowired
+    private BlobStoreService blobStoreService;
+
+    @Autowired
+    private StorageBackend storage;
+
+    @Value("${file.thumbnails.threads:2}")
+    private int threads;
+
+    @Value("${file.thumbnails.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${file.thumbnails.max-source-pixels:50000000}")
+    private long maxSourcePixels;
+
+    private ThreadPoolExecutor executor;
+
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "thumbnail-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Whether thumbnails are produced for this extension
+     */
+    public boolean supports(String extension) {
+        return extension != null && IMAGE_EXTENSIONS.contains(extension.toLowerCase());
+    }
+
+    /**
+     * Queue thumbnail generation for a blob; returns immediately
+     */
+    public void submit(String hash, String extension) {
+        if (!supports(extension) || !inFlight.add(hash)) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(hash, extension);
+                } catch (Exception e) {
+                    log.warn("Thumbnail generation failed for blob {}: {}", hash, e.getMessage());
+                } finally {
+                    inFlight.remove(hash);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // A full queue drops the job; the thumbnail endpoint requeues it on the next request
+            inFlight.remove(hash);
+            log.warn("Thumbnail queue full, skipping blob {}", hash);
+        }
+    }
+
+    /**
+     * Smallest generated size that is at least the requested one
+     */
+    public int resolveSize(int requested) {
+        for (int size : SIZES) {
+            if (size >= requested) {
+                return size;
+            }
+        }
+        return SIZES.get(SIZES.size() - 1);
+    }
+
+    /**
+     * Thumbnail storage key for a blob and size
+     */
+    public String thumbnailKey(String hash, String extension, int size) {
+        return blobStoreService.derivedKey(hash, "thumb-" + size + "." + outputFormat(extension));
+    }
+
+    /**
+     * Whether a thumbnail has been generated
+     */
+    public boolean exists(String thumbnailKey) throws IOException {
+        return storage.stat(thumbnailKey).isPresent();
+    }
+
+    /**
+     * Content type of thumbnails generated for this extension
+     */
+    public String contentType(String extension) {
+        return "jpg".equals(outputFormat(extension)) ? "image/jpeg" : "image/png";
+    }
+
+    private void generate(String hash, String extension) throws IOException {
+        int largest = SIZES.get(SIZES.size() - 1);
+        if (exists(thumbnailKey(hash, extension, largest))) {
+            return;
+        }
+
+        BufferedImage source = read(hash, largest);
+        if (source == null) {
+            log.warn("Blob {} is not a readable image", hash);
+            return;
+        }
+
+        String format = outputFormat(extension);
+        for (int size : SIZES) {
+            // Thumbnails are small, so each is encoded in memory and stored with one put
+            BufferedImage thumbnail = scale(source, size, "jpg".equals(format));
+            ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+            if (!ImageIO.write(thumbnail, format, encoded)) {
+                throw new IOException("No writer for " + format);
+            }
+            storage.put(thumbnailKey(hash, extension, size),
+                    new ByteArrayInputStream(encoded.toByteArray()), encoded.size());
+        }
+        log.info("Thumbnails generated for blob {}", hash);
+    }
+
+    /**
+     * Decode with source subsampling so large images never expand to full resolution in memory
+     */
+    private BufferedImage read(String hash, int targetSize) throws IOException {
+        try (InputStream content = blobStoreService.openContent(hash);
+             ImageInputStream input = ImageIO.createImageInputStream(content)) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxSourcePixels) {
+                    throw new IOException("Image too large: " + width + "x" + height);
+                }
+
+                // Keep roughly twice the target resolution so the final scale still has detail
+                int subsampling = Math.max(1, Math.max(width, height) / (targetSize * 2));
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage scale(BufferedImage source, int size, boolean opaque) {
+        double ratio = Math.min(1.0, (double) size / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+
+        BufferedImage target = new BufferedImage(width, height,
+                opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    /**
+     * JPEG sources stay JPEG; PNG and GIF become PNG to keep transparency
+     */
+    private String outputFormat(String extension) {
+        String lower = extension.toLowerCase();
+        return lower.equals("jpg") || lower.equals("jpeg") ? "jpg" : "png";
+    }
+}
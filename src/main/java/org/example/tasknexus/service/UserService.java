@@ -14,6 +14,7 @@ import org.example.tasknexus.util.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * UserService
@@ -35,9 +36,13 @@ public class UserService {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private TaskCounterService taskCounterService;
+
     /**
      * Register a new user
      */
+    @Transactional
     public UserDTO registerUser(RegisterRequest request) {
         log.info("Registering new user: {}", request.getEmail());
 
@@ -64,12 +69,11 @@ public class UserService {
         User savedUser = userRepository.save(user);
         log.info("User registered successfully: {}", savedUser.getId());
 
-        // Send welcome email
-        try {
-            emailService.sendWelcomeEmail(savedUser);
-        } catch (Exception e) {
-            log.error("Failed to send welcome email: {}", e.getMessage());
-        }
+        // Start the user's task counters at zero
+        taskCounterService.initialize(savedUser.getId());
+
+        // Queue welcome email in the same transaction
+        emailService.sendWelcomeEmail(savedUser);
 
         return UserDTO.fromEntity(savedUser);
     }
@@ -139,6 +143,9 @@ public class UserService {
         if (userDTO.getProfileImageUrl() != null) {
             user.setProfileImageUrl(userDTO.getProfileImageUrl());
         }
+        if (userDTO.getNotificationMode() != null) {
+            user.setNotificationMode(userDTO.getNotificationMode());
+        }
 
         User updatedUser = userRepository.save(user);
         log.info("User profile updated successfully: {}", userId);
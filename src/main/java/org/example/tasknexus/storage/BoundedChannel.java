@@ -0,0 +1,52 @@
+package org.example.tasknexus.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * BoundedChannel
+ * Reads at most a fixed number of bytes from an underlying channel, then reports end of stream
+ */
+class BoundedChannel implements ReadableByteChannel {
+
+    private final ReadableByteChannel delegate;
+
+    private long remaining;
+
+    BoundedChannel(ReadableByteChannel delegate, long length) {
+        this.delegate = delegate;
+        this.remaining = length;
+    }
+
+    @Override
+    public int read(ByteBuffer target) throws IOException {
+        if (remaining <= 0) {
+            return -1;
+        }
+
+        int limit = target.limit();
+        if (target.remaining() > remaining) {
+            target.limit(target.position() + (int) remaining);
+        }
+        try {
+            int read = delegate.read(target);
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        } finally {
+            target.limit(limit);
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return delegate.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+}
@@ -0,0 +1,89 @@
+package org.example.tasknexus.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * InMemoryStorageBackend
+ * Keeps objects on the heap. Meant for tests and local experiments only; contents are lost on restart.
+ */
+public class InMemoryStorageBackend implements StorageBackend {
+
+    private final ConcurrentSkipListMap<String, Entry> objects = new ConcurrentSkipListMap<>();
+
+    @Override
+    public String getName() {
+        return "memory";
+    }
+
+    @Override
+    public void put(String key, InputStream content, long size) throws IOException {
+        byte[] data = content.readAllBytes();
+        if (size >= 0 && data.length != size) {
+            throw new IOException("Expected " + size + " bytes for " + key + " but received " + data.length);
+        }
+        objects.put(key, new Entry(data, Instant.now()));
+    }
+
+    @Override
+    public ReadableByteChannel get(String key) throws IOException {
+        byte[] data = entry(key).data();
+        return Channels.newChannel(new ByteArrayInputStream(data));
+    }
+
+    @Override
+    public ReadableByteChannel getRange(String key, long offset, long length) throws IOException {
+        byte[] data = entry(key).data();
+        int start = (int) Math.min(offset, data.length);
+        int count = (int) Math.min(length, data.length - start);
+        return Channels.newChannel(new ByteArrayInputStream(data, start, count));
+    }
+
+    @Override
+    public Optional<StoredObject> stat(String key) {
+        Entry entry = objects.get(key);
+        return entry == null
+                ? Optional.empty()
+                : Optional.of(new StoredObject(key, entry.data().length, entry.lastModified()));
+    }
+
+    @Override
+    public boolean delete(String key) {
+        return objects.remove(key) != null;
+    }
+
+    @Override
+    public void move(String sourceKey, String targetKey) throws IOException {
+        Entry entry = objects.remove(sourceKey);
+        if (entry == null) {
+            throw new NoSuchFileException(sourceKey);
+        }
+        objects.put(targetKey, entry);
+    }
+
+    @Override
+    public Stream<StoredObject> list(String prefix) {
+        return objects.tailMap(prefix).entrySet().stream()
+                .takeWhile(e -> e.getKey().startsWith(prefix))
+                .map(e -> new StoredObject(e.getKey(), e.getValue().data().length, e.getValue().lastModified()));
+    }
+
+    private Entry entry(String key) throws NoSuchFileException {
+        Entry entry = objects.get(key);
+        if (entry == null) {
+            throw new NoSuchFileException(key);
+        }
+        return entry;
+    }
+
+    private record Entry(byte[] data, Instant lastModified) {
+    }
+}
@@ -0,0 +1,221 @@
+package org.example.tasknexus.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * InstrumentedStorageBackend
+ * Decorates a backend with per-operation latency timers (storage.requests), byte counters
+ * (storage.bytes) and per-transfer throughput (storage.throughput), all tagged with the backend name.
+ * Reads are measured from open to close, so their throughput covers the whole transfer.
+ */
+public class InstrumentedStorageBackend implements StorageBackend {
+
+    private final StorageBackend delegate;
+    private final MeterRegistry meterRegistry;
+    private final Counter bytesRead;
+    private final Counter bytesWritten;
+    private final DistributionSummary readThroughput;
+    private final DistributionSummary writeThroughput;
+
+    public InstrumentedStorageBackend(StorageBackend delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+        this.bytesRead = bytesCounter("read");
+        this.bytesWritten = bytesCounter("write");
+        this.readThroughput = throughputSummary("read");
+        this.writeThroughput = throughputSummary("write");
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public void put(String key, InputStream content, long size) throws IOException {
+        CountingInputStream counting = new CountingInputStream(content);
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            delegate.put(key, counting, size);
+            success = true;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            record("put", elapsed, success);
+            bytesWritten.increment(counting.count);
+            recordThroughput(writeThroughput, counting.count, elapsed);
+        }
+    }
+
+    @Override
+    public ReadableByteChannel get(String key) throws IOException {
+        return measuredRead("get", () -> delegate.get(key));
+    }
+
+    @Override
+    public ReadableByteChannel getRange(String key, long offset, long length) throws IOException {
+        return measuredRead("get_range", () -> delegate.getRange(key, offset, length));
+    }
+
+    @Override
+    public Optional<StoredObject> stat(String key) throws IOException {
+        return measured("stat", () -> delegate.stat(key));
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        return measured("delete", () -> delegate.delete(key));
+    }
+
+    @Override
+    public void move(String sourceKey, String targetKey) throws IOException {
+        measured("move", () -> {
+            delegate.move(sourceKey, targetKey);
+            return null;
+        });
+    }
+
+    @Override
+    public Stream<StoredObject> list(String prefix) throws IOException {
+        return measured("list", () -> delegate.list(prefix));
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return delegate.localPath(key);
+    }
+
+    private ReadableByteChannel measuredRead(String operation, StorageCall<ReadableByteChannel> call) throws IOException {
+        long start = System.nanoTime();
+        ReadableByteChannel channel = measured(operation, call);
+        return new CountingChannel(channel, start);
+    }
+
+    private <T> T measured(String operation, StorageCall<T> call) throws IOException {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            T result = call.execute();
+            success = true;
+            return result;
+        } finally {
+            record(operation, System.nanoTime() - start, success);
+        }
+    }
+
+    private void record(String operation, long elapsedNanos, boolean success) {
+        Timer.builder("storage.requests")
+                .description("Storage backend operation latency")
+                .tag("backend", delegate.getName())
+                .tag("operation", operation)
+                .tag("outcome", success ? "success" : "error")
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void recordThroughput(DistributionSummary summary, long bytes, long elapsedNanos) {
+        if (bytes > 0 && elapsedNanos > 0) {
+            summary.record(bytes * 1_000_000_000.0 / elapsedNanos);
+        }
+    }
+
+    private Counter bytesCounter(String direction) {
+        return Counter.builder("storage.bytes")
+                .description("Bytes moved to or from the storage backend")
+                .baseUnit("bytes")
+                .tag("backend", delegate.getName())
+                .tag("direction", direction)
+                .register(meterRegistry);
+    }
+
+    private DistributionSummary throughputSummary(String direction) {
+        return DistributionSummary.builder("storage.throughput")
+                .description("Throughput of individual storage transfers")
+                .baseUnit("bytes.per.second")
+                .tag("backend", delegate.getName())
+                .tag("direction", direction)
+                .register(meterRegistry);
+    }
+
+    @FunctionalInterface
+    private interface StorageCall<T> {
+        T execute() throws IOException;
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+
+    private class CountingChannel implements ReadableByteChannel {
+
+        private final ReadableByteChannel channel;
+        private final long openedAt;
+        private long count;
+        private boolean closed;
+
+        CountingChannel(ReadableByteChannel channel, long openedAt) {
+            this.channel = channel;
+            this.openedAt = openedAt;
+        }
+
+        @Override
+        public int read(ByteBuffer target) throws IOException {
+            int read = channel.read(target);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                bytesRead.increment(count);
+                recordThroughput(readThroughput, count, System.nanoTime() - openedAt);
+            }
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,484 @@
+package org.example.tasknexus.storage;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * S3StorageBackend
+ * Client for S3-compatible object stores (AWS S3, MinIO and other stand-ins) built on the JDK
+ * HttpClient with Signature V4 request signing and path-style URLs. Bodies are streamed in both
+ * directions with UNSIGNED-PAYLOAD, so an upload is never read twice or buffered to sign it;
+ * only streams of unknown length are buffered, one multipart part at a time.
+ */
+public class S3StorageBackend implements StorageBackend {
+
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+
+    private static final DateTimeFormatter AMZ_DATE =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+
+    private static final int LIST_PAGE_SIZE = 1000;
+
+    private static final int PART_SIZE = 8 * 1024 * 1024;
+
+    private final HttpClient client;
+    private final String endpoint;
+    private final String host;
+    private final String bucket;
+    private final String region;
+    private final String accessKey;
+    private final String secretKey;
+    private final Duration timeout;
+
+    public S3StorageBackend(String endpoint, String region, String bucket,
+                            String accessKey, String secretKey, Duration timeout) {
+        URI uri = URI.create(endpoint);
+        this.endpoint = endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint;
+        this.host = uri.getPort() == -1 ? uri.getHost() : uri.getHost() + ":" + uri.getPort();
+        this.bucket = bucket;
+        this.region = region;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.timeout = timeout;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .build();
+    }
+
+    @Override
+    public String getName() {
+        return "s3";
+    }
+
+    /**
+     * Create the bucket if it does not exist yet (convenient for local stand-in servers)
+     */
+    public void createBucketIfMissing() throws IOException {
+        HttpResponse<Void> head = send(signed("HEAD", objectPath(null), Map.of(), Map.of())
+                .method("HEAD", HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.discarding());
+        if (head.statusCode() == 404) {
+            HttpResponse<String> created = send(signed("PUT", objectPath(null), Map.of(), Map.of())
+                    .PUT(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+            check(created, "create bucket", bucket);
+        }
+    }
+
+    @Override
+    public void put(String key, InputStream content, long size) throws IOException {
+        if (size < 0) {
+            putUnknownLength(key, content);
+            return;
+        }
+
+        // Content-Length comes from size; the client fails the request if the stream disagrees
+        HttpRequest.BodyPublisher body = size == 0
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.fromPublisher(HttpRequest.BodyPublishers.ofInputStream(() -> content), size);
+        HttpResponse<String> response = send(signed("PUT", objectPath(key), Map.of(), Map.of())
+                .PUT(body).build(), HttpResponse.BodyHandlers.ofString());
+        check(response, "put", key);
+    }
+
+    /**
+     * S3 needs a Content-Length on every request, so a stream of unknown length goes up as a
+     * multipart upload, one part buffered at a time (or as a single PUT if it fits in one part)
+     */
+    private void putUnknownLength(String key, InputStream content) throws IOException {
+        byte[] part = content.readNBytes(PART_SIZE);
+        if (part.length < PART_SIZE) {
+            put(key, new ByteArrayInputStream(part), part.length);
+            return;
+        }
+
+        HttpResponse<String> created = send(signed("POST", objectPath(key), Map.of("uploads", ""), Map.of())
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+        check(created, "create multipart upload", key);
+        String uploadId = text(parse(created.body()).getDocumentElement(), "UploadId");
+
+        List<String> etags = new ArrayList<>();
+        try {
+            while (part.length > 0) {
+                Map<String, String> query = Map.of("partNumber", String.valueOf(etags.size() + 1), "uploadId", uploadId);
+                HttpResponse<String> uploaded = send(signed("PUT", objectPath(key), query, Map.of())
+                        .PUT(HttpRequest.BodyPublishers.ofByteArray(part)).build(), HttpResponse.BodyHandlers.ofString());
+                check(uploaded, "upload part", key);
+                etags.add(uploaded.headers().firstValue("ETag")
+                        .orElseThrow(() -> new IOException("S3 upload part " + key + " returned no ETag")));
+                part = content.readNBytes(PART_SIZE);
+            }
+
+            StringBuilder manifest = new StringBuilder("<CompleteMultipartUpload>");
+            for (int i = 0; i < etags.size(); i++) {
+                manifest.append("<Part><PartNumber>").append(i + 1).append("</PartNumber><ETag>")
+                        .append(etags.get(i)).append("</ETag></Part>");
+            }
+            manifest.append("</CompleteMultipartUpload>");
+
+            HttpResponse<String> completed = send(signed("POST", objectPath(key), Map.of("uploadId", uploadId), Map.of())
+                    .POST(HttpRequest.BodyPublishers.ofString(manifest.toString())).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            check(completed, "complete multipart upload", key);
+            // Like copy, completion can report an error after a 200 status line
+            if (completed.body() != null && completed.body().contains("<Error>")) {
+                throw new IOException("S3 complete multipart upload " + key + " failed: " + abbreviate(completed.body()));
+            }
+        } catch (IOException | RuntimeException e) {
+            // Parts of an abandoned upload are billed until aborted
+            send(signed("DELETE", objectPath(key), Map.of("uploadId", uploadId), Map.of())
+                    .DELETE().build(), HttpResponse.BodyHandlers.discarding());
+            throw e;
+        }
+    }
+
+    @Override
+    public ReadableByteChannel get(String key) throws IOException {
+        return open(key, Map.of());
+    }
+
+    @Override
+    public ReadableByteChannel getRange(String key, long offset, long length) throws IOException {
+        if (length <= 0) {
+            return Channels.newChannel(InputStream.nullInputStream());
+        }
+        return open(key, Map.of("Range", "bytes=" + offset + "-" + (offset + length - 1)));
+    }
+
+    @Override
+    public Optional<StoredObject> stat(String key) throws IOException {
+        HttpResponse<Void> response = send(signed("HEAD", objectPath(key), Map.of(), Map.of())
+                .method("HEAD", HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 404) {
+            return Optional.empty();
+        }
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("S3 stat " + key + " failed: HTTP " + response.statusCode());
+        }
+
+        long size = response.headers().firstValueAsLong("Content-Length").orElse(0);
+        Instant lastModified = response.headers().firstValue("Last-Modified")
+                .map(value -> ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant())
+                .orElse(Instant.EPOCH);
+        return Optional.of(new StoredObject(key, size, lastModified));
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        // S3 answers 204 whether or not the key existed
+        if (stat(key).isEmpty()) {
+            return false;
+        }
+        HttpResponse<String> response = send(signed("DELETE", objectPath(key), Map.of(), Map.of())
+                .DELETE().build(), HttpResponse.BodyHandlers.ofString());
+        check(response, "delete", key);
+        return true;
+    }
+
+    @Override
+    public void move(String sourceKey, String targetKey) throws IOException {
+        // Server-side copy; the bytes never travel through this process
+        Map<String, String> headers = Map.of("x-amz-copy-source", "/" + bucket + "/" + encode(sourceKey, false));
+        HttpResponse<String> response = send(signed("PUT", objectPath(targetKey), Map.of(), headers)
+                .PUT(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() == 404) {
+            throw new NoSuchFileException(sourceKey);
+        }
+        check(response, "copy", sourceKey);
+        // A copy can fail after the 200 status line has been sent
+        if (response.body() != null && response.body().contains("<Error>")) {
+            throw new IOException("S3 copy " + sourceKey + " failed: " + abbreviate(response.body()));
+        }
+
+        HttpResponse<String> deleted = send(signed("DELETE", objectPath(sourceKey), Map.of(), Map.of())
+                .DELETE().build(), HttpResponse.BodyHandlers.ofString());
+        check(deleted, "delete", sourceKey);
+    }
+
+    @Override
+    public Stream<StoredObject> list(String prefix) {
+        Listing listing = new Listing(prefix);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(listing,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    private ReadableByteChannel open(String key, Map<String, String> extraHeaders) throws IOException {
+        HttpRequest.Builder builder = signed("GET", objectPath(key), Map.of(), Map.of()).GET();
+        extraHeaders.forEach(builder::header);
+
+        HttpResponse<InputStream> response = send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+        int status = response.statusCode();
+        // A server that ignores Range answers 200 with the whole object, which must not pass for the slice
+        boolean ranged = extraHeaders.containsKey("Range");
+        if (ranged ? status == 206 : status / 100 == 2) {
+            return Channels.newChannel(response.body());
+        }
+
+        try (InputStream body = response.body()) {
+            if (status == 404) {
+                throw new NoSuchFileException(key);
+            }
+            if (status / 100 == 2) {
+                throw new IOException("S3 get " + key + " ignored the Range header: HTTP " + status);
+            }
+            String error = new String(body.readNBytes(1024), StandardCharsets.UTF_8);
+            throw new IOException("S3 get " + key + " failed: HTTP " + status + " " + abbreviate(error));
+        }
+    }
+
+    /**
+     * One ListObjectsV2 page at a time, fetched only when the previous page has been consumed
+     */
+    private class Listing implements Iterator<StoredObject> {
+
+        private final String prefix;
+        private final Deque<StoredObject> page = new ArrayDeque<>();
+        private String continuationToken;
+        private boolean exhausted;
+
+        Listing(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (page.isEmpty() && !exhausted) {
+                try {
+                    fetch();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return !page.isEmpty();
+        }
+
+        @Override
+        public StoredObject next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.poll();
+        }
+
+        private void fetch() throws IOException {
+            Map<String, String> query = new LinkedHashMap<>();
+            query.put("list-type", "2");
+            query.put("max-keys", String.valueOf(LIST_PAGE_SIZE));
+            query.put("prefix", prefix);
+            if (continuationToken != null) {
+                query.put("continuation-token", continuationToken);
+            }
+
+            HttpResponse<InputStream> response = send(signed("GET", objectPath(null), query, Map.of())
+                    .GET().build(), HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                if (response.statusCode() / 100 != 2) {
+                    throw new IOException("S3 list " + prefix + " failed: HTTP " + response.statusCode());
+                }
+
+                Document document = parse(body);
+                NodeList contents = document.getElementsByTagName("Contents");
+                for (int i = 0; i < contents.getLength(); i++) {
+                    Element item = (Element) contents.item(i);
+                    page.add(new StoredObject(
+                            text(item, "Key"),
+                            Long.parseLong(text(item, "Size")),
+                            Instant.parse(text(item, "LastModified"))));
+                }
+
+                continuationToken = text(document.getDocumentElement(), "NextContinuationToken");
+                exhausted = !"true".equals(text(document.getDocumentElement(), "IsTruncated"))
+                        || continuationToken == null;
+            }
+        }
+    }
+
+    /**
+     * Start a request carrying a Signature V4 Authorization header
+     */
+    private HttpRequest.Builder signed(String method, String path, Map<String, String> query,
+                                       Map<String, String> amzHeaders) {
+        String amzDate = AMZ_DATE.format(Instant.now());
+        String canonicalQuery = canonicalQuery(query);
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("host", host);
+        headers.put("x-amz-content-sha256", UNSIGNED_PAYLOAD);
+        headers.put("x-amz-date", amzDate);
+        headers.putAll(amzHeaders);
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create(endpoint + path + (canonicalQuery.isEmpty() ? "" : "?" + canonicalQuery)))
+                .timeout(timeout)
+                .header("x-amz-content-sha256", UNSIGNED_PAYLOAD)
+                .header("x-amz-date", amzDate)
+                .header("Authorization", authorization(accessKey, secretKey, region,
+                        method, path, canonicalQuery, headers, UNSIGNED_PAYLOAD));
+        amzHeaders.forEach(builder::header);
+        return builder;
+    }
+
+    /**
+     * Signature V4 Authorization header value; headers are every signed header, including x-amz-date
+     */
+    static String authorization(String accessKey, String secretKey, String region, String method, String path,
+                                String canonicalQuery, Map<String, String> headers, String payloadHash) {
+        TreeMap<String, String> sorted = new TreeMap<>();
+        headers.forEach((name, value) -> sorted.put(name.toLowerCase(), value));
+        String amzDate = sorted.get("x-amz-date");
+        String date = amzDate.substring(0, 8);
+        String scope = date + "/" + region + "/s3/aws4_request";
+
+        String canonicalHeaders = sorted.entrySet().stream()
+                .map(e -> e.getKey() + ":" + e.getValue().trim() + "\n")
+                .collect(Collectors.joining());
+        String signedHeaders = String.join(";", sorted.keySet());
+
+        String canonicalRequest = method + "\n" + path + "\n" + canonicalQuery + "\n"
+                + canonicalHeaders + "\n" + signedHeaders + "\n" + payloadHash;
+        String stringToSign = "AWS4-HMAC-SHA256\n" + amzDate + "\n" + scope + "\n" + sha256Hex(canonicalRequest);
+
+        byte[] signingKey = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+        signingKey = hmac(signingKey, region);
+        signingKey = hmac(signingKey, "s3");
+        signingKey = hmac(signingKey, "aws4_request");
+        String signature = HexFormat.of().formatHex(hmac(signingKey, stringToSign));
+
+        return "AWS4-HMAC-SHA256 Credential=" + accessKey + "/" + scope
+                + ", SignedHeaders=" + signedHeaders + ", Signature=" + signature;
+    }
+
+    /**
+     * Query string sorted by name with both sides encoded, as it is signed and sent
+     */
+    static String canonicalQuery(Map<String, String> query) {
+        return new TreeMap<>(query).entrySet().stream()
+                .map(e -> encode(e.getKey(), true) + "=" + encode(e.getValue(), true))
+                .collect(Collectors.joining("&"));
+    }
+
+    private String objectPath(String key) {
+        return key == null ? "/" + bucket : "/" + bucket + "/" + encode(key, false);
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) throws IOException {
+        try {
+            return client.send(request, handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("S3 request interrupted");
+        }
+    }
+
+    private void check(HttpResponse<String> response, String operation, String key) throws IOException {
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("S3 " + operation + " " + key + " failed: HTTP " + response.statusCode()
+                    + " " + abbreviate(response.body()));
+        }
+    }
+
+    private Document parse(String body) throws IOException {
+        return parse(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private Document parse(InputStream body) throws IOException {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setExpandEntityReferences(false);
+            return factory.newDocumentBuilder().parse(body);
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("Invalid S3 listing response", e);
+        }
+    }
+
+    private static String text(Element parent, String tag) {
+        NodeList nodes = parent.getElementsByTagName(tag);
+        return nodes.getLength() == 0 ? null : nodes.item(0).getTextContent();
+    }
+
+    /**
+     * RFC 3986 encoding as Signature V4 expects it; '/' is kept in object paths
+     */
+    static String encode(String value, boolean encodeSlash) {
+        StringBuilder encoded = new StringBuilder();
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xff);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~' || (c == '/' && !encodeSlash)) {
+                encoded.append(c);
+            } else {
+                encoded.append('%').append(String.format("%02X", b & 0xff));
+            }
+        }
+        return encoded.toString();
+    }
+
+    private static String sha256Hex(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static byte[] hmac(byte[] key, String value) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(value.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+
+    private static String abbreviate(String body) {
+        if (body == null) {
+            return "";
+        }
+        return body.length() > 300 ? body.substring(0, 300) + "..." : body;
+    }
+}
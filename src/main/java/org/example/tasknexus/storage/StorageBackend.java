@@ -0,0 +1,68 @@
+package org.example.tasknexus.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * StorageBackend
+ * Object storage SPI for upload content. Keys are '/'-separated relative names
+ * (e.g. blobs/ab/cd/&lt;sha256&gt;). Content is streamed in and out; no operation buffers a whole
+ * object unless the backend itself is memory-based. Missing objects surface as
+ * {@link java.nio.file.NoSuchFileException} from the read methods.
+ */
+public interface StorageBackend {
+
+    /**
+     * Short name used in logs and metric tags
+     */
+    String getName();
+
+    /**
+     * Store the stream under key, replacing any existing object. size is the exact length of the
+     * stream, or -1 when it is not known up front (e.g. compressed on the fly); a body of a
+     * different length than declared fails and leaves nothing behind.
+     */
+    void put(String key, InputStream content, long size) throws IOException;
+
+    /**
+     * Open the whole object for sequential reading
+     */
+    ReadableByteChannel get(String key) throws IOException;
+
+    /**
+     * Open bytes [offset, offset + length) of the object
+     */
+    ReadableByteChannel getRange(String key, long offset, long length) throws IOException;
+
+    /**
+     * Size and modification time of an object, if it exists
+     */
+    Optional<StoredObject> stat(String key) throws IOException;
+
+    /**
+     * Delete an object; returns whether it existed
+     */
+    boolean delete(String key) throws IOException;
+
+    /**
+     * Rename an object inside the backend without streaming it through the application
+     */
+    void move(String sourceKey, String targetKey) throws IOException;
+
+    /**
+     * Lazily list objects whose key starts with prefix; order is backend-specific. The stream must be closed.
+     */
+    Stream<StoredObject> list(String prefix) throws IOException;
+
+    /**
+     * Local file behind a key, for backends that keep objects on this machine's filesystem.
+     * Lets downloads use sendfile instead of copying through the JVM.
+     */
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+}
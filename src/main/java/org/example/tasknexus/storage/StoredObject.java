@@ -0,0 +1,17 @@
+package org.example.tasknexus.storage;
+
+import java.time.Instant;
+
+/**
+ * StoredObject
+ * Metadata of one object in a storage backend
+ */
+public record StoredObject(String key, long size, Instant lastModified) {
+
+    /**
+     * Last key segment (the file name)
+     */
+    public String name() {
+        return key.substring(key.lastIndexOf('/') + 1);
+    }
+}
@@ -0,0 +1,58 @@
+package org.example.tasknexus.util;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * CsvWriter
+ * Minimal RFC 4180 row writer. Text cells starting with a spreadsheet formula character are
+ * prefixed with a quote so exported task titles cannot execute as formulas.
+ */
+public class CsvWriter {
+
+    private final Writer writer;
+
+    public CsvWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Write one row; null cells are written empty
+     */
+    public void writeRow(Object... cells) throws IOException {
+        for (int i = 0; i < cells.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (cells[i] != null) {
+                writeCell(cells[i]);
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    private void writeCell(Object cell) throws IOException {
+        String value = cell.toString();
+        if (cell instanceof CharSequence && !value.isEmpty() && "=+-@".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
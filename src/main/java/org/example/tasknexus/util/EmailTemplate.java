@@ -0,0 +1,131 @@
+package org.example.tasknexus.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * EmailTemplate
+ * A template parsed once into literal and placeholder segments.
+ * Placeholders use the {{name}} syntax; values are HTML-escaped when the template is HTML.
+ * {{{name}}} inserts a value as-is, for fragments that were already rendered by another template.
+ */
+public final class EmailTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+    private static final String RAW_OPEN = "{{{";
+    private static final String RAW_CLOSE = "}}}";
+
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFER =
+            ThreadLocal.withInitial(() -> new StringBuilder(4096));
+
+    private final String name;
+    private final boolean html;
+    // Even indexes are literals, odd indexes are placeholder names
+    private final String[] segments;
+    private final boolean[] raw;
+    private final int literalLength;
+
+    private EmailTemplate(String name, boolean html, String[] segments, boolean[] raw) {
+        this.name = name;
+        this.html = html;
+        this.segments = segments;
+        this.raw = raw;
+
+        int length = 0;
+        for (int i = 0; i < segments.length; i += 2) {
+            length += segments[i].length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Parse template source
+     */
+    public static EmailTemplate parse(String name, String source) {
+        List<String> segments = new ArrayList<>();
+        List<Boolean> raw = new ArrayList<>();
+        int position = 0;
+
+        while (true) {
+            int open = source.indexOf(OPEN, position);
+            if (open < 0) {
+                break;
+            }
+            boolean isRaw = source.startsWith(RAW_OPEN, open);
+            String openToken = isRaw ? RAW_OPEN : OPEN;
+            String closeToken = isRaw ? RAW_CLOSE : CLOSE;
+
+            int close = source.indexOf(closeToken, open + openToken.length());
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder in template " + name + " at offset " + open);
+            }
+            segments.add(source.substring(position, open));
+            raw.add(false);
+            segments.add(source.substring(open + openToken.length(), close).trim());
+            raw.add(isRaw);
+            position = close + closeToken.length();
+        }
+        segments.add(source.substring(position));
+        raw.add(false);
+
+        boolean[] rawFlags = new boolean[raw.size()];
+        for (int i = 0; i < rawFlags.length; i++) {
+            rawFlags[i] = raw.get(i);
+        }
+        return new EmailTemplate(name, name.endsWith(".html"), segments.toArray(new String[0]), rawFlags);
+    }
+
+    /**
+     * Render template with the given values; missing values render as empty
+     */
+    public String render(Map<String, ?> values) {
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        buffer.ensureCapacity(literalLength + 256);
+
+        for (int i = 0; i < segments.length; i++) {
+            if ((i & 1) == 0) {
+                buffer.append(segments[i]);
+                continue;
+            }
+
+            Object value = values.get(segments[i]);
+            if (value == null) {
+                continue;
+            }
+            if (html && !raw[i]) {
+                escapeHtml(String.valueOf(value), buffer);
+            } else {
+                buffer.append(value);
+            }
+        }
+
+        String result = buffer.toString();
+        if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+            BUFFER.remove();
+        }
+        return result;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private static void escapeHtml(String value, StringBuilder out) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '&' -> out.append("&amp;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package org.example.tasknexus.util;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * EmailTemplateEngine
+ * Loads email templates once at startup from the classpath (mail-templates/).
+ * A file with the same name under mail.templates.dir overrides the built-in one and is
+ * reloaded when it changes on disk.
+ */
+@Slf4j
+@Component
+public class EmailTemplateEngine {
+
+    private static final String CLASSPATH_DIR = "mail-templates/";
+
+    public static final String WELCOME = "welcome.html";
+    public static final String TASK_CREATED = "task-created.html";
+    public static final String TASK_COMPLETED = "task-completed.txt";
+    public static final String TASK_REMINDER = "task-reminder.txt";
+    public static final String TASK_DIGEST = "task-digest.html";
+    public static final String TASK_DIGEST_ITEM = "task-digest-item.html";
+
+    private static final List<String> TEMPLATES = List.of(
+            WELCOME, TASK_CREATED, TASK_COMPLETED, TASK_REMINDER, TASK_DIGEST, TASK_DIGEST_ITEM);
+
+    @Value("${mail.templates.dir:}")
+    private String overrideDir;
+
+    @Value("${mail.templates.reload-interval-ms:2000}")
+    private long reloadIntervalMs;
+
+    private final Map<String, LoadedTemplate> templates = new ConcurrentHashMap<>();
+
+    /**
+     * Parse all templates
+     */
+    @PostConstruct
+    public void init() {
+        for (String name : TEMPLATES) {
+            templates.put(name, load(name));
+        }
+        log.info("Loaded {} email templates", templates.size());
+    }
+
+    /**
+     * Render template by name
+     */
+    public String render(String name, Map<String, ?> values) {
+        return get(name).render(values);
+    }
+
+    /**
+     * Get parsed template, reloading the override file if it changed
+     */
+    public EmailTemplate get(String name) {
+        LoadedTemplate loaded = templates.get(name);
+        if (loaded == null) {
+            throw new IllegalArgumentException("Unknown email template: " + name);
+        }
+
+        long now = System.currentTimeMillis();
+        if (overrideDir.isEmpty() || now - loaded.checkedAt() < reloadIntervalMs) {
+            return loaded.template();
+        }
+
+        long lastModified = lastModified(overridePath(name));
+        if (lastModified == loaded.lastModified()) {
+            templates.put(name, new LoadedTemplate(loaded.template(), lastModified, now));
+            return loaded.template();
+        }
+
+        try {
+            LoadedTemplate reloaded = load(name);
+            templates.put(name, reloaded);
+            log.info("Reloaded email template: {}", name);
+            return reloaded.template();
+        } catch (RuntimeException e) {
+            // Keep serving the last good version
+            log.error("Failed to reload email template {}: {}", name, e.getMessage());
+            templates.put(name, new LoadedTemplate(loaded.template(), lastModified, now));
+            return loaded.template();
+        }
+    }
+
+    private LoadedTemplate load(String name) {
+        long now = System.currentTimeMillis();
+        try {
+            if (!overrideDir.isEmpty()) {
+                Path path = overridePath(name);
+                if (Files.isRegularFile(path)) {
+                    long lastModified = lastModified(path);
+                    String source = Files.readString(path, StandardCharsets.UTF_8);
+                    return new LoadedTemplate(EmailTemplate.parse(name, source), lastModified, now);
+                }
+            }
+
+            try (InputStream in = new ClassPathResource(CLASSPATH_DIR + name).getInputStream()) {
+                String source = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                return new LoadedTemplate(EmailTemplate.parse(name, source), -1L, now);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load email template: " + name, e);
+        }
+    }
+
+    private Path overridePath(String name) {
+        return Paths.get(overrideDir, name);
+    }
+
+    private long lastModified(Path path) {
+        try {
+            return Files.isRegularFile(path) ? Files.getLastModifiedTime(path).toMillis() : -1L;
+        } catch (IOException e) {
+            return -1L;
+        }
+    }
+
+    private record LoadedTemplate(EmailTemplate template, long lastModified, long checkedAt) {
+    }
+}
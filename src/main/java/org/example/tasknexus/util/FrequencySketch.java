@@ -0,0 +1,84 @@
+package org.example.tasknexus.util;
+
+/**
+ * FrequencySketch
+ * Count-min sketch of recent access frequencies with 4-bit counters, two packed per byte. After every
+ * {@code 10 * width} increments all counters are halved, so old popularity fades and the
+ * estimate tracks what is hot now. Estimates never undercount within an aging period.
+ * Not thread-safe; callers synchronize.
+ */
+public final class FrequencySketch {
+
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    /** Keeps the low three bits of each nibble, so a shifted byte halves both of its counters */
+    private static final int HALVE_MASK = 0x77;
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L
+    };
+
+    private final byte[][] table;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    public FrequencySketch(int expectedKeys) {
+        int width = Integer.highestOneBit(Math.max(16, expectedKeys * 4 - 1) << 1);
+        this.table = new byte[DEPTH][width / 2];
+        this.mask = width - 1;
+        this.sampleSize = 10 * width;
+    }
+
+    /**
+     * Record one access to a key
+     */
+    public void increment(Object key) {
+        int hash = key.hashCode();
+        boolean added = false;
+        for (int row = 0; row < DEPTH; row++) {
+            int index = index(hash, row);
+            if (counter(table[row], index) < MAX_COUNT) {
+                // Counters below the maximum never carry into the neighbouring nibble
+                table[row][index >>> 1] += (byte) (1 << shift(index));
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            age();
+        }
+    }
+
+    /**
+     * Estimated recent access count of a key, at most 15
+     */
+    public int frequency(Object key) {
+        int hash = key.hashCode();
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < DEPTH; row++) {
+            frequency = Math.min(frequency, counter(table[row], index(hash, row)));
+        }
+        return frequency;
+    }
+
+    private int index(int hash, int row) {
+        long mixed = (hash + SEEDS[row]) * SEEDS[row];
+        return (int) (mixed >>> 32) & mask;
+    }
+
+    private static int counter(byte[] counters, int index) {
+        return (counters[index >>> 1] >>> shift(index)) & MAX_COUNT;
+    }
+
+    private static int shift(int index) {
+        return (index & 1) << 2;
+    }
+
+    private void age() {
+        for (byte[] counters : table) {
+            for (int i = 0; i < counters.length; i++) {
+                counters[i] = (byte) (((counters[i] & 0xff) >>> 1) & HALVE_MASK);
+            }
+        }
+        additions /= 2;
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.tasknexus.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HeavyHitters
+ * Mergeable Misra-Gries summary that tracks at most {@code capacity} keys. Every key whose true
+ * count exceeds total / (capacity + 1) is guaranteed to be retained, so the top-N keys survive
+ * when capacity is comfortably larger than N. Retained counts are lower bounds.
+ */
+public final class HeavyHitters {
+
+    private final int capacity;
+    private final Map<Long, Long> counters = new HashMap<>();
+
+    public HeavyHitters(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Count one occurrence of a key
+     */
+    public void add(long key) {
+        add(key, 1);
+    }
+
+    /**
+     * Count several occurrences of a key
+     */
+    public void add(long key, long count) {
+        counters.merge(key, count, Long::sum);
+        if (counters.size() > capacity) {
+            shrink();
+        }
+    }
+
+    /**
+     * Fold another summary into this one
+     */
+    public void merge(HeavyHitters other) {
+        other.counters.forEach((key, count) -> counters.merge(key, count, Long::sum));
+        if (counters.size() > capacity) {
+            shrink();
+        }
+    }
+
+    /**
+     * Retained keys by descending count, at most {@code limit}
+     */
+    public List<Long> top(int limit) {
+        List<Map.Entry<Long, Long>> entries = new ArrayList<>(counters.entrySet());
+        entries.sort(Map.Entry.<Long, Long>comparingByValue().reversed());
+
+        List<Long> keys = new ArrayList<>();
+        for (int i = 0; i < Math.min(limit, entries.size()); i++) {
+            keys.add(entries.get(i).getKey());
+        }
+        return keys;
+    }
+
+    /**
+     * Subtract the (capacity + 1)-th largest count from every counter and drop the non-positive ones
+     */
+    private void shrink() {
+        List<Long> values = new ArrayList<>(counters.values());
+        values.sort(null);
+        long cut = values.get(values.size() - capacity - 1);
+
+        counters.replaceAll((key, count) -> count - cut);
+        counters.values().removeIf(count -> count <= 0);
+    }
+}
@@ -0,0 +1,145 @@
+package org.example.tasknexus.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * LogHistogram
+ * Fixed-size histogram with logarithmic buckets (8 per power of two, ~9% relative error)
+ * for non-negative values up to 2^32. Serializes sparsely, so mostly-empty histograms stay small.
+ */
+public final class LogHistogram {
+
+    private static final int SUB_BUCKETS = 8;
+    private static final int MAX_EXPONENT = 32;
+    private static final double LOG_2 = Math.log(2);
+
+    public static final int BUCKET_COUNT = 1 + MAX_EXPONENT * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long totalCount;
+
+    /**
+     * Record one value; negative values count as zero
+     */
+    public void record(long value) {
+        counts[indexOf(value)]++;
+        totalCount++;
+    }
+
+    /**
+     * Add all counts of another histogram
+     */
+    public void merge(LogHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+    }
+
+    /**
+     * Value at the given percentile (0-100), in O(buckets)
+     */
+    public long percentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return representativeValue(i);
+            }
+        }
+        return representativeValue(BUCKET_COUNT - 1);
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Serialize as varint(nonEmptyBuckets) followed by varint(indexGap), varint(count) pairs
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int nonEmpty = 0;
+        for (long count : counts) {
+            if (count != 0) {
+                nonEmpty++;
+            }
+        }
+
+        writeVarLong(out, nonEmpty);
+        int previous = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if (counts[i] != 0) {
+                writeVarLong(out, i - previous);
+                writeVarLong(out, counts[i]);
+                previous = i;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Deserialize; null or empty input yields an empty histogram
+     */
+    public static LogHistogram fromBytes(byte[] data) {
+        LogHistogram histogram = new LogHistogram();
+        if (data == null || data.length == 0) {
+            return histogram;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        long nonEmpty = readVarLong(buffer);
+        int index = 0;
+        for (long i = 0; i < nonEmpty; i++) {
+            index += (int) readVarLong(buffer);
+            long count = readVarLong(buffer);
+            histogram.counts[index] = count;
+            histogram.totalCount += count;
+        }
+        return histogram;
+    }
+
+    static int indexOf(long value) {
+        if (value < 1) {
+            return 0;
+        }
+        int index = 1 + (int) Math.floor(Math.log(value) / LOG_2 * SUB_BUCKETS);
+        return Math.min(index, BUCKET_COUNT - 1);
+    }
+
+    /**
+     * Geometric midpoint of a bucket
+     */
+    static long representativeValue(int index) {
+        if (index == 0) {
+            return 0;
+        }
+        return Math.round(Math.pow(2, (index - 1 + 0.5) / SUB_BUCKETS));
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.tasknexus.util;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * ShardedPaths
+ * Two-level fan-out layout (dir/ab/cd/name) so no directory holds more than a small share of the files.
+ * Content hashes are used as their own prefix; other names are prefixed by a hash of the name.
+ */
+public final class ShardedPaths {
+
+    private ShardedPaths() {
+    }
+
+    /**
+     * Sharded location of name under dir, using the leading hex digits of key
+     */
+    public static Path shard(Path dir, String key, String name) {
+        return dir.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(name);
+    }
+
+    /**
+     * Sharded storage key (prefix/ab/cd/name), the object-store counterpart of shard()
+     */
+    public static String shardKey(String prefix, String key, String name) {
+        return prefix + "/" + key.substring(0, 2) + "/" + key.substring(2, 4) + "/" + name;
+    }
+
+    /**
+     * Sharded location of a file whose name is not itself a hash
+     */
+    public static Path shardByName(Path dir, String name) {
+        return shard(dir, hashName(name), name);
+    }
+
+    /**
+     * Prefer the sharded path, fall back to the flat one, and re-check the sharded path in case a
+     * migration moved the file between the two checks
+     */
+    public static Path resolve(Path sharded, Path flat) {
+        if (Files.exists(sharded)) {
+            return sharded;
+        }
+        if (Files.exists(flat)) {
+            return flat;
+        }
+        return sharded;
+    }
+
+    private static String hashName(String name) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(name.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 2);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
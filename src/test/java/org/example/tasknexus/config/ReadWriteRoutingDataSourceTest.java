@@ -0,0 +1,67 @@
+package org.example.tasknexus.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReadWriteRoutingDataSourceTest {
+
+    private DataSource primary;
+    private DataSource replica;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("routing_primary", "primary");
+        replica = database("routing_replica", "replica");
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplica() {
+        DataSource routing = routing(primary, replica);
+
+        assertEquals("replica", whoAmI(routing, true));
+    }
+
+    @Test
+    void readWriteTransactionsGoToPrimary() {
+        DataSource routing = routing(primary, replica);
+
+        assertEquals("primary", whoAmI(routing, false));
+    }
+
+    @Test
+    void readOnlyFallsBackToPrimaryWhenReplicaIsDown() {
+        DataSource unavailable = new DriverManagerDataSource("jdbc:h2:tcp://localhost:1/unavailable", "sa", "");
+        DataSource routing = routing(primary, unavailable);
+
+        assertEquals("primary", whoAmI(routing, true));
+    }
+
+    private static DataSource routing(DataSource primary, DataSource replica) {
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replica));
+    }
+
+    private static String whoAmI(DataSource dataSource, boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        template.setReadOnly(readOnly);
+        return template.execute(status ->
+                new JdbcTemplate(dataSource).queryForObject("SELECT name FROM node", String.class));
+    }
+
+    private static DataSource database(String name, String node) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE IF NOT EXISTS node (name VARCHAR(20))");
+        jdbc.update("DELETE FROM node");
+        jdbc.update("INSERT INTO node (name) VALUES (?)", node);
+        return dataSource;
+    }
+}
@@ -0,0 +1,179 @@
+package org.example.tasknexus.controller;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.example.tasknexus.model.Role;
+import org.example.tasknexus.model.User;
+import org.example.tasknexus.repository.UserRepository;
+import org.example.tasknexus.util.JwtUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Streaming endpoints must not keep a pooled connection once their queries are done
+ */
+@SpringBootTest(properties = {
+        "jwt.secret=streaming-connection-test-secret-0123456789",
+        "jwt.expiration=3600000",
+        "spring.mail.host=localhost",
+        "spring.mail.username=noreply@example.com"
+})
+@AutoConfigureMockMvc
+class StreamingConnectionTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private ConnectionProbe probe;
+
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.findByUsername("streamer").orElseGet(() -> {
+            User created = new User();
+            created.setEmail("streamer@example.com");
+            created.setUsername("streamer");
+            created.setPassword("secret");
+            created.setFullName("Streaming User");
+            created.setRole(Role.USER);
+            created.setIsActive(true);
+            return userRepository.save(created);
+        });
+        token = jwtUtil.generateToken(user);
+        probe.samples.clear();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/tasks/export", "/analytics/export"})
+    void noConnectionIsHeldWhileTheResponseIsWritten(String path) throws Exception {
+        mockMvc.perform(get(path).header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        assertFalse(probe.samples.isEmpty(), "nothing was written to the response");
+        assertEquals(0, probe.samples.get(0));
+    }
+
+    @TestConfiguration
+    static class ProbeConfig {
+
+        @Bean
+        ConnectionProbe connectionProbe(DataSource dataSource) {
+            return new ConnectionProbe(dataSource);
+        }
+    }
+
+    /**
+     * Records the pool's active connections when a response is first written to
+     */
+    static class ConnectionProbe extends OncePerRequestFilter {
+
+        private final DataSource dataSource;
+        final List<Integer> samples = new ArrayList<>();
+
+        ConnectionProbe(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            chain.doFilter(request, new HttpServletResponseWrapper(response) {
+                private ServletOutputStream out;
+
+                @Override
+                public ServletOutputStream getOutputStream() throws IOException {
+                    if (out == null) {
+                        out = new ProbingOutputStream(super.getOutputStream());
+                    }
+                    return out;
+                }
+            });
+        }
+
+        /**
+         * Fewest active connections over a few samples, so a background job's query does not count
+         */
+        private int activeConnections() {
+            int fewest = Integer.MAX_VALUE;
+            try {
+                HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+                for (int i = 0; i < 5; i++) {
+                    fewest = Math.min(fewest, pool.getHikariPoolMXBean().getActiveConnections());
+                    Thread.sleep(10);
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            return fewest;
+        }
+
+        private class ProbingOutputStream extends ServletOutputStream {
+
+            private final ServletOutputStream target;
+
+            ProbingOutputStream(ServletOutputStream target) {
+                this.target = target;
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                sample();
+                target.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                sample();
+                target.write(b, off, len);
+            }
+
+            @Override
+            public boolean isReady() {
+                return target.isReady();
+            }
+
+            @Override
+            public void setWriteListener(WriteListener listener) {
+                target.setWriteListener(listener);
+            }
+
+            private void sample() {
+                if (samples.isEmpty()) {
+                    samples.add(activeConnections());
+                }
+            }
+        }
+    }
+}
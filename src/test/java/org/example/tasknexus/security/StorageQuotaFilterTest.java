@@ -0,0 +1,90 @@
+package org.example.tasknexus.security;
+
+import org.example.tasknexus.exception.QuotaExceededException;
+import org.example.tasknexus.service.StorageQuotaService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StorageQuotaFilterTest {
+
+    private static final long REMAINING_BYTES = 100_000;
+
+    private final List<Long> checkedSizes = new ArrayList<>();
+    private StorageQuotaFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        StorageQuotaService quotaService = new StorageQuotaService() {
+            @Override
+            public void checkQuota(Long userId, long bytes) {
+                checkedSizes.add(bytes);
+                if (bytes > REMAINING_BYTES) {
+                    throw new QuotaExceededException("Storage quota exceeded");
+                }
+            }
+        };
+        filter = new StorageQuotaFilter();
+        ReflectionTestUtils.setField(filter, "storageQuotaService", quotaService);
+    }
+
+    @Test
+    void uploadOverQuotaIsRejectedBeforeTheBodyIsRead() throws Exception {
+        MockHttpServletRequest request = upload(200_000);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        assertEquals(413, response.getStatus());
+        assertTrue(response.getContentAsString().contains("Storage quota exceeded"));
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void uploadWithinQuotaPassesWithMultipartAllowance() throws Exception {
+        MockHttpServletRequest request = upload(50_000);
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertNotNull(chain.getRequest());
+        assertEquals(List.of(50_000L - 16 * 1024), checkedSizes);
+    }
+
+    @Test
+    void otherRequestsAreNotChecked() throws Exception {
+        MockHttpServletRequest get = upload(200_000);
+        get.setMethod("GET");
+        MockHttpServletRequest otherPath = upload(200_000);
+        otherPath.setServletPath("/tasks/7/attachments");
+        MockHttpServletRequest anonymous = upload(200_000);
+        anonymous.removeAttribute("userId");
+
+        for (MockHttpServletRequest request : List.of(get, otherPath, anonymous)) {
+            MockFilterChain chain = new MockFilterChain();
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+            assertNotNull(chain.getRequest());
+        }
+        assertEquals(List.of(), checkedSizes);
+    }
+
+    private MockHttpServletRequest upload(int contentLength) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/tasks/7/upload");
+        request.setServletPath("/tasks/7/upload");
+        request.setAttribute("userId", 1L);
+        request.setContent(new byte[contentLength]);
+        return request;
+    }
+}
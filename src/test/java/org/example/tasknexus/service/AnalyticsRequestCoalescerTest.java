@@ -0,0 +1,47 @@
+package org.example.tasknexus.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AnalyticsRequestCoalescerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AnalyticsRequestCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        coalescer = new AnalyticsRequestCoalescer();
+        ReflectionTestUtils.setField(coalescer, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(coalescer, "ttlMs", 60_000L);
+        ReflectionTestUtils.setField(coalescer, "maxEntries", 100);
+        coalescer.start();
+    }
+
+    @Test
+    void invalidateDropsOnlyThatUsersResults() {
+        AtomicInteger computations = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            coalescer.get(1L, "stats", computations::incrementAndGet);
+            coalescer.get(1L, "trends", computations::incrementAndGet);
+            coalescer.get(2L, "stats", computations::incrementAndGet);
+        }
+        assertEquals(3, computations.get());
+        assertEquals(3, meterRegistry.get("analytics.singleflight.entries").gauge().value());
+
+        coalescer.invalidate(1L);
+
+        assertEquals(1, meterRegistry.get("analytics.singleflight.entries").gauge().value());
+        coalescer.get(2L, "stats", computations::incrementAndGet);
+        assertEquals(3, computations.get());
+        coalescer.get(1L, "stats", computations::incrementAndGet);
+        assertEquals(4, computations.get());
+    }
+}
@@ -0,0 +1,335 @@
+package org.example.tasknexus.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.tasknexus.model.FileBlob;
+import org.example.tasknexus.repository.AttachmentRepository;
+import org.example.tasknexus.repository.FileBlobRepository;
+import org.example.tasknexus.storage.InMemoryStorageBackend;
+import org.example.tasknexus.storage.StorageBackend;
+import org.example.tasknexus.storage.StoredObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BlobStoreServiceTest {
+
+    @Autowired
+    private FileBlobRepository fileBlobRepository;
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private StorageBackend storage;
+    private BlobStoreService blobStoreService;
+
+    @BeforeEach
+    void setUp() {
+        fileBlobRepository.deleteAll();
+        storage = new InMemoryStorageBackend();
+        blobStoreService = newBlobStore(fileBlobRepository);
+    }
+
+    private BlobStoreService newBlobStore(FileBlobRepository blobs) {
+        HotFileCache hotFileCache = new HotFileCache();
+        ReflectionTestUtils.setField(hotFileCache, "storage", storage);
+
+        BlobStoreService blobStoreService = new BlobStoreService();
+        ReflectionTestUtils.setField(blobStoreService, "fileBlobRepository", blobs);
+        ReflectionTestUtils.setField(blobStoreService, "attachmentRepository", attachmentRepository);
+        ReflectionTestUtils.setField(blobStoreService, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(blobStoreService, "hotFileCache", hotFileCache);
+        ReflectionTestUtils.setField(blobStoreService, "storage", storage);
+        ReflectionTestUtils.setField(blobStoreService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(blobStoreService, "compressionEnabled", true);
+        ReflectionTestUtils.setField(blobStoreService, "compressibleTypes", Set.of("txt", "pdf"));
+        ReflectionTestUtils.setField(blobStoreService, "compressionLevel", 6);
+        ReflectionTestUtils.setField(blobStoreService, "compressionMinSize", 1024L);
+        ReflectionTestUtils.setField(blobStoreService, "maxCompressionRatio", 0.9);
+        blobStoreService.init();
+        return blobStoreService;
+    }
+
+    @Test
+    void identicalContentIsStoredOnceAndReferenceCounted() throws Exception {
+        byte[] content = "shared attachment content".getBytes(StandardCharsets.UTF_8);
+
+        BlobStoreService.StagedBlob first = stageAndCommit(content);
+        BlobStoreService.StagedBlob second = stageAndCommit(content);
+
+        assertEquals(first.hash(), second.hash());
+        assertEquals(2L, fileBlobRepository.findById(first.hash()).orElseThrow().getRefCount());
+        assertEquals(List.of(blobStoreService.blobKey(first.hash())), keys(BlobStoreService.BLOB_PREFIX + "/"));
+        assertEquals(List.of(), keys(BlobStoreService.STAGING_PREFIX + "/"));
+        assertArrayEquals(content, read(blobStoreService.blobKey(first.hash())));
+    }
+
+    @Test
+    void releaseDeletesContentWithTheLastReference() throws Exception {
+        byte[] content = "released content".getBytes(StandardCharsets.UTF_8);
+        String hash = stageAndCommit(content).hash();
+        stageAndCommit(content);
+
+        blobStoreService.release(hash);
+        assertEquals(1L, fileBlobRepository.findById(hash).orElseThrow().getRefCount());
+        assertTrue(storage.stat(blobStoreService.blobKey(hash)).isPresent());
+
+        blobStoreService.release(hash);
+        assertFalse(fileBlobRepository.existsById(hash));
+        assertFalse(storage.stat(blobStoreService.blobKey(hash)).isPresent());
+    }
+
+    @Test
+    void commitReferencesARowInsertedByAnotherNode() throws Exception {
+        byte[] content = "raced content".getBytes(StandardCharsets.UTF_8);
+        AtomicBoolean raced = new AtomicBoolean();
+
+        // The first reference check misses; another node then stores the same content before our insert
+        FileBlobRepository racing = (FileBlobRepository) Proxy.newProxyInstance(
+                FileBlobRepository.class.getClassLoader(), new Class<?>[]{FileBlobRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("adjustRefCount") && raced.compareAndSet(false, true)) {
+                        otherNodeStores((String) args[0], content);
+                        return 0;
+                    }
+                    try {
+                        return method.invoke(fileBlobRepository, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        blobStoreService = newBlobStore(racing);
+
+        BlobStoreService.StagedBlob staged = stageAndCommit(content);
+
+        assertTrue(raced.get());
+        assertEquals(2L, fileBlobRepository.findById(staged.hash()).orElseThrow().getRefCount());
+        assertEquals(List.of(), keys(BlobStoreService.STAGING_PREFIX + "/"));
+        assertArrayEquals(content, read(blobStoreService.blobKey(staged.hash())));
+    }
+
+    @Test
+    void contentIsDeletedBeforeTheRowDeleteCommits() throws Exception {
+        byte[] content = "released under the row lock".getBytes(StandardCharsets.UTF_8);
+        String hash = stageAndCommit(content).hash();
+        List<Boolean> rowVisible = new ArrayList<>();
+
+        // Another node committing the same content meanwhile still sees the row, so it waits on its lock
+        storage = intercepting(storage, "delete", args -> {
+            if (args[0].equals(blobStoreService.blobKey(hash))) {
+                rowVisible.add(otherNode().execute(status -> fileBlobRepository.existsById(hash)));
+            }
+        });
+        ReflectionTestUtils.setField(blobStoreService, "storage", storage);
+
+        blobStoreService.release(hash);
+
+        assertEquals(List.of(true), rowVisible);
+        assertFalse(fileBlobRepository.existsById(hash));
+        assertFalse(storage.stat(blobStoreService.blobKey(hash)).isPresent());
+    }
+
+    @Test
+    void newRowIsOnlyVisibleOnceItsContentIsInPlace() throws Exception {
+        byte[] content = "moved before the row commits".getBytes(StandardCharsets.UTF_8);
+        String hash = sha256(content);
+        List<Boolean> rowVisible = new ArrayList<>();
+        storage = intercepting(storage, "move", args -> rowVisible.add(
+                otherNode().execute(status -> fileBlobRepository.existsById(hash))));
+        ReflectionTestUtils.setField(blobStoreService, "storage", storage);
+
+        stageAndCommit(content);
+
+        assertEquals(List.of(false), rowVisible);
+        assertEquals(1L, fileBlobRepository.findById(hash).orElseThrow().getRefCount());
+        assertArrayEquals(content, read(blobStoreService.blobKey(hash)));
+    }
+
+    @Test
+    void failedMoveLeavesNoRow() throws Exception {
+        byte[] content = "never stored".getBytes(StandardCharsets.UTF_8);
+        storage = intercepting(storage, "move", args -> {
+            throw new IOException("storage unavailable");
+        });
+        ReflectionTestUtils.setField(blobStoreService, "storage", storage);
+
+        assertThrows(IOException.class, () -> stageAndCommit(content));
+        assertFalse(fileBlobRepository.existsById(sha256(content)));
+    }
+
+    @Test
+    void onlyUnreferencedObjectsAreDeletedAsOrphans() throws Exception {
+        byte[] orphan = "left behind by a crash".getBytes(StandardCharsets.UTF_8);
+        String orphanHash = sha256(orphan);
+        String orphanKey = blobStoreService.blobKey(orphanHash);
+        storage.put(orphanKey, new ByteArrayInputStream(orphan), orphan.length);
+        String referenced = stageAndCommit("still referenced".getBytes(StandardCharsets.UTF_8)).hash();
+
+        assertTrue(blobStoreService.deleteIfOrphaned(orphanHash, orphanKey));
+        assertFalse(blobStoreService.deleteIfOrphaned(referenced, blobStoreService.blobKey(referenced)));
+
+        assertFalse(storage.stat(orphanKey).isPresent());
+        // The placeholder claiming the orphan's hash is not left behind
+        assertFalse(fileBlobRepository.existsById(orphanHash));
+        assertTrue(storage.stat(blobStoreService.blobKey(referenced)).isPresent());
+    }
+
+    @Test
+    void compressibleContentIsStagedGzipped() throws Exception {
+        byte[] content = "line of plain text\n".repeat(2000).getBytes(StandardCharsets.UTF_8);
+
+        BlobStoreService.StagedBlob staged = blobStoreService.stage(
+                new ByteArrayInputStream(content), content.length, "txt");
+
+        assertEquals(BlobStoreService.CODEC_GZIP, staged.codec());
+        assertEquals(content.length, staged.size());
+        assertTrue(staged.storedSize() < content.length / 10, "stored " + staged.storedSize());
+        assertEquals(sha256(content), staged.hash());
+        assertEquals(crc32(content), staged.crc32());
+        assertArrayEquals(content, decoded(staged));
+    }
+
+    @Test
+    void incompressibleContentFallsBackToOriginalBytes() throws Exception {
+        byte[] content = new byte[64 * 1024];
+        new Random(7).nextBytes(content);
+
+        BlobStoreService.StagedBlob staged = blobStoreService.stage(
+                new ByteArrayInputStream(content), content.length, "pdf");
+
+        assertNull(staged.codec());
+        assertEquals(content.length, staged.storedSize());
+        assertEquals(sha256(content), staged.hash());
+        assertEquals(crc32(content), staged.crc32());
+        assertArrayEquals(content, read(staged.stagingKey()));
+        // The compressed attempt is not left behind
+        assertEquals(List.of(staged.stagingKey()), keys(BlobStoreService.STAGING_PREFIX + "/"));
+    }
+
+    @Test
+    void smallFilesAreNotCompressed() throws Exception {
+        byte[] content = "tiny".getBytes(StandardCharsets.UTF_8);
+
+        BlobStoreService.StagedBlob staged = blobStoreService.stage(
+                new ByteArrayInputStream(content), content.length, "txt");
+
+        assertNull(staged.codec());
+        assertArrayEquals(content, read(staged.stagingKey()));
+    }
+
+    @Test
+    void sizeMismatchDiscardsTheStagedObject() {
+        byte[] content = "line of plain text\n".repeat(200).getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(IOException.class, () -> blobStoreService.stage(
+                new ByteArrayInputStream(content), content.length + 1, "txt"));
+        assertEquals(List.of(), keys(BlobStoreService.STAGING_PREFIX + "/"));
+    }
+
+    private BlobStoreService.StagedBlob stageAndCommit(byte[] content) throws IOException {
+        BlobStoreService.StagedBlob staged = blobStoreService.stage(
+                new ByteArrayInputStream(content), content.length, "png");
+        blobStoreService.commit(staged);
+        return staged;
+    }
+
+    private void otherNodeStores(String hash, byte[] content) throws IOException {
+        otherNode().executeWithoutResult(status -> fileBlobRepository.save(
+                new FileBlob(hash, (long) content.length, (long) content.length, null, crc32(content), 1L, null)));
+        storage.put(blobStoreService.blobKey(hash), new ByteArrayInputStream(content), content.length);
+    }
+
+    private TransactionTemplate otherNode() {
+        TransactionTemplate otherNode = new TransactionTemplate(transactionManager);
+        otherNode.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return otherNode;
+    }
+
+    /**
+     * Storage that runs a check before each call of the named method
+     */
+    private static StorageBackend intercepting(StorageBackend target, String methodName, Interceptor interceptor) {
+        return (StorageBackend) Proxy.newProxyInstance(
+                StorageBackend.class.getClassLoader(), new Class<?>[]{StorageBackend.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals(methodName)) {
+                        interceptor.before(args);
+                    }
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private interface Interceptor {
+        void before(Object[] args) throws Exception;
+    }
+
+    private byte[] decoded(BlobStoreService.StagedBlob staged) throws IOException {
+        try (InputStream in = blobStoreService.decode(
+                Channels.newInputStream(storage.get(staged.stagingKey())), staged.codec())) {
+            return in.readAllBytes();
+        }
+    }
+
+    private byte[] read(String key) throws IOException {
+        try (InputStream in = Channels.newInputStream(storage.get(key))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private List<String> keys(String prefix) {
+        try (Stream<StoredObject> objects = storage.list(prefix)) {
+            return objects.map(StoredObject::key).toList();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String sha256(byte[] content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+
+    private static long crc32(byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        return crc.getValue();
+    }
+}
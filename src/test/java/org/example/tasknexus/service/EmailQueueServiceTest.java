@@ -0,0 +1,246 @@
+package org.example.tasknexus.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.example.tasknexus.model.EmailJob;
+import org.example.tasknexus.model.EmailJobStatus;
+import org.example.tasknexus.repository.EmailJobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EmailQueueServiceTest {
+
+    @Autowired
+    private EmailJobRepository emailJobRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private StubDeliveryEngine deliveryEngine;
+    private EmailQueueService queue;
+
+    @BeforeEach
+    void setUp() {
+        emailJobRepository.deleteAll();
+
+        deliveryEngine = new StubDeliveryEngine();
+        queue = new EmailQueueService();
+        ReflectionTestUtils.setField(queue, "emailJobRepository", emailJobRepository);
+        ReflectionTestUtils.setField(queue, "deliveryEngine", deliveryEngine);
+        ReflectionTestUtils.setField(queue, "mailSender", new JavaMailSenderImpl());
+        ReflectionTestUtils.setField(queue, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(queue, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(queue, "fromEmail", "noreply@example.com");
+        ReflectionTestUtils.setField(queue, "workerCount", 0);
+        ReflectionTestUtils.setField(queue, "batchSize", 10);
+        ReflectionTestUtils.setField(queue, "pollIntervalMs", 1000L);
+        ReflectionTestUtils.setField(queue, "maxAttempts", 3);
+        ReflectionTestUtils.setField(queue, "initialBackoffMs", 60_000L);
+        ReflectionTestUtils.setField(queue, "leaseMs", 300_000L);
+        queue.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        queue.stop();
+    }
+
+    @Test
+    void sendsDueJobsOnceEach() {
+        Long first = enqueue("a@example.com");
+        Long second = enqueue("b@example.com");
+
+        queue.poll();
+
+        assertEquals(EmailJobStatus.SENT, job(first).getStatus());
+        assertEquals(EmailJobStatus.SENT, job(second).getStatus());
+        assertEquals(1, job(first).getAttempts());
+        assertNull(job(first).getLeaseOwner());
+        // The queue owns retries, so the engine is asked for a single send per claim
+        assertEquals(List.of(1, 1), deliveryEngine.attemptLimits);
+    }
+
+    /**
+     * H2 locks every row a sorted FOR UPDATE reads, not just the rows it returns, so here the other
+     * worker holds all due jobs. How a batch is split between workers is only visible on PostgreSQL;
+     * this checks that a claim skips locked rows instead of waiting for them.
+     */
+    @Test
+    void claimingDoesNotWaitForRowsLockedByAnotherWorker() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            enqueue("user" + i + "@example.com");
+        }
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService otherWorker = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<EmailJob>> held = otherWorker.submit(() -> new TransactionTemplate(transactionManager)
+                    .execute(status -> {
+                        List<EmailJob> jobs = claimable(2);
+                        locked.countDown();
+                        await(release);
+                        return jobs;
+                    }));
+            assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+            // A plain FOR UPDATE would block here until the lock timeout
+            List<EmailJob> mine = new TransactionTemplate(transactionManager).execute(status -> claimable(10));
+            release.countDown();
+
+            List<EmailJob> theirs = held.get(5, TimeUnit.SECONDS);
+            assertEquals(2, theirs.size());
+            assertTrue(mine.size() <= 1);
+            assertTrue(mine.stream().noneMatch(job -> theirs.stream().anyMatch(other -> other.getId().equals(job.getId()))));
+            assertEquals(3, new TransactionTemplate(transactionManager).execute(status -> claimable(10)).size());
+        } finally {
+            release.countDown();
+            otherWorker.shutdownNow();
+        }
+    }
+
+    @Test
+    void failedSendIsRetriedWithBackoff() {
+        Long id = enqueue("retry@example.com");
+        deliveryEngine.outcome = () -> CompletableFuture.failedFuture(new MailSendException("550 mailbox busy"));
+
+        queue.poll();
+
+        EmailJob job = job(id);
+        assertEquals(EmailJobStatus.PENDING, job.getStatus());
+        assertEquals(1, job.getAttempts());
+        assertEquals("550 mailbox busy", job.getLastError());
+        assertTrue(job.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(50)));
+
+        // Not due again until the backoff has passed
+        queue.poll();
+        assertEquals(1, job(id).getAttempts());
+        assertEquals(1, deliveryEngine.attemptLimits.size());
+    }
+
+    @Test
+    void deadLettersAfterMaxAttempts() {
+        Long id = enqueue("dead@example.com");
+        deliveryEngine.outcome = () -> CompletableFuture.failedFuture(new MailSendException("550 no such user"));
+
+        for (int i = 0; i < 3; i++) {
+            makeDue(id);
+            queue.poll();
+        }
+
+        EmailJob job = job(id);
+        assertEquals(EmailJobStatus.DEAD, job.getStatus());
+        assertEquals(3, job.getAttempts());
+
+        makeDue(id);
+        queue.poll();
+        assertEquals(3, deliveryEngine.attemptLimits.size());
+    }
+
+    @Test
+    void fullDeliveryQueueIsNotCountedAsAnAttempt() {
+        Long id = enqueue("busy@example.com");
+        deliveryEngine.outcome = () -> {
+            throw new RejectedExecutionException("Mail queue is full");
+        };
+
+        assertFalse(queue.poll());
+
+        EmailJob job = job(id);
+        assertEquals(EmailJobStatus.PENDING, job.getStatus());
+        assertEquals(0, job.getAttempts());
+        assertNull(job.getLeaseOwner());
+        assertNull(job.getLastError());
+    }
+
+    @Test
+    void outcomeIsIgnoredOnceTheLeaseIsLost() {
+        Long id = enqueue("slow@example.com");
+        CompletableFuture<Void> delivery = new CompletableFuture<>();
+        deliveryEngine.outcome = () -> delivery;
+
+        queue.poll();
+
+        // The lease expired and another worker reclaimed the job
+        EmailJob reclaimed = job(id);
+        reclaimed.setLeaseOwner("another-worker");
+        emailJobRepository.save(reclaimed);
+
+        delivery.complete(null);
+
+        EmailJob job = job(id);
+        assertEquals(EmailJobStatus.SENDING, job.getStatus());
+        assertEquals("another-worker", job.getLeaseOwner());
+    }
+
+    private Long enqueue(String recipient) {
+        return queue.enqueue(recipient, "Subject", "Body", false).getId();
+    }
+
+    private EmailJob job(Long id) {
+        return emailJobRepository.findById(id).orElseThrow();
+    }
+
+    private void makeDue(Long id) {
+        EmailJob job = job(id);
+        job.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        emailJobRepository.save(job);
+    }
+
+    private List<EmailJob> claimable(int limit) {
+        return emailJobRepository.findClaimable(EmailJobStatus.PENDING.name(), EmailJobStatus.SENDING.name(),
+                LocalDateTime.now(), limit);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Delivery engine that completes sends as the test dictates, without SMTP
+     */
+    private static class StubDeliveryEngine extends MailDeliveryEngine {
+        private final List<Integer> attemptLimits = new ArrayList<>();
+        private Supplier<CompletableFuture<Void>> outcome = () -> CompletableFuture.completedFuture(null);
+
+        @Override
+        public CompletableFuture<Void> submit(MimeMessage message, int attempts) {
+            CompletableFuture<Void> result = outcome.get();
+            attemptLimits.add(attempts);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.tasknexus.service;
+
+import org.example.tasknexus.dto.TaskNotification;
+import org.example.tasknexus.model.EmailJob;
+import org.example.tasknexus.model.Task;
+import org.example.tasknexus.model.User;
+import org.example.tasknexus.util.EmailTemplateEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmailServiceTest {
+
+    private final List<String> bodies = new ArrayList<>();
+    private EmailService emailService;
+
+    @BeforeEach
+    void setUp() {
+        EmailQueueService queue = new EmailQueueService() {
+            @Override
+            public EmailJob enqueue(String recipient, String subject, String body, boolean html) {
+                bodies.add(body);
+                return new EmailJob();
+            }
+        };
+        EmailTemplateEngine templateEngine = new EmailTemplateEngine();
+        ReflectionTestUtils.setField(templateEngine, "overrideDir", "");
+        templateEngine.init();
+
+        emailService = new EmailService();
+        ReflectionTestUtils.setField(emailService, "emailQueueService", queue);
+        ReflectionTestUtils.setField(emailService, "templateEngine", templateEngine);
+    }
+
+    @Test
+    void missingOptionalFieldsRenderInsteadOfFailing() {
+        User user = new User();
+        user.setEmail("nameless@example.com");
+        Task task = new Task();
+        task.setTitle("Untitled work");
+        task.setPriority(null);
+        task.setStatus(null);
+
+        emailService.sendWelcomeEmail(user);
+        emailService.sendTaskCreatedEmail(user, task);
+        emailService.sendTaskCompletedEmail(user, task);
+        emailService.sendTaskReminderEmail(user, task);
+        emailService.sendTaskDigestEmail(user, List.of(TaskNotification.of(TaskNotification.Type.CREATED, task)));
+
+        assertEquals(5, bodies.size());
+        assertTrue(bodies.get(1).contains("No description"));
+        assertTrue(bodies.get(3).contains("Not set"));
+        assertTrue(bodies.get(4).contains("Untitled work"));
+    }
+}
@@ -0,0 +1,252 @@
+package org.example.tasknexus.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileDownloadServiceTest {
+
+    private static final String CONTENT = "abcdefghijklmnopqrstuvwxyz".repeat(4).substring(0, 100);
+    private static final Instant LAST_MODIFIED = Instant.parse("2024-05-24T10:00:00Z");
+    private static final String LAST_MODIFIED_HEADER = "Fri, 24 May 2024 10:00:00 GMT";
+
+    @TempDir
+    Path tempDir;
+
+    private FileDownloadService downloadService;
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = tempDir.resolve("report.txt");
+        Files.writeString(file, CONTENT, StandardCharsets.US_ASCII);
+        Files.setLastModifiedTime(file, FileTime.from(LAST_MODIFIED));
+
+        downloadService = new FileDownloadService();
+        ReflectionTestUtils.setField(downloadService, "hotFileCache", new HotFileCache());
+        ReflectionTestUtils.setField(downloadService, "maxRanges", 16);
+        ReflectionTestUtils.setField(downloadService, "sendfileEnabled", false);
+    }
+
+    @Test
+    void wholeFileWithValidators() throws IOException {
+        MockHttpServletResponse response = serve(get());
+
+        assertEquals(200, response.getStatus());
+        assertEquals(100, response.getContentLengthLong());
+        assertEquals(CONTENT, response.getContentAsString());
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertEquals(LAST_MODIFIED_HEADER, response.getHeader(HttpHeaders.LAST_MODIFIED));
+        assertTrue(response.getHeader(HttpHeaders.ETAG).startsWith("\""));
+    }
+
+    @Test
+    void headSendsHeadersOnly() throws IOException {
+        MockHttpServletRequest request = get();
+        request.setMethod("HEAD");
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-9");
+
+        MockHttpServletResponse response = serve(request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals(10, response.getContentLengthLong());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void boundedRange() throws IOException {
+        MockHttpServletResponse response = serve(range("bytes=10-19"));
+
+        assertPartial(response, 10, 19);
+    }
+
+    @Test
+    void openEndedRange() throws IOException {
+        assertPartial(serve(range("bytes=90-")), 90, 99);
+    }
+
+    @Test
+    void suffixRangeCountsFromTheEnd() throws IOException {
+        assertPartial(serve(range("bytes=-10")), 90, 99);
+        // A suffix longer than the file is the whole file
+        assertPartial(serve(range("bytes=-500")), 0, 99);
+    }
+
+    @Test
+    void zeroLengthSuffixIsUnsatisfiable() throws IOException {
+        assertUnsatisfiable(serve(range("bytes=-0")));
+    }
+
+    @Test
+    void rangeEndPastEofIsClamped() throws IOException {
+        assertPartial(serve(range("bytes=95-200")), 95, 99);
+    }
+
+    @Test
+    void rangeStartingAtOrPastEofIsUnsatisfiable() throws IOException {
+        assertUnsatisfiable(serve(range("bytes=100-")));
+        assertUnsatisfiable(serve(range("bytes=150-160")));
+        // Unsatisfiable parts are dropped when another part can be served
+        assertPartial(serve(range("bytes=150-160, 0-4")), 0, 4);
+    }
+
+    @Test
+    void malformedRangeIsIgnored() throws IOException {
+        for (String header : new String[]{"bytes=abc", "bytes=5", "items=0-4"}) {
+            MockHttpServletResponse response = serve(range(header));
+            assertEquals(200, response.getStatus(), header);
+            assertEquals(CONTENT, response.getContentAsString(), header);
+        }
+    }
+
+    @Test
+    void tooManyRangesFallBackToTheWholeFile() throws IOException {
+        ReflectionTestUtils.setField(downloadService, "maxRanges", 2);
+
+        assertEquals(206, serve(range("bytes=0-1,3-4")).getStatus());
+
+        MockHttpServletResponse response = serve(range("bytes=0-1,3-4,6-7"));
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(CONTENT, response.getContentAsString());
+    }
+
+    @Test
+    void ifRangeWithTheCurrentETagServesTheRange() throws IOException {
+        String etag = serve(get()).getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletRequest current = range("bytes=0-4");
+        current.addHeader(HttpHeaders.IF_RANGE, etag);
+        assertPartial(serve(current), 0, 4);
+
+        MockHttpServletRequest stale = range("bytes=0-4");
+        stale.addHeader(HttpHeaders.IF_RANGE, "\"0-0\"");
+        assertEquals(200, serve(stale).getStatus());
+
+        // If-Range requires a strong match
+        MockHttpServletRequest weak = range("bytes=0-4");
+        weak.addHeader(HttpHeaders.IF_RANGE, "W/" + etag);
+        assertEquals(200, serve(weak).getStatus());
+    }
+
+    @Test
+    void ifRangeWithADateMustMatchLastModifiedExactly() throws IOException {
+        MockHttpServletRequest current = range("bytes=0-4");
+        current.addHeader(HttpHeaders.IF_RANGE, LAST_MODIFIED_HEADER);
+        assertPartial(serve(current), 0, 4);
+
+        MockHttpServletRequest older = range("bytes=0-4");
+        older.addHeader(HttpHeaders.IF_RANGE, "Fri, 24 May 2024 09:59:59 GMT");
+        MockHttpServletResponse response = serve(older);
+        assertEquals(200, response.getStatus());
+        assertEquals(CONTENT, response.getContentAsString());
+    }
+
+    @Test
+    void matchingETagIsNotModified() throws IOException {
+        String etag = serve(get()).getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other\", " + etag);
+        MockHttpServletResponse response = serve(request);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals(etag, response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void ifModifiedSinceIsOnlyUsedWithoutAnETagCondition() throws IOException {
+        MockHttpServletRequest unchanged = get();
+        unchanged.addHeader(HttpHeaders.IF_MODIFIED_SINCE, LAST_MODIFIED_HEADER);
+        assertEquals(304, serve(unchanged).getStatus());
+
+        MockHttpServletRequest changed = get();
+        changed.addHeader(HttpHeaders.IF_MODIFIED_SINCE, "Fri, 24 May 2024 09:00:00 GMT");
+        assertEquals(200, serve(changed).getStatus());
+
+        MockHttpServletRequest otherTag = get();
+        otherTag.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other\"");
+        otherTag.addHeader(HttpHeaders.IF_MODIFIED_SINCE, LAST_MODIFIED_HEADER);
+        assertEquals(200, serve(otherTag).getStatus());
+    }
+
+    @Test
+    void multipartContentLengthMatchesTheBytesWritten() throws IOException {
+        MockHttpServletResponse response = serve(range("bytes=0-4, 10-14, -3"));
+
+        assertEquals(206, response.getStatus());
+        String contentType = response.getContentType();
+        assertTrue(contentType.startsWith("multipart/byteranges; boundary="), contentType);
+        String boundary = contentType.substring(contentType.indexOf('=') + 1);
+
+        byte[] body = response.getContentAsByteArray();
+        assertEquals(response.getContentLengthLong(), body.length);
+
+        String text = new String(body, StandardCharsets.US_ASCII);
+        assertEquals(
+                part(boundary, 0, 4) + part(boundary, 10, 14) + part(boundary, 97, 99) + "\r\n--" + boundary + "--\r\n",
+                text);
+    }
+
+    @Test
+    void multipartHeadReportsTheSameLength() throws IOException {
+        long length = serve(range("bytes=0-4, 10-14")).getContentLengthLong();
+
+        MockHttpServletRequest head = range("bytes=0-4, 10-14");
+        head.setMethod("HEAD");
+        MockHttpServletResponse response = serve(head);
+
+        assertEquals(length, response.getContentLengthLong());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    private MockHttpServletResponse serve(MockHttpServletRequest request) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        downloadService.serve(file, "report.txt", "text/plain", request, response);
+        return response;
+    }
+
+    private static MockHttpServletRequest get() {
+        return new MockHttpServletRequest("GET", "/files/report.txt");
+    }
+
+    private static MockHttpServletRequest range(String header) {
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.RANGE, header);
+        return request;
+    }
+
+    private static void assertPartial(MockHttpServletResponse response, int start, int end) throws IOException {
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes " + start + "-" + end + "/100", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(end - start + 1, response.getContentLengthLong());
+        assertEquals(CONTENT.substring(start, end + 1), response.getContentAsString());
+    }
+
+    private static void assertUnsatisfiable(MockHttpServletResponse response) {
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */100", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    private static String part(String boundary, int start, int end) {
+        return "\r\n--" + boundary + "\r\nContent-Type: text/plain\r\nContent-Range: bytes "
+                + start + "-" + end + "/100\r\n\r\n" + CONTENT.substring(start, end + 1);
+    }
+}
@@ -0,0 +1,248 @@
+package org.example.tasknexus.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.tasknexus.storage.LocalStorageBackend;
+import org.example.tasknexus.storage.StorageBackend;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HotFileCacheTest {
+
+    private static final int FILE_SIZE = 4096;
+
+    @TempDir
+    Path tempDir;
+
+    private StorageBackend storage;
+    private SimpleMeterRegistry meterRegistry;
+    private HotFileCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = newCache(new HotFileCache());
+    }
+
+    private HotFileCache newCache(HotFileCache cache) {
+        storage = new LocalStorageBackend(tempDir.resolve("storage"));
+        meterRegistry = new SimpleMeterRegistry();
+
+        ReflectionTestUtils.setField(cache, "storage", storage);
+        ReflectionTestUtils.setField(cache, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxBytes", 2L * FILE_SIZE);
+        ReflectionTestUtils.setField(cache, "minFileSize", 1024L);
+        ReflectionTestUtils.setField(cache, "maxFileSize", 1024L * 1024);
+        ReflectionTestUtils.setField(cache, "minFrequency", 3);
+        ReflectionTestUtils.setField(cache, "trackedFiles", 1000);
+        cache.init();
+        return cache;
+    }
+
+    @Test
+    void fileIsMappedOnceRequestedMinFrequencyTimes() throws IOException {
+        Path file = file("a", 1);
+
+        assertTrue(cache.get(file, FILE_SIZE).isEmpty());
+        assertTrue(cache.get(file, FILE_SIZE).isEmpty());
+        Optional<ByteBuffer> mapped = cache.get(file, FILE_SIZE);
+
+        assertTrue(mapped.isPresent());
+        assertArrayEquals(Files.readAllBytes(file), bytes(mapped.get()));
+        assertEquals(1, cache.size());
+        assertEquals(FILE_SIZE, cache.getMappedBytes());
+        assertEquals(3, meterRegistry.get("storage.mmap.requests").tag("result", "miss").counter().count());
+
+        assertTrue(cache.get(file, FILE_SIZE).isPresent());
+        assertEquals(1, meterRegistry.get("storage.mmap.requests").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void returnedBuffersAreIndependentViews() throws IOException {
+        Path file = file("a", 1);
+        ByteBuffer first = hot(file);
+
+        first.position(100).limit(200);
+
+        ByteBuffer second = cache.get(file, FILE_SIZE).orElseThrow();
+        assertEquals(0, second.position());
+        assertEquals(FILE_SIZE, second.limit());
+    }
+
+    @Test
+    void filesOutsideTheSizeLimitsAreNeverMapped() throws IOException {
+        Path small = tempDir.resolve("small");
+        Files.write(small, new byte[512]);
+        // Larger than the whole budget
+        Path large = tempDir.resolve("large");
+        Files.write(large, new byte[16 * 1024]);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(cache.get(small, 512).isEmpty());
+            assertTrue(cache.get(large, 16 * 1024).isEmpty());
+        }
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void newFileOnlyDisplacesLessFrequentlyUsedMappings() throws IOException {
+        Path a = file("a", 1);
+        Path b = file("b", 2);
+        Path c = file("c", 3);
+        hot(a);
+        hot(b);
+
+        // As frequent as the mappings it would evict: not admitted
+        for (int i = 0; i < 3; i++) {
+            assertTrue(cache.get(c, FILE_SIZE).isEmpty());
+        }
+        assertEquals(2, cache.size());
+
+        // More frequent: evicts the least recently used mapping, a
+        assertTrue(cache.get(c, FILE_SIZE).isPresent());
+        assertEquals(2, cache.size());
+        assertEquals(2L * FILE_SIZE, cache.getMappedBytes());
+        assertEquals(1, meterRegistry.get("storage.mmap.evictions").counter().count());
+
+        // b is still mapped; a has to earn its place again
+        double hits = meterRegistry.get("storage.mmap.requests").tag("result", "hit").counter().count();
+        assertTrue(cache.get(b, FILE_SIZE).isPresent());
+        assertEquals(hits + 1, meterRegistry.get("storage.mmap.requests").tag("result", "hit").counter().count());
+        assertTrue(cache.get(a, FILE_SIZE).isEmpty());
+    }
+
+    @Test
+    void invalidateDropsTheMapping() throws IOException {
+        Path file = file("a", 1);
+        hot(file);
+
+        cache.invalidate(file);
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getMappedBytes());
+    }
+
+    @Test
+    void invalidateByStorageKeyUsesTheLocalPath() throws IOException {
+        byte[] content = content(7);
+        storage.put("blobs/ab/cd/hash", new ByteArrayInputStream(content), content.length);
+        Path file = storage.localPath("blobs/ab/cd/hash").orElseThrow();
+        hot(file);
+
+        cache.invalidate("blobs/ab/cd/hash");
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void fileReplacedWithADifferentSizeIsRemapped() throws IOException {
+        Path file = file("a", 1);
+        hot(file);
+
+        byte[] replaced = Arrays.copyOf(content(9), FILE_SIZE * 2);
+        Files.write(file, replaced);
+        ByteBuffer remapped = cache.get(file, replaced.length).orElseThrow();
+
+        assertArrayEquals(replaced, bytes(remapped));
+        assertEquals(1, cache.size());
+        assertEquals(replaced.length, cache.getMappedBytes());
+    }
+
+    @Test
+    void otherLookupsDoNotWaitWhileAFileIsMapped() throws Exception {
+        Path a = file("a", 1);
+        Path b = file("b", 2);
+        List<Boolean> mappedB = new ArrayList<>();
+        cache = newCache(new HotFileCache() {
+            @Override
+            MappedByteBuffer map(Path key, long size) {
+                if (key.endsWith("a")) {
+                    // Runs on another thread, so it would block if the lock were held
+                    mappedB.add(CompletableFuture.supplyAsync(() -> hotFile(b))
+                            .orTimeout(5, TimeUnit.SECONDS).join());
+                }
+                return super.map(key, size);
+            }
+        });
+
+        hot(a);
+
+        assertEquals(List.of(true), mappedB);
+        assertEquals(2, cache.size());
+        assertEquals(2L * FILE_SIZE, cache.getMappedBytes());
+    }
+
+    @Test
+    void fileInvalidatedWhileBeingMappedIsNotCached() throws IOException {
+        Path file = file("a", 1);
+        cache = newCache(new HotFileCache() {
+            @Override
+            MappedByteBuffer map(Path key, long size) {
+                MappedByteBuffer mapped = super.map(key, size);
+                invalidate(key);
+                return mapped;
+            }
+        });
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(cache.get(file, FILE_SIZE).isEmpty());
+        }
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getMappedBytes());
+    }
+
+    private ByteBuffer hot(Path file) {
+        ByteBuffer mapped = null;
+        for (int i = 0; i < 3; i++) {
+            mapped = cache.get(file, FILE_SIZE).orElse(null);
+        }
+        assertFalse(mapped == null, file + " was not mapped");
+        return mapped;
+    }
+
+    private boolean hotFile(Path file) {
+        for (int i = 0; i < 3; i++) {
+            if (cache.get(file, FILE_SIZE).isPresent()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Path file(String name, int seed) throws IOException {
+        Path file = tempDir.resolve(name);
+        Files.write(file, content(seed));
+        return file;
+    }
+
+    private static byte[] content(int seed) {
+        byte[] content = new byte[FILE_SIZE];
+        Arrays.fill(content, (byte) seed);
+        return content;
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,223 @@
+package org.example.tasknexus.service;
+
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MailDeliveryEngineTest {
+
+    private FakeSmtpServer server;
+    private JavaMailSenderImpl mailSender;
+    private MailDeliveryEngine engine;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new FakeSmtpServer();
+        server.start();
+
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(server.getPort());
+
+        engine = new MailDeliveryEngine();
+        ReflectionTestUtils.setField(engine, "mailSender", mailSender);
+        ReflectionTestUtils.setField(engine, "connections", 2);
+        ReflectionTestUtils.setField(engine, "batchSize", 10);
+        ReflectionTestUtils.setField(engine, "queueCapacity", 100);
+        ReflectionTestUtils.setField(engine, "offerTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(engine, "maxAttempts", 5);
+        ReflectionTestUtils.setField(engine, "initialBackoffMs", 10L);
+        ReflectionTestUtils.setField(engine, "idleTimeoutMs", 30000L);
+        engine.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        engine.stop();
+        server.stop();
+    }
+
+    @Test
+    void sendsManyMessagesOverFewConnections() throws Exception {
+        for (int i = 0; i < 25; i++) {
+            engine.submit(message("user" + i + "@example.com"));
+        }
+
+        server.awaitMessages(25);
+        assertEquals(25, server.messages.get());
+        assertTrue(server.connections.get() <= 2, "connections: " + server.connections.get());
+    }
+
+    @Test
+    void retriesTransientFailures() throws Exception {
+        server.failuresRemaining.set(2);
+
+        engine.submit(message("retry@example.com"));
+
+        server.awaitMessages(1);
+        assertEquals(1, server.messages.get());
+        assertEquals(0, server.failuresRemaining.get());
+    }
+
+    @Test
+    void unexpectedExceptionFailsOnlyThatMessage() throws Exception {
+        restart(1, 10L);
+        MimeMessage broken = new MimeMessage(mailSender.getSession()) {
+            @Override
+            public void saveChanges() {
+                throw new IllegalStateException("broken message");
+            }
+        };
+
+        CompletableFuture<Void> failed = engine.submit(broken, 1);
+        CompletableFuture<Void> sent = engine.submit(message("after@example.com"));
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> failed.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+        // The only worker is still running
+        sent.get(10, TimeUnit.SECONDS);
+        assertEquals(1, server.messages.get());
+    }
+
+    @Test
+    void stopFailsMailWaitingForARetry() throws Exception {
+        restart(1, 60_000L);
+        server.failuresRemaining.set(1);
+
+        CompletableFuture<Void> result = engine.submit(message("later@example.com"));
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (server.failuresRemaining.get() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        engine.stop();
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> result.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, error.getCause());
+    }
+
+    private void restart(int connections, long initialBackoffMs) throws InterruptedException {
+        engine.stop();
+        ReflectionTestUtils.setField(engine, "connections", connections);
+        ReflectionTestUtils.setField(engine, "initialBackoffMs", initialBackoffMs);
+        engine.start();
+    }
+
+    private MimeMessage message(String to) throws Exception {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+        helper.setFrom("noreply@tasknexus.com");
+        helper.setTo(to);
+        helper.setSubject("Test");
+        helper.setText("Hello", false);
+        return message;
+    }
+
+    /**
+     * Minimal in-process SMTP server that accepts everything and counts sessions and messages
+     */
+    private static class FakeSmtpServer {
+
+        private final AtomicInteger connections = new AtomicInteger();
+        private final AtomicInteger messages = new AtomicInteger();
+        private final AtomicInteger failuresRemaining = new AtomicInteger();
+
+        private ServerSocket serverSocket;
+
+        void start() throws IOException {
+            serverSocket = new ServerSocket(0);
+            Thread acceptor = new Thread(() -> {
+                while (!serverSocket.isClosed()) {
+                    try {
+                        Socket socket = serverSocket.accept();
+                        connections.incrementAndGet();
+                        Thread session = new Thread(() -> handle(socket));
+                        session.setDaemon(true);
+                        session.start();
+                    } catch (IOException e) {
+                        return;
+                    }
+                }
+            });
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        void stop() throws IOException {
+            serverSocket.close();
+        }
+
+        void awaitMessages(int expected) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (messages.get() < expected && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+        }
+
+        private void handle(Socket socket) {
+            try (socket;
+                 BufferedReader in = new BufferedReader(
+                         new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                 PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.US_ASCII)) {
+                reply(out, "220 localhost ESMTP");
+
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                    switch (command) {
+                        case "EHLO", "HELO" -> reply(out, "250 localhost");
+                        case "DATA" -> {
+                            reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                            while ((line = in.readLine()) != null && !line.equals(".")) {
+                                // discard body
+                            }
+                            if (failuresRemaining.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                                reply(out, "451 Try again later");
+                            } else {
+                                messages.incrementAndGet();
+                                reply(out, "250 OK");
+                            }
+                        }
+                        case "QUIT" -> {
+                            reply(out, "221 Bye");
+                            return;
+                        }
+                        default -> reply(out, "250 OK");
+                    }
+                }
+            } catch (IOException e) {
+                // client went away
+            }
+        }
+
+        private void reply(PrintWriter out, String line) {
+            out.print(line + "\r\n");
+            out.flush();
+        }
+    }
+}
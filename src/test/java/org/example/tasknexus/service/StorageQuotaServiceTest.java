@@ -0,0 +1,185 @@
+package org.example.tasknexus.service;
+
+import org.example.tasknexus.exception.QuotaExceededException;
+import org.example.tasknexus.model.Attachment;
+import org.example.tasknexus.model.Role;
+import org.example.tasknexus.model.User;
+import org.example.tasknexus.model.UserStorageUsage;
+import org.example.tasknexus.repository.AttachmentRepository;
+import org.example.tasknexus.repository.UserRepository;
+import org.example.tasknexus.repository.UserStorageUsageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StorageQuotaServiceTest {
+
+    @Autowired
+    private UserStorageUsageRepository usageRepository;
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private StorageQuotaService quotaService;
+    private TransactionTemplate transactionTemplate;
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        attachmentRepository.deleteAll();
+        usageRepository.deleteAll();
+        userRepository.deleteAll();
+        userId = createUser("quota").getId();
+
+        quotaService = new StorageQuotaService();
+        ReflectionTestUtils.setField(quotaService, "usageRepository", usageRepository);
+        ReflectionTestUtils.setField(quotaService, "attachmentRepository", attachmentRepository);
+        ReflectionTestUtils.setField(quotaService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(quotaService, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(quotaService, "enabled", true);
+        ReflectionTestUtils.setField(quotaService, "maxBytes", 1000L);
+        ReflectionTestUtils.setField(quotaService, "maxFiles", 3L);
+        quotaService.init();
+
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void firstUploadCreatesCountersFromExistingAttachments() {
+        attachmentRepository.save(attachment(300));
+
+        upload(100);
+
+        assertUsage(400, 2);
+    }
+
+    @Test
+    void uploadOverTheByteLimitIsRejectedAndRolledBack() {
+        upload(600);
+
+        assertThrows(QuotaExceededException.class, () -> upload(500));
+
+        assertUsage(600, 1);
+        assertEquals(1, attachmentRepository.count());
+    }
+
+    @Test
+    void firstUploadOverTheLimitIsRejected() {
+        attachmentRepository.save(attachment(900));
+
+        assertThrows(QuotaExceededException.class, () -> upload(200));
+
+        // The counters were created from committed attachments only
+        assertUsage(900, 1);
+    }
+
+    @Test
+    void fileCountLimitIsEnforced() {
+        for (int i = 0; i < 3; i++) {
+            upload(1);
+        }
+
+        assertThrows(QuotaExceededException.class, () -> upload(1));
+        assertUsage(3, 3);
+    }
+
+    @Test
+    void removedAttachmentsAreCredited() {
+        String filename = upload(600);
+
+        remove(filename);
+
+        assertUsage(0, 0);
+    }
+
+    @Test
+    void removalWithoutCountersStartsFromCommittedAttachments() {
+        Attachment kept = attachmentRepository.save(attachment(200));
+        Attachment removed = attachmentRepository.save(attachment(300));
+
+        remove(removed.getFilename());
+
+        assertUsage(kept.getSize(), 1);
+    }
+
+    @Test
+    void reconcileCorrectsDrift() {
+        upload(250);
+        upload(50);
+        UserStorageUsage drifted = usageRepository.findById(userId).orElseThrow();
+        drifted.setUsedBytes(9999L);
+        drifted.setFileCount(7L);
+        usageRepository.save(drifted);
+
+        quotaService.reconcileAll();
+
+        assertUsage(300, 2);
+    }
+
+    @Test
+    void reconcileLeavesUsersWithoutCountersAlone() {
+        attachmentRepository.save(attachment(100));
+
+        quotaService.reconcileAll();
+
+        assertEquals(List.of(), usageRepository.findAll());
+    }
+
+    private String upload(long size) {
+        Attachment attachment = attachment(size);
+        transactionTemplate.executeWithoutResult(status -> {
+            attachmentRepository.save(attachment);
+            quotaService.attachmentAdded(userId, size);
+        });
+        return attachment.getFilename();
+    }
+
+    private void remove(String filename) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Attachment attachment = attachmentRepository.findById(filename).orElseThrow();
+            attachmentRepository.delete(attachment);
+            quotaService.attachmentsRemoved(List.of(attachment));
+        });
+    }
+
+    private Attachment attachment(long size) {
+        return new Attachment(UUID.randomUUID() + ".txt", "hash", 1L, userId, "file.txt", size, null);
+    }
+
+    private void assertUsage(long bytes, long files) {
+        UserStorageUsage usage = usageRepository.findById(userId).orElseThrow();
+        assertEquals(bytes, usage.getUsedBytes());
+        assertEquals(files, usage.getFileCount());
+    }
+
+    private User createUser(String username) {
+        User user = new User();
+        user.setEmail(username + "@example.com");
+        user.setUsername(username);
+        user.setPassword("secret");
+        user.setFullName("Quota User");
+        user.setRole(Role.USER);
+        user.setIsActive(true);
+        return userRepository.save(user);
+    }
+}
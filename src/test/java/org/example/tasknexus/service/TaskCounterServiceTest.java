@@ -0,0 +1,94 @@
+package org.example.tasknexus.service;
+
+import org.example.tasknexus.model.Role;
+import org.example.tasknexus.model.Task;
+import org.example.tasknexus.model.User;
+import org.example.tasknexus.repository.TaskCounterRepository;
+import org.example.tasknexus.repository.TaskRepository;
+import org.example.tasknexus.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TaskCounterServiceTest {
+
+    @Autowired
+    private TaskCounterRepository taskCounterRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TaskCounterService counterService;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        taskCounterRepository.deleteAll();
+        taskRepository.deleteAll();
+        userRepository.deleteAll();
+
+        counterService = new TaskCounterService();
+        ReflectionTestUtils.setField(counterService, "taskCounterRepository", taskCounterRepository);
+        ReflectionTestUtils.setField(counterService, "taskRepository", taskRepository);
+        ReflectionTestUtils.setField(counterService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(counterService, "transactionManager", transactionManager);
+
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void totalsComeFromCountersAndFallBackToTheTasksTable() {
+        Long counted = createUser("counted").getId();
+        Long uncounted = createUser("uncounted").getId();
+        Long idle = createUser("idle").getId();
+        createTasks(counted, 3);
+        transactionTemplate.executeWithoutResult(status -> counterService.initialize(counted));
+        // Not recorded in the counters, so it only shows up after the next reconcile
+        createTasks(counted, 1);
+        createTasks(uncounted, 2);
+
+        Map<Long, Long> totals = counterService.getTotals(List.of(counted, uncounted, idle));
+
+        assertEquals(Map.of(counted, 3L, uncounted, 2L, idle, 0L), totals);
+        assertEquals(Map.of(), counterService.getTotals(List.of()));
+    }
+
+    private void createTasks(Long userId, int count) {
+        for (int i = 0; i < count; i++) {
+            Task task = new Task();
+            task.setTitle("Task " + i);
+            task.setUserId(userId);
+            taskRepository.save(task);
+        }
+    }
+
+    private User createUser(String username) {
+        User user = new User();
+        user.setEmail(username + "@example.com");
+        user.setUsername(username);
+        user.setPassword("secret");
+        user.setFullName("Counter User");
+        user.setRole(Role.USER);
+        user.setIsActive(true);
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,156 @@
+package org.example.tasknexus.service;
+
+import org.example.tasknexus.dto.TrendPoint;
+import org.example.tasknexus.model.Role;
+import org.example.tasknexus.model.TaskStatus;
+import org.example.tasknexus.model.User;
+import org.example.tasknexus.repository.TaskDailyStatsRepository;
+import org.example.tasknexus.repository.TaskRepository;
+import org.example.tasknexus.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TaskRollupServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+    private static final LocalDateTime FOUR_DAYS_AGO = NOW.minusDays(4);
+    private static final LocalDateTime THREE_DAYS_AGO = NOW.minusDays(3);
+    private static final LocalDateTime TWO_DAYS_AGO = NOW.minusDays(2);
+
+    @Autowired
+    private TaskDailyStatsRepository taskDailyStatsRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TaskRollupService rollupService;
+    private TransactionTemplate transactionTemplate;
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        taskDailyStatsRepository.deleteAll();
+        taskRepository.deleteAll();
+        userRepository.deleteAll();
+        userId = createUser("rollup").getId();
+
+        rollupService = new TaskRollupService();
+        ReflectionTestUtils.setField(rollupService, "taskDailyStatsRepository", taskDailyStatsRepository);
+        ReflectionTestUtils.setField(rollupService, "taskRepository", taskRepository);
+        ReflectionTestUtils.setField(rollupService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(rollupService, "transactionManager", transactionManager);
+
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void openTaskIsOverdueOnceItsDueDayIsOver() {
+        record(null, open(TaskStatus.IN_PROGRESS));
+
+        assertTrends(point(FOUR_DAYS_AGO, 1, 0, 0), point(TWO_DAYS_AGO, 0, 0, 1));
+    }
+
+    @Test
+    void completingLateRemovesTheTaskFromOverdue() {
+        TaskRollupService.Snapshot open = open(TaskStatus.PENDING);
+        record(null, open);
+
+        record(open, new TaskRollupService.Snapshot(TaskStatus.COMPLETED, FOUR_DAYS_AGO, NOW.minusDays(1), TWO_DAYS_AGO));
+
+        assertTrends(point(FOUR_DAYS_AGO, 1, 0, 0), point(NOW.minusDays(1), 0, 1, 0));
+    }
+
+    @Test
+    void cancelledTaskIsNotOverdue() {
+        TaskRollupService.Snapshot open = open(TaskStatus.PENDING);
+        record(null, open);
+
+        record(open, new TaskRollupService.Snapshot(TaskStatus.CANCELLED, FOUR_DAYS_AGO, null, TWO_DAYS_AGO));
+
+        assertTrends(point(FOUR_DAYS_AGO, 1, 0, 0));
+    }
+
+    @Test
+    void reopeningACompletedTaskWithdrawsTheCompletion() {
+        TaskRollupService.Snapshot completed =
+                new TaskRollupService.Snapshot(TaskStatus.COMPLETED, FOUR_DAYS_AGO, THREE_DAYS_AGO, TWO_DAYS_AGO);
+        record(null, completed);
+
+        record(completed, open(TaskStatus.IN_PROGRESS));
+
+        assertTrends(point(FOUR_DAYS_AGO, 1, 0, 0), point(TWO_DAYS_AGO, 0, 0, 1));
+    }
+
+    @Test
+    void deletingAnOpenTaskKeepsItsCreationButNotItsOverdue() {
+        TaskRollupService.Snapshot open = open(TaskStatus.PENDING);
+        record(null, open);
+
+        record(open, null);
+
+        assertTrends(point(FOUR_DAYS_AGO, 1, 0, 0));
+    }
+
+    @Test
+    void deletingACompletedTaskKeepsItsHistory() {
+        TaskRollupService.Snapshot completed =
+                new TaskRollupService.Snapshot(TaskStatus.COMPLETED, FOUR_DAYS_AGO, THREE_DAYS_AGO, TWO_DAYS_AGO);
+        record(null, completed);
+
+        record(completed, null);
+
+        assertTrends(point(FOUR_DAYS_AGO, 1, 0, 0), point(THREE_DAYS_AGO, 0, 1, 0));
+    }
+
+    private TaskRollupService.Snapshot open(TaskStatus status) {
+        return new TaskRollupService.Snapshot(status, FOUR_DAYS_AGO, null, TWO_DAYS_AGO);
+    }
+
+    private void record(TaskRollupService.Snapshot before, TaskRollupService.Snapshot after) {
+        transactionTemplate.executeWithoutResult(status -> rollupService.recordChange(userId, before, after));
+    }
+
+    private void assertTrends(TrendPoint... expected) {
+        List<TrendPoint> trends = rollupService.getTrends(userId, LocalDate.now().minusDays(7), LocalDate.now(), "day")
+                .stream()
+                .filter(point -> point.getCreated() != 0 || point.getCompleted() != 0 || point.getOverdue() != 0)
+                .toList();
+        assertEquals(List.of(expected), trends);
+    }
+
+    private static TrendPoint point(LocalDateTime day, long created, long completed, long overdue) {
+        return new TrendPoint(day.toLocalDate(), created, completed, overdue);
+    }
+
+    private User createUser(String username) {
+        User user = new User();
+        user.setEmail(username + "@example.com");
+        user.setUsername(username);
+        user.setPassword("secret");
+        user.setFullName("Rollup User");
+        user.setRole(Role.USER);
+        user.setIsActive(true);
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,251 @@
+package org.example.tasknexus.storage;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StorageBackendTest {
+
+    @TempDir
+    static Path tempDir;
+
+    private static FakeS3Server s3Server;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        s3Server = new FakeS3Server();
+        s3Server.start();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        s3Server.stop();
+    }
+
+    static Stream<StorageBackend> backends() {
+        return Stream.of(
+                new LocalStorageBackend(tempDir.resolve("local")),
+                new InMemoryStorageBackend(),
+                new S3StorageBackend("http://localhost:" + s3Server.getPort(), "us-east-1", "test",
+                        "access", "secret", Duration.ofSeconds(5)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("backends")
+    void putGetAndRangeRoundTrip(StorageBackend backend) throws IOException {
+        byte[] content = "0123456789abcdefghij".getBytes(StandardCharsets.US_ASCII);
+        backend.put("blobs/ab/cd/object", new ByteArrayInputStream(content), content.length);
+
+        assertArrayEquals(content, read(backend.get("blobs/ab/cd/object")));
+        assertArrayEquals("56789".getBytes(StandardCharsets.US_ASCII),
+                read(backend.getRange("blobs/ab/cd/object", 5, 5)));
+        assertEquals(content.length, backend.stat("blobs/ab/cd/object").orElseThrow().size());
+    }
+
+    @ParameterizedTest
+    @MethodSource("backends")
+    void moveListAndDelete(StorageBackend backend) throws IOException {
+        byte[] content = "payload".getBytes(StandardCharsets.US_ASCII);
+        backend.put("staging/upload-1", new ByteArrayInputStream(content), content.length);
+        backend.move("staging/upload-1", "blobs/12/34/moved");
+
+        assertTrue(backend.stat("staging/upload-1").isEmpty());
+        try (Stream<StoredObject> listed = backend.list("blobs/12/")) {
+            assertEquals(List.of("blobs/12/34/moved"), listed.map(StoredObject::key).toList());
+        }
+
+        assertTrue(backend.delete("blobs/12/34/moved"));
+        assertFalse(backend.delete("blobs/12/34/moved"));
+        assertThrows(NoSuchFileException.class, () -> backend.get("blobs/12/34/moved"));
+    }
+
+    @ParameterizedTest
+    @MethodSource("backends")
+    void putWithUnknownLength(StorageBackend backend) throws IOException {
+        byte[] content = "streamed without a length".getBytes(StandardCharsets.US_ASCII);
+        backend.put("staging/unknown", new ByteArrayInputStream(content), -1);
+
+        assertArrayEquals(content, read(backend.get("staging/unknown")));
+        assertEquals(content.length, backend.stat("staging/unknown").orElseThrow().size());
+    }
+
+    @ParameterizedTest
+    @MethodSource("backends")
+    void rejectsBodyShorterThanDeclared(StorageBackend backend) {
+        byte[] content = "short".getBytes(StandardCharsets.US_ASCII);
+        assertThrows(IOException.class,
+                () -> backend.put("blobs/ff/ff/short", new ByteArrayInputStream(content), 100));
+    }
+
+    private static byte[] read(ReadableByteChannel channel) throws IOException {
+        try (InputStream in = Channels.newInputStream(channel)) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * Minimal in-process S3 stand-in: path-style object PUT/GET/HEAD/DELETE, server-side copy and
+     * ListObjectsV2, kept in an in-memory backend. Signatures are required but not verified.
+     */
+    private static class FakeS3Server {
+
+        private final InMemoryStorageBackend objects = new InMemoryStorageBackend();
+
+        private HttpServer server;
+
+        void start() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/", exchange -> {
+                try (exchange) {
+                    handle(exchange);
+                }
+            });
+            server.start();
+        }
+
+        int getPort() {
+            return server.getAddress().getPort();
+        }
+
+        void stop() {
+            server.stop(0);
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            if (authorization == null || !authorization.startsWith("AWS4-HMAC-SHA256 Credential=access/")) {
+                exchange.sendResponseHeaders(403, -1);
+                return;
+            }
+
+            String path = URLDecoder.decode(exchange.getRequestURI().getRawPath(), StandardCharsets.UTF_8);
+            int slash = path.indexOf('/', 1);
+            String key = slash < 0 ? null : path.substring(slash + 1);
+            String method = exchange.getRequestMethod();
+
+            if (key == null) {
+                if (method.equals("GET")) {
+                    list(exchange, query(exchange.getRequestURI().getRawQuery()));
+                } else {
+                    exchange.sendResponseHeaders(200, -1);
+                }
+                return;
+            }
+
+            switch (method) {
+                case "PUT" -> {
+                    String copySource = exchange.getRequestHeaders().getFirst("x-amz-copy-source");
+                    if (copySource != null) {
+                        String source = copySource.substring(copySource.indexOf('/', 1) + 1);
+                        byte[] data = objects.stat(source).isPresent() ? read(objects.get(source)) : null;
+                        if (data == null) {
+                            exchange.sendResponseHeaders(404, -1);
+                            return;
+                        }
+                        objects.put(key, new ByteArrayInputStream(data), data.length);
+                        respond(exchange, 200, "<CopyObjectResult/>");
+                        return;
+                    }
+                    byte[] body = exchange.getRequestBody().readAllBytes();
+                    objects.put(key, new ByteArrayInputStream(body), body.length);
+                    exchange.sendResponseHeaders(200, -1);
+                }
+                case "GET", "HEAD" -> {
+                    if (objects.stat(key).isEmpty()) {
+                        exchange.sendResponseHeaders(404, -1);
+                        return;
+                    }
+                    byte[] data = read(objects.get(key));
+                    exchange.getResponseHeaders().set("Last-Modified",
+                            DateTimeFormatter.RFC_1123_DATE_TIME.format(objects.stat(key).get().lastModified()
+                                    .atOffset(ZoneOffset.UTC)));
+                    String range = exchange.getRequestHeaders().getFirst("Range");
+                    int status = 200;
+                    if (range != null) {
+                        String[] bounds = range.substring(6).split("-");
+                        int start = Integer.parseInt(bounds[0]);
+                        int end = Math.min(Integer.parseInt(bounds[1]), data.length - 1);
+                        data = Arrays.copyOfRange(data, start, end + 1);
+                        status = 206;
+                    }
+                    if (method.equals("HEAD")) {
+                        exchange.getResponseHeaders().set("Content-Length", String.valueOf(data.length));
+                        exchange.sendResponseHeaders(status, -1);
+                        return;
+                    }
+                    exchange.sendResponseHeaders(status, data.length);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(data);
+                    }
+                }
+                case "DELETE" -> {
+                    objects.delete(key);
+                    exchange.sendResponseHeaders(204, -1);
+                }
+                default -> exchange.sendResponseHeaders(405, -1);
+            }
+        }
+
+        private void list(HttpExchange exchange, Map<String, String> query) throws IOException {
+            StringBuilder xml = new StringBuilder("<ListBucketResult>");
+            try (Stream<StoredObject> listed = objects.list(query.getOrDefault("prefix", ""))) {
+                listed.forEach(object -> xml.append("<Contents><Key>").append(object.key())
+                        .append("</Key><Size>").append(object.size())
+                        .append("</Size><LastModified>").append(object.lastModified())
+                        .append("</LastModified></Contents>"));
+            }
+            xml.append("<IsTruncated>false</IsTruncated></ListBucketResult>");
+            respond(exchange, 200, xml.toString());
+        }
+
+        private void respond(HttpExchange exchange, int status, String body) throws IOException {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+
+        private Map<String, String> query(String rawQuery) {
+            Map<String, String> query = new HashMap<>();
+            if (rawQuery != null) {
+                for (String pair : rawQuery.split("&")) {
+                    int eq = pair.indexOf('=');
+                    query.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                            URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+                }
+            }
+            return query;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package org.example.tasknexus.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmailTemplateEngineTest {
+
+    @TempDir
+    Path overrideDir;
+
+    private EmailTemplateEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new EmailTemplateEngine();
+        ReflectionTestUtils.setField(engine, "overrideDir", "");
+        ReflectionTestUtils.setField(engine, "reloadIntervalMs", 0L);
+    }
+
+    @Test
+    void htmlTemplatesEscapeValues() {
+        EmailTemplate template = EmailTemplate.parse("note.html", "<p>{{title}}</p>");
+
+        assertEquals("<p>&lt;b&gt;Tom &amp; &quot;Jerry&quot;&#39;s&lt;/b&gt;</p>",
+                template.render(Map.of("title", "<b>Tom & \"Jerry\"'s</b>")));
+    }
+
+    @Test
+    void tripleBracesInsertRawValues() {
+        EmailTemplate template = EmailTemplate.parse("digest.html", "<ul>{{{items}}}</ul>");
+
+        assertEquals("<ul><li>a</li></ul>", template.render(Map.of("items", "<li>a</li>")));
+    }
+
+    @Test
+    void textTemplatesAreNotEscaped() {
+        EmailTemplate template = EmailTemplate.parse("note.txt", "Title: {{title}}");
+
+        assertEquals("Title: <b>&</b>", template.render(Map.of("title", "<b>&</b>")));
+    }
+
+    @Test
+    void placeholdersAreTrimmedAndMayAppearAnywhere() {
+        EmailTemplate template = EmailTemplate.parse("note.txt", "{{a}}-{{ b }}{{a}}");
+
+        assertEquals("1-21", template.render(Map.of("a", 1, "b", 2)));
+        assertEquals("no placeholders", EmailTemplate.parse("plain.txt", "no placeholders").render(Map.of()));
+        assertEquals("", EmailTemplate.parse("empty.txt", "").render(Map.of()));
+    }
+
+    @Test
+    void unclosedPlaceholderIsRejected() {
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> EmailTemplate.parse("broken.txt", "Hi {{fullName"));
+
+        assertTrue(error.getMessage().contains("broken.txt"));
+        assertThrows(IllegalArgumentException.class, () -> EmailTemplate.parse("broken.html", "{{{items}}"));
+    }
+
+    @Test
+    void missingAndNullValuesRenderEmptyAndExtraKeysAreIgnored() {
+        EmailTemplate template = EmailTemplate.parse("note.txt", "[{{missing}}][{{nullValue}}]");
+        Map<String, Object> values = new HashMap<>();
+        values.put("nullValue", null);
+        values.put("unused", "ignored");
+
+        assertEquals("[][]", template.render(values));
+    }
+
+    @Test
+    void builtInTemplatesAreLoadedFromTheClasspath() {
+        engine.init();
+
+        String rendered = engine.render(EmailTemplateEngine.TASK_COMPLETED,
+                Map.of("fullName", "Ada", "title", "Ship it", "priority", "HIGH"));
+
+        assertTrue(rendered.startsWith("Hi Ada,"));
+        assertTrue(rendered.contains("Title: Ship it"));
+    }
+
+    @Test
+    void unknownTemplateNameIsRejected() {
+        engine.init();
+
+        assertThrows(IllegalArgumentException.class, () -> engine.render("missing.html", Map.of()));
+    }
+
+    @Test
+    void overrideFileIsReloadedWhenItChanges() throws IOException {
+        Path override = overrideDir.resolve(EmailTemplateEngine.WELCOME);
+        write(override, "<p>Hello {{fullName}}</p>", 1_000_000L);
+        ReflectionTestUtils.setField(engine, "overrideDir", overrideDir.toString());
+        engine.init();
+
+        assertEquals("<p>Hello Ada</p>", engine.render(EmailTemplateEngine.WELCOME, Map.of("fullName", "Ada")));
+
+        write(override, "<p>Welcome back {{fullName}}</p>", 2_000_000L);
+        assertEquals("<p>Welcome back Ada</p>", engine.render(EmailTemplateEngine.WELCOME, Map.of("fullName", "Ada")));
+
+        // A broken edit keeps the last good version
+        write(override, "<p>Welcome {{fullName</p>", 3_000_000L);
+        assertEquals("<p>Welcome back Ada</p>", engine.render(EmailTemplateEngine.WELCOME, Map.of("fullName", "Ada")));
+
+        // Removing the override falls back to the built-in template
+        Files.delete(override);
+        assertTrue(engine.render(EmailTemplateEngine.WELCOME, Map.of("fullName", "Ada")).contains("Ada"));
+        assertTrue(engine.render(EmailTemplateEngine.WELCOME, Map.of("fullName", "Ada")).contains("<html>"));
+    }
+
+    private static void write(Path path, String content, long lastModified) throws IOException {
+        Files.writeString(path, content);
+        Files.setLastModifiedTime(path, FileTime.fromMillis(lastModified));
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.tasknexus.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FrequencySketchTest {
+
+    @Test
+    void countsSaturateAtFifteen() {
+        FrequencySketch sketch = new FrequencySketch(1000);
+
+        for (int i = 1; i <= 20; i++) {
+            sketch.increment("hot");
+            assertEquals(Math.min(i, 15), sketch.frequency("hot"));
+        }
+        assertEquals(0, sketch.frequency("cold"));
+    }
+
+    @Test
+    void packedCountersDoNotDisturbTheirNeighbours() {
+        FrequencySketch sketch = new FrequencySketch(1000);
+        int keys = 500;
+        for (int key = 0; key < keys; key++) {
+            for (int i = 0; i < key % 16; i++) {
+                sketch.increment(key);
+            }
+        }
+
+        int exact = 0;
+        for (int key = 0; key < keys; key++) {
+            int frequency = sketch.frequency(key);
+            assertTrue(frequency >= key % 16, "key " + key + " undercounted as " + frequency);
+            if (frequency == key % 16) {
+                exact++;
+            }
+        }
+        assertTrue(exact >= keys * 95 / 100, "only " + exact + " exact estimates");
+    }
+
+    @Test
+    void agingHalvesEveryCounter() {
+        // 32 counters per row, so counters are halved after 320 additions
+        FrequencySketch sketch = new FrequencySketch(4);
+        for (int i = 0; i < 15; i++) {
+            sketch.increment("hot");
+        }
+        for (int i = 0; i < 6; i++) {
+            sketch.increment("warm");
+        }
+        assertEquals(15, sketch.frequency("hot"));
+        assertEquals(6, sketch.frequency("warm"));
+
+        // Saturated counters stop counting as additions, so other keys push the sketch to its sample size
+        int key = 0;
+        int hotBefore;
+        do {
+            hotBefore = sketch.frequency("hot");
+            sketch.increment(key++);
+        } while (sketch.frequency("hot") >= hotBefore && key < 10_000);
+
+        assertTrue(key < 10_000, "sketch never aged");
+        assertEquals(hotBefore / 2, sketch.frequency("hot"));
+        assertTrue(sketch.frequency("warm") <= 7, "warm is " + sketch.frequency("warm"));
+    }
+}
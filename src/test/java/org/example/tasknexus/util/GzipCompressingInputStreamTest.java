@@ -0,0 +1,108 @@
+package org.example.tasknexus.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GzipCompressingInputStreamTest {
+
+    @Test
+    void roundTripsThroughGzipInputStream() throws IOException {
+        byte[] content = "The quick brown fox jumps over the lazy dog. ".repeat(5000)
+                .getBytes(StandardCharsets.UTF_8);
+
+        GzipCompressingInputStream compressing = compress(content);
+        byte[] gzip = compressing.readAllBytes();
+
+        assertArrayEquals(content, gunzip(gzip));
+        assertEquals(content.length, compressing.getBytesRead());
+        assertEquals(gzip.length, compressing.getBytesProduced());
+        assertTrue(gzip.length < content.length / 10, "compressed to " + gzip.length);
+    }
+
+    @Test
+    void trailerCarriesCrcAndInputSize() throws IOException {
+        byte[] content = random(200_000);
+
+        byte[] gzip = compress(content).readAllBytes();
+
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        assertEquals(crc.getValue(), littleEndian(gzip, gzip.length - 8));
+        assertEquals(content.length, littleEndian(gzip, gzip.length - 4));
+    }
+
+    @Test
+    void emptyInputIsAValidGzipStream() throws IOException {
+        GzipCompressingInputStream compressing = compress(new byte[0]);
+        byte[] gzip = compressing.readAllBytes();
+
+        assertEquals(0, gunzip(gzip).length);
+        assertEquals(0, compressing.getBytesRead());
+        assertEquals(0, littleEndian(gzip, gzip.length - 8));
+        assertEquals(0, littleEndian(gzip, gzip.length - 4));
+    }
+
+    @Test
+    void incompressibleInputStillRoundTrips() throws IOException {
+        byte[] content = random(100_000);
+
+        GzipCompressingInputStream compressing = compress(content);
+        byte[] gzip = compressing.readAllBytes();
+
+        assertArrayEquals(content, gunzip(gzip));
+        // Stored deflate blocks plus header and trailer: slightly larger, never much larger
+        assertTrue(gzip.length > content.length * 0.9, "compressed to " + gzip.length);
+        assertTrue(gzip.length < content.length + 1024, "compressed to " + gzip.length);
+    }
+
+    @Test
+    void singleByteReadsMatchBulkReads() throws IOException {
+        byte[] content = "abcabcabc".repeat(100).getBytes(StandardCharsets.US_ASCII);
+        byte[] bulk = compress(content).readAllBytes();
+
+        byte[] single = new byte[bulk.length];
+        try (InputStream in = compress(content)) {
+            for (int i = 0; i < single.length; i++) {
+                single[i] = (byte) in.read();
+            }
+            assertEquals(-1, in.read());
+        }
+        assertArrayEquals(bulk, single);
+    }
+
+    private static GzipCompressingInputStream compress(byte[] content) {
+        return new GzipCompressingInputStream(new ByteArrayInputStream(content), Deflater.DEFAULT_COMPRESSION);
+    }
+
+    private static byte[] gunzip(byte[] gzip) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static long littleEndian(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < 4; i++) {
+            value |= (bytes[offset + i] & 0xffL) << (8 * i);
+        }
+        return value;
+    }
+
+    private static byte[] random(int size) {
+        byte[] bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+}
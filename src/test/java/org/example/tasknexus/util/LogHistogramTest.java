@@ -0,0 +1,98 @@
+package org.example.tasknexus.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogHistogramTest {
+
+    @Test
+    void zeroAndNegativeValuesShareTheFirstBucket() {
+        assertEquals(0, LogHistogram.indexOf(0));
+        assertEquals(0, LogHistogram.indexOf(-42));
+        assertEquals(0, LogHistogram.representativeValue(0));
+        assertEquals(1, LogHistogram.indexOf(1));
+    }
+
+    @Test
+    void everyPowerOfTwoStartsANewBucket() {
+        for (int exponent = 0; exponent < 32; exponent++) {
+            long value = 1L << exponent;
+            assertEquals(1 + 8 * exponent, LogHistogram.indexOf(value), "2^" + exponent);
+            if (exponent > 0) {
+                assertTrue(LogHistogram.indexOf(value - 1) < 1 + 8 * exponent, "2^" + exponent + " - 1");
+            }
+        }
+    }
+
+    @Test
+    void valuesPastTheRangeClampToTheLastBucket() {
+        assertEquals(LogHistogram.BUCKET_COUNT - 1, LogHistogram.indexOf(1L << 32));
+        assertEquals(LogHistogram.BUCKET_COUNT - 1, LogHistogram.indexOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    void representativeValuesStayWithinTheRelativeError() {
+        for (long value = 1; value < (1L << 32); value = value * 21 / 20 + 1) {
+            long representative = LogHistogram.representativeValue(LogHistogram.indexOf(value));
+            assertTrue(Math.abs(representative - value) <= value * 0.05 + 0.5,
+                    value + " represented as " + representative);
+        }
+    }
+
+    @Test
+    void percentilesOfAUniformRange() {
+        LogHistogram histogram = new LogHistogram();
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(1000, histogram.getTotalCount());
+        assertEquals(1, histogram.percentile(0));
+        assertWithin(500, histogram.percentile(50));
+        assertWithin(900, histogram.percentile(90));
+        assertWithin(990, histogram.percentile(99));
+        assertWithin(1000, histogram.percentile(100));
+    }
+
+    @Test
+    void percentileRanksRoundUp() {
+        LogHistogram histogram = new LogHistogram();
+        histogram.record(10);
+        histogram.record(1000);
+
+        // Rank ceil(0.5 * 2) = 1 is the smaller value; anything above 50% is the larger one
+        assertWithin(10, histogram.percentile(50));
+        assertWithin(1000, histogram.percentile(51));
+    }
+
+    @Test
+    void emptyHistogramReportsZero() {
+        assertEquals(0, new LogHistogram().percentile(99));
+    }
+
+    @Test
+    void mergeAndSerializationKeepCounts() {
+        LogHistogram first = new LogHistogram();
+        LogHistogram second = new LogHistogram();
+        for (long value = 0; value < 500; value++) {
+            first.record(value * 7);
+            second.record(value * 7919);
+        }
+        first.merge(second);
+
+        LogHistogram copy = LogHistogram.fromBytes(first.toBytes());
+
+        assertEquals(1000, copy.getTotalCount());
+        for (double percentile : new double[]{1, 25, 50, 75, 90, 99, 100}) {
+            assertEquals(first.percentile(percentile), copy.percentile(percentile), "p" + percentile);
+        }
+        assertEquals(0, LogHistogram.fromBytes(null).getTotalCount());
+        assertEquals(0, LogHistogram.fromBytes(new byte[0]).getTotalCount());
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected * 0.09, "expected ~" + expected + " but was " + actual);
+    }
+}